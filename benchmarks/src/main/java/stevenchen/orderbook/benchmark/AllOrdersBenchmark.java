@@ -0,0 +1,58 @@
+package stevenchen.orderbook.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import stevenchen.orderbook.OrderBook;
+import stevenchen.orderbook.OrderBookConfig;
+import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.model.OrderStorageType;
+import stevenchen.orderbook.model.Side;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to materialize every order of one side of a large book.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class AllOrdersBenchmark {
+    private static final int PRICE_LEVELS = 1000;
+
+    @Param({"1000000"})
+    public int orderCount;
+
+    @Param({"HEAP", "OFF_HEAP"})
+    public String orderStorageType;
+
+    private OrderBook orderBook;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        OrderBookConfig config = new OrderBookConfig()
+                .setOrderStorageType(OrderStorageType.valueOf(orderStorageType))
+                .setInitialOrderCapacity(orderCount);
+        orderBook = new OrderBook(config);
+        int drainInterval = config.getRingBufferSize() / 2;
+        for (int i = 0; i < orderCount; i++) {
+            orderBook.addOrder(new Order(i, 100.0 - (1 + i % PRICE_LEVELS) / 100.0, 'B', 100));
+            if (i % drainInterval == drainInterval - 1) {
+                orderBook.drainAndProcessOrderActions();
+            }
+        }
+        orderBook.drainAndProcessOrderActions();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        orderBook.close();
+    }
+
+    @Benchmark
+    public List<Order> getAllOrdersOnSide() {
+        return orderBook.getAllOrdersOnSide(Side.BID);
+    }
+}
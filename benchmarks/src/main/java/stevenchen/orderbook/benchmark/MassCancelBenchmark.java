@@ -0,0 +1,53 @@
+package stevenchen.orderbook.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import stevenchen.orderbook.OrderBook;
+import stevenchen.orderbook.OrderBookConfig;
+import stevenchen.orderbook.model.Order;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to cancel every order of a large session, interleaved with the orders of another session over many levels.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class MassCancelBenchmark {
+    private static final int PRICE_LEVELS = 1000;
+
+    @Param({"100000"})
+    public int sessionOrderCount;
+
+    private Order[] orders;
+    private OrderBook orderBook;
+
+    @Setup(Level.Trial)
+    public void setUpOrders() {
+        orders = new Order[sessionOrderCount * 2];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = new Order(i, 100.0 - (1 + i % PRICE_LEVELS) / 100.0, 'B', 100, 1 + i % 2);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        orderBook = new OrderBook(new OrderBookConfig().setInitialOrderCapacity(orders.length));
+        orderBook.bulkLoad(orders);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        orderBook.close();
+    }
+
+    @Benchmark
+    public long massCancel() {
+        orderBook.massCancel(1);
+        orderBook.drainAndProcessOrderActions();
+        return orderBook.getBookVersion();
+    }
+}
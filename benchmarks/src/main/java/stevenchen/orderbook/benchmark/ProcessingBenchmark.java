@@ -0,0 +1,103 @@
+package stevenchen.orderbook.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import stevenchen.orderbook.OrderBook;
+import stevenchen.orderbook.OrderBookConfig;
+import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.model.OrderLevelMapType;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the processing thread, applying a batch of published actions with drainAndProcessOrderActions.
+ * <p>
+ * The book starts with RESTING_ORDERS orders spread over PRICE_LEVELS prices on each side. Every batch mixes
+ * modifies of live orders with adds and removes in equal numbers, so the book keeps its size across invocations.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ProcessingBenchmark {
+    private static final int BATCH_SIZE = 4096;
+    private static final int RESTING_ORDERS = 10_000;
+    private static final int PRICE_LEVELS = 100;
+
+    @Param({"0", "50", "90"})
+    public int modifyPercent;
+
+    @Param({"SKIP_LIST", "PRICE_LADDER"})
+    public String orderLevelMapType;
+
+    // 0 validates on the processing thread
+    @Param({"0", "2"})
+    public int validationThreads;
+
+    private OrderBook orderBook;
+    private SplittableRandom random;
+    private long[] liveOrderIds;
+    private int liveOrderCount;
+    private long nextOrderId;
+    private boolean nextIsAdd;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        orderBook = new OrderBook(new OrderBookConfig()
+                .setOrderLevelMapType(OrderLevelMapType.valueOf(orderLevelMapType))
+                .setPriceLadderBand(100.0 - PRICE_LEVELS / 100.0, 4 * PRICE_LEVELS)
+                .setInitialOrderCapacity(2 * RESTING_ORDERS)
+                .setValidationThreads(validationThreads));
+        random = new SplittableRandom(42);
+        liveOrderIds = new long[RESTING_ORDERS + BATCH_SIZE];
+        for (int i = 0; i < RESTING_ORDERS; i++) {
+            addOrder();
+        }
+        orderBook.drainAndProcessOrderActions();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        orderBook.close();
+    }
+
+    private void addOrder() {
+        long orderId = nextOrderId++;
+        int ticks = 1 + random.nextInt(PRICE_LEVELS);
+        boolean bid = random.nextBoolean();
+        orderBook.addOrder(new Order(orderId, bid ? 100.0 - ticks / 100.0 : 100.0 + ticks / 100.0, bid ? 'B' : 'O', 1 + random.nextInt(1000)));
+        liveOrderIds[liveOrderCount++] = orderId;
+    }
+
+    private void removeOrder() {
+        int index = random.nextInt(liveOrderCount);
+        orderBook.removeOrder(liveOrderIds[index]);
+        liveOrderIds[index] = liveOrderIds[--liveOrderCount];
+    }
+
+    /**
+     * Publish the next batch, outside of the measured time.
+     */
+    @Setup(Level.Invocation)
+    public void publishBatch() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            if (random.nextInt(100) < modifyPercent) {
+                orderBook.modifyOrder(liveOrderIds[random.nextInt(liveOrderCount)], 1 + random.nextInt(1000));
+            } else if (nextIsAdd) {
+                addOrder();
+                nextIsAdd = false;
+            } else {
+                removeOrder();
+                nextIsAdd = true;
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void drainAndProcess() {
+        orderBook.drainAndProcessOrderActions();
+    }
+}
@@ -0,0 +1,95 @@
+package stevenchen.orderbook.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import stevenchen.orderbook.OrderBook;
+import stevenchen.orderbook.OrderBookConfig;
+import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.sequencer.WaitStrategy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput of the producer side, publishing into the ring buffer while a processing thread drains it.
+ * <p>
+ * Each operation removes and adds back an order id recycled from a window owned by the producer thread,
+ * so the book stays at a bounded size however long the benchmark runs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProducerBenchmark {
+    private static final int WINDOW = 1024;
+
+    @Param({"PARK", "YIELD"})
+    public String waitStrategy;
+
+    private OrderBook orderBook;
+    private Thread processThread;
+    private final AtomicInteger producerCount = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Producer {
+        private long baseOrderId;
+        private int counter;
+
+        @Setup(Level.Trial)
+        public void setUp(ProducerBenchmark benchmark) {
+            baseOrderId = (long) benchmark.producerCount.getAndIncrement() * WINDOW;
+        }
+
+        long nextOrderId() {
+            counter = (counter + 1) & (WINDOW - 1);
+            return baseOrderId + counter;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        orderBook = new OrderBook(new OrderBookConfig()
+                .setWaitStrategy(WaitStrategy.valueOf(waitStrategy))
+                .setSnapshotDepth(0));
+        processThread = new Thread(() -> {
+            try {
+                orderBook.continuousProcessOrderActions();
+            } catch (InterruptedException e) {
+                // stopped by tearDown
+            }
+        }, "orderbook-benchmark-process");
+        processThread.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        processThread.interrupt();
+        processThread.join();
+        orderBook.close();
+    }
+
+    private void publish(Producer producer) {
+        long orderId = producer.nextOrderId();
+        orderBook.removeOrder(orderId);
+        orderBook.addOrder(new Order(orderId, 100.0 + (orderId & 15) / 100.0, (orderId & 1) == 0 ? 'B' : 'O', 100));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void producers1(Producer producer) {
+        publish(producer);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void producers4(Producer producer) {
+        publish(producer);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void producers16(Producer producer) {
+        publish(producer);
+    }
+}
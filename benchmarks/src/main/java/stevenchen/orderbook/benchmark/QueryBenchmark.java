@@ -0,0 +1,67 @@
+package stevenchen.orderbook.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import stevenchen.orderbook.OrderBook;
+import stevenchen.orderbook.OrderBookConfig;
+import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.model.Side;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the level queries, at a given level of a book with a given number of levels per side.
+ * Levels within the depth index are read in O(1), deeper levels walk the level map.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+    private static final int ORDERS_PER_LEVEL = 10;
+
+    @Param({"10", "100", "1000"})
+    public int levelCount;
+
+    @Param({"0", "5", "50"})
+    public int level;
+
+    private OrderBook orderBook;
+    private int queriedLevel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        orderBook = new OrderBook(new OrderBookConfig().setInitialOrderCapacity(2 * levelCount * ORDERS_PER_LEVEL));
+        long orderId = 0;
+        for (int i = 0; i < levelCount; i++) {
+            for (int j = 0; j < ORDERS_PER_LEVEL; j++) {
+                orderBook.addOrder(new Order(orderId++, 100.0 - (i + 1) / 100.0, 'B', 100));
+                orderBook.addOrder(new Order(orderId++, 100.0 + (i + 1) / 100.0, 'O', 100));
+            }
+            orderBook.drainAndProcessOrderActions();
+        }
+        queriedLevel = Math.min(level, levelCount - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        orderBook.close();
+    }
+
+    @Benchmark
+    public double getLevelPrice() {
+        return orderBook.getLevelPrice(Side.BID, queriedLevel);
+    }
+
+    @Benchmark
+    public long getLevelTotalSize() {
+        return orderBook.getLevelTotalSize(Side.OFFER, queriedLevel);
+    }
+
+    @Benchmark
+    public double snapshotLevelPrice() {
+        // lock-free, only covers the snapshot depth
+        return orderBook.snapshot(1).getLevelPrice(Side.BID, 0);
+    }
+}
@@ -0,0 +1,24 @@
+package stevenchen.orderbook;
+
+import stevenchen.orderbook.event.RejectReason;
+
+/**
+ * Receives the outcome of one action published into an {@link OrderBook}, on the processing thread, at the end of
+ * the batch that applied or rejected the action, once its journal records are written and forced according to the
+ * FsyncPolicy. Implementations must be fast and must not throw, as they run inside the processing loop. A gateway can
+ * keep one instance per connection or per pooled request, so reporting an outcome allocates nothing.
+ */
+public interface ActionCallback {
+    /**
+     * Called for an applied action. A MARKET or IOC order whose remainder was cancelled, or a FOK order that was
+     * killed, is applied too: its filled size is lower than its size, and 0 for a killed FOK order.
+     * @param sequence sequence of the action
+     * @param filledSize size an added order filled against the opposite side, 0 for the other actions
+     */
+    void onApplied(long sequence, long filledSize);
+
+    /**
+     * @param sequence sequence of the action
+     */
+    void onRejected(long sequence, RejectReason reason);
+}
@@ -0,0 +1,50 @@
+package stevenchen.orderbook;
+
+import stevenchen.orderbook.event.RejectReason;
+
+/**
+ * The outcome of an action published with one of the async methods of {@link OrderBook}.
+ */
+public class ActionResult {
+    private final long sequence;
+    private final long filledSize;
+    private final RejectReason rejectReason;
+
+    ActionResult(long sequence, long filledSize, RejectReason rejectReason) {
+        this.sequence = sequence;
+        this.filledSize = filledSize;
+        this.rejectReason = rejectReason;
+    }
+
+    /**
+     * @return the sequence of the action
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public boolean isApplied() {
+        return rejectReason == null;
+    }
+
+    /**
+     * An applied MARKET or IOC order fills at most its size and its remainder is cancelled, an applied FOK order
+     * fills its whole size or is killed with nothing filled.
+     * @return the size an added order filled against the opposite side, 0 for the other actions and rejected ones
+     */
+    public long getFilledSize() {
+        return filledSize;
+    }
+
+    /**
+     * @return the reason the action was rejected, null if it was applied
+     */
+    public RejectReason getRejectReason() {
+        return rejectReason;
+    }
+
+    @Override
+    public String toString() {
+        return rejectReason == null ? "applied at " + sequence + ", filled " + filledSize : "rejected at " + sequence + ": " + rejectReason;
+    }
+}
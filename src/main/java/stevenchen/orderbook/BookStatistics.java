@@ -0,0 +1,62 @@
+package stevenchen.orderbook;
+
+import stevenchen.orderbook.model.Side;
+
+/**
+ * Whole-book totals of both sides of an {@link OrderBook}, computed by {@link OrderBook#getStatistics(int)}
+ * between two batches, so both sides reflect the same book version.
+ */
+public class BookStatistics {
+    private final long bookVersion;
+    private final SideStatistics bid;
+    private final SideStatistics offer;
+
+    BookStatistics(long bookVersion, SideStatistics bid, SideStatistics offer) {
+        this.bookVersion = bookVersion;
+        this.bid = bid;
+        this.offer = offer;
+    }
+
+    public long getBookVersion() {
+        return bookVersion;
+    }
+
+    public long getTotalSize(Side side) {
+        return get(side).totalSize;
+    }
+
+    public int getOrderCount(Side side) {
+        return get(side).orderCount;
+    }
+
+    public int getLevelCount(Side side) {
+        return get(side).levelCount;
+    }
+
+    /**
+     * Get the volume weighted average price of the best levels of a side, over the level count
+     * the statistics were computed for.
+     * @return the average price, NaN if the side is empty
+     */
+    public double getVwap(Side side) {
+        return get(side).vwap;
+    }
+
+    private SideStatistics get(Side side) {
+        return side == Side.BID ? bid : offer;
+    }
+
+    static final class SideStatistics {
+        private final long totalSize;
+        private final int orderCount;
+        private final int levelCount;
+        private final double vwap;
+
+        SideStatistics(long totalSize, int orderCount, int levelCount, double vwap) {
+            this.totalSize = totalSize;
+            this.orderCount = orderCount;
+            this.levelCount = levelCount;
+            this.vwap = vwap;
+        }
+    }
+}
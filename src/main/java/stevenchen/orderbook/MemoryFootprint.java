@@ -0,0 +1,107 @@
+package stevenchen.orderbook;
+
+import stevenchen.orderbook.model.Side;
+
+/**
+ * Estimated memory held by the main structures of an {@link OrderBook}, computed by {@link OrderBook#getMemoryFootprint()}
+ * between two batches. The sizes are estimates of the JVM object layout, see
+ * {@link stevenchen.orderbook.util.MemoryEstimates}, except the native memory of an off-heap order store which is exact.
+ * <p>
+ * The order store and the order lookup grow by doubling and never shrink, so their size follows the highest number of
+ * orders the book has held rather than the current one. The bytes allocated per processed action are reported by the
+ * metrics, see {@link stevenchen.orderbook.metrics.MetricsSnapshot#getAllocatedBytesPerAction()}.
+ */
+public class MemoryFootprint {
+    private final int orderCount;
+    private final int bidLevelCount;
+    private final int offerLevelCount;
+    private final long orderStoreHeapBytes;
+    private final long orderStoreOffHeapBytes;
+    private final long orderLookupBytes;
+    private final long levelMapBytes;
+    private final long levelBucketBytes;
+
+    MemoryFootprint(int orderCount, int bidLevelCount, int offerLevelCount, long orderStoreHeapBytes, long orderStoreOffHeapBytes,
+                    long orderLookupBytes, long levelMapBytes, long levelBucketBytes) {
+        this.orderCount = orderCount;
+        this.bidLevelCount = bidLevelCount;
+        this.offerLevelCount = offerLevelCount;
+        this.orderStoreHeapBytes = orderStoreHeapBytes;
+        this.orderStoreOffHeapBytes = orderStoreOffHeapBytes;
+        this.orderLookupBytes = orderLookupBytes;
+        this.levelMapBytes = levelMapBytes;
+        this.levelBucketBytes = levelBucketBytes;
+    }
+
+    /**
+     * @return the number of resting orders
+     */
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public int getLevelCount(Side side) {
+        return side == Side.BID ? bidLevelCount : offerLevelCount;
+    }
+
+    /**
+     * @return the heap bytes of the order records, only the store object itself for an off-heap store
+     */
+    public long getOrderStoreHeapBytes() {
+        return orderStoreHeapBytes;
+    }
+
+    /**
+     * @return the native memory of the order records, 0 for a heap store
+     */
+    public long getOrderStoreOffHeapBytes() {
+        return orderStoreOffHeapBytes;
+    }
+
+    /**
+     * @return the heap bytes of the map from order id to order record
+     */
+    public long getOrderLookupBytes() {
+        return orderLookupBytes;
+    }
+
+    /**
+     * @return the heap bytes of the level maps of both sides, without their buckets
+     */
+    public long getLevelMapBytes() {
+        return levelMapBytes;
+    }
+
+    /**
+     * @return the heap bytes of the buckets of all levels
+     */
+    public long getLevelBucketBytes() {
+        return levelBucketBytes;
+    }
+
+    public long getHeapBytes() {
+        return orderStoreHeapBytes + orderLookupBytes + levelMapBytes + levelBucketBytes;
+    }
+
+    /**
+     * @return the heap and native bytes of all the structures
+     */
+    public long getTotalBytes() {
+        return getHeapBytes() + orderStoreOffHeapBytes;
+    }
+
+    /**
+     * @return the heap and native bytes of all the structures per resting order, NaN if the book is empty
+     */
+    public double getBytesPerOrder() {
+        return orderCount == 0 ? Double.NaN : (double) getTotalBytes() / orderCount;
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryFootprint[orders=" + orderCount + ", bidLevels=" + bidLevelCount + ", offerLevels=" + offerLevelCount
+                + ", orderStoreHeapBytes=" + orderStoreHeapBytes + ", orderStoreOffHeapBytes=" + orderStoreOffHeapBytes
+                + ", orderLookupBytes=" + orderLookupBytes + ", levelMapBytes=" + levelMapBytes
+                + ", levelBucketBytes=" + levelBucketBytes + "]";
+    }
+}
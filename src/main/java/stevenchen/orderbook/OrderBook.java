@@ -1,44 +1,668 @@
 package stevenchen.orderbook;
 
 import stevenchen.orderbook.action.*;
+import stevenchen.orderbook.event.MarketDataListener;
+import stevenchen.orderbook.event.MarketDataPublisher;
+import stevenchen.orderbook.event.OrderEventType;
+import stevenchen.orderbook.event.RejectReason;
+import stevenchen.orderbook.journal.Checkpoint;
+import stevenchen.orderbook.journal.JournalReader;
+import stevenchen.orderbook.journal.JournalWriter;
+import stevenchen.orderbook.metrics.OrderBookMetrics;
+import stevenchen.orderbook.model.ArrayOrderLevelMap;
+import stevenchen.orderbook.model.CumulativeDepthIndex;
+import stevenchen.orderbook.model.ExpiryTimingWheel;
+import stevenchen.orderbook.model.HeapOrderStore;
+import stevenchen.orderbook.model.InstrumentDescriptor;
+import stevenchen.orderbook.model.LevelDepthIndex;
+import stevenchen.orderbook.model.OffHeapOrderStore;
 import stevenchen.orderbook.model.Order;
-import stevenchen.orderbook.model.OrderEntry;
 import stevenchen.orderbook.model.OrderLevelBucket;
+import stevenchen.orderbook.model.OrderLevelMap;
+import stevenchen.orderbook.model.OrderLevelMapType;
+import stevenchen.orderbook.model.OrderStore;
+import stevenchen.orderbook.model.OrderType;
+import stevenchen.orderbook.model.OwnerIndex;
 import stevenchen.orderbook.model.Side;
+import stevenchen.orderbook.model.SkipListOrderLevelMap;
+import stevenchen.orderbook.sequencer.OrderActionRingBuffer;
+import stevenchen.orderbook.sequencer.OrderActionSlot;
+import stevenchen.orderbook.util.LongIntHashMap;
+import stevenchen.orderbook.validation.OrderActionValidator;
+import stevenchen.orderbook.validation.ValidationStage;
+import stevenchen.orderbook.wire.WireDecoder;
 
-import java.time.Instant;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongConsumer;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
-import java.util.stream.Collectors;
-
-public class OrderBook {
+public class OrderBook implements AutoCloseable {
     private static final Logger LOGGER = Logger.getLogger(OrderBook.class.getName());
+    // full-side queries create their Order objects in parallel from this many orders
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int BULK_LOAD_INDEX_MASK = (1 << 30) - 1;
 
-    private final Map<Long, OrderEntry> orderLookup;
-    private final BlockingQueue<OrderAction> orderActionQueue;
-    private final ConcurrentNavigableMap<Integer, OrderLevelBucket> bidLevelMap;
-    private final ConcurrentNavigableMap<Integer, OrderLevelBucket> offerLevelMap;
+    private final InstrumentDescriptor instrumentDescriptor;
+    private final OrderStore orderStore;
+    private final LongIntHashMap orderLookup;
+    private final OrderActionRingBuffer orderActionRingBuffer;
+    private final OrderLevelMap bidLevelMap;
+    private final OrderLevelMap offerLevelMap;
+    private final LevelDepthIndex bidDepthIndex;
+    private final LevelDepthIndex offerDepthIndex;
+    // null when cumulative depth is not enabled
+    private final CumulativeDepthIndex bidCumulativeDepthIndex;
+    private final CumulativeDepthIndex offerCumulativeDepthIndex;
+    // number of consecutive prices the levels of a side can span, bounded by the price ladder and the cumulative depth index
+    private final long maxLevelSpan;
+    private final ExpiryTimingWheel expiryTimingWheel;
+    private final ExpiryTimingWheel.ExpiryHandler expiryHandler = this::expireOrder;
+    private final long expiryTickNanos;
+    private final OwnerIndex ownerIndex;
+    // levels emptied or reduced by the mass cancel being applied, only used by the processing thread
+    private final List<OrderLevelBucket> massCancelledLevels = new ArrayList<>();
+    private final int maxBatchSize;
+    private final long batchLatencyBudgetNanos;
+    private final int snapshotDepth;
+    private final boolean matchingEnabled;
+    private final MarketDataPublisher marketDataPublisher;
+    private final OrderBookMetrics metrics;
+    private final Path journalDirectory;
+    private final JournalWriter journalWriter;
+    // null when the actions are validated by the processing thread
+    private final ValidationStage validationStage;
+    // whether the book is hosted by an OrderBookManager, which owns the ring buffer and the processing thread
+    private final boolean hosted;
+    private ExecutorService checkpointExecutor;
+    private long lastAppliedSequence = -1;
+    // sequence of the action being processed, only used by the processing thread
+    private long currentSequence = -1;
+    // whether an expiry action is published and not applied yet, only used by the processing thread
+    private boolean expiryPublished;
+    // reason the action being processed was rejected, null if it is applied, only used by the processing thread
+    private RejectReason currentRejectReason;
+    // size the order being added has filled against the opposite side, only used by the processing thread
+    private long currentFilledSize;
+    // outcomes of the actions of the current batch that have a callback, reported once the batch is complete,
+    // only used by the processing thread
+    private ActionCallback[] pendingCallbacks = new ActionCallback[16];
+    private long[] pendingSequences = new long[16];
+    private RejectReason[] pendingRejectReasons = new RejectReason[16];
+    private long[] pendingFilledSizes = new long[16];
+    private int pendingCallbackCount;
+    private volatile long bookVersion;
+    private volatile OrderBookSnapshot latestSnapshot = OrderBookSnapshot.empty();
 
     public OrderBook() {
-        orderLookup = new ConcurrentHashMap<>();
-        orderActionQueue = new LinkedBlockingQueue<>();
-        bidLevelMap = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
-        offerLevelMap = new ConcurrentSkipListMap<>();
+        this(new OrderBookConfig());
+    }
+
+    public OrderBook(OrderBookConfig config) {
+        this(config, config.getInstrumentDescriptor(), config.getRingBufferSize(), config.getJournalDirectory(), config.getValidationThreads(), false);
+    }
+
+    /**
+     * Construct a book hosted by an {@link OrderBookManager}, whose actions are published into the ring buffer
+     * of a shard rather than into its own, and validated by the shard thread. Its methods that publish or process
+     * actions throw an IllegalStateException.
+     */
+    OrderBook(OrderBookConfig config, InstrumentDescriptor instrumentDescriptor, int ringBufferSize, Path journalDirectory) {
+        this(config, instrumentDescriptor, ringBufferSize, journalDirectory, 0, true);
+    }
+
+    private OrderBook(OrderBookConfig config, InstrumentDescriptor instrumentDescriptor, int ringBufferSize, Path journalDirectory,
+                      int validationThreads, boolean hosted) {
+        this.instrumentDescriptor = instrumentDescriptor;
+        this.hosted = hosted;
+        orderStore = switch (config.getOrderStorageType()) {
+            case HEAP -> new HeapOrderStore(config.getInitialOrderCapacity());
+            case OFF_HEAP -> new OffHeapOrderStore(config.getInitialOrderCapacity());
+        };
+        orderLookup = new LongIntHashMap(config.getInitialOrderCapacity());
+        orderActionRingBuffer = new OrderActionRingBuffer(ringBufferSize, config.getWaitStrategy(), config.isMetricsEnabled());
+        long basePrice = instrumentDescriptor.toTicks(config.getPriceLadderBasePrice());
+        bidLevelMap = createOrderLevelMap(Side.BID, config, basePrice);
+        offerLevelMap = createOrderLevelMap(Side.OFFER, config, basePrice);
+        bidDepthIndex = new LevelDepthIndex(bidLevelMap, config.getDepthIndexLevels());
+        offerDepthIndex = new LevelDepthIndex(offerLevelMap, config.getDepthIndexLevels());
+        if (config.isCumulativeDepthEnabled()) {
+            bidCumulativeDepthIndex = new CumulativeDepthIndex(bidLevelMap, basePrice, config.getPriceLadderCapacity(),
+                    config.getPriceLadderMaxCapacity());
+            offerCumulativeDepthIndex = new CumulativeDepthIndex(offerLevelMap, basePrice, config.getPriceLadderCapacity(),
+                    config.getPriceLadderMaxCapacity());
+        } else {
+            bidCumulativeDepthIndex = null;
+            offerCumulativeDepthIndex = null;
+        }
+        boolean bounded = config.getOrderLevelMapType() == OrderLevelMapType.PRICE_LADDER || config.isCumulativeDepthEnabled();
+        maxLevelSpan = bounded ? config.getPriceLadderMaxCapacity() : Long.MAX_VALUE;
+        expiryTimingWheel = new ExpiryTimingWheel(orderStore, config.getExpiryTickMillis());
+        expiryTickNanos = config.getExpiryTickMillis() * 1_000_000L;
+        ownerIndex = new OwnerIndex(orderStore);
+        maxBatchSize = config.getMaxBatchSize();
+        batchLatencyBudgetNanos = config.getBatchLatencyBudgetNanos();
+        snapshotDepth = config.getSnapshotDepth();
+        matchingEnabled = config.isMatchingEnabled();
+        marketDataPublisher = new MarketDataPublisher(config.isConflateLevelEvents());
+        metrics = config.isMetricsEnabled() ? new OrderBookMetrics(orderActionRingBuffer) : null;
+        this.journalDirectory = journalDirectory;
+        if (journalDirectory != null) {
+            recover();
+            journalWriter = new JournalWriter(journalDirectory, config.getJournalSegmentSize(),
+                    instrumentDescriptor.getPriceScale(), config.getFsyncPolicy(), config.getFsyncIntervalMillis());
+        } else {
+            journalWriter = null;
+        }
+        if (validationThreads > 0) {
+            validationStage = new ValidationStage(orderActionRingBuffer, validationThreads, config.getWaitStrategy());
+            forEachRestingOrder(validationStage::orderAccepted);
+            validationStage.flush();
+            validationStage.start(orderActionRingBuffer.getReleasedSequence() + 1);
+        } else {
+            validationStage = null;
+        }
+    }
+
+    /**
+     * Rebuild the book from the latest checkpoint in the journal directory, if any, followed by the journal records
+     * after it, then continue the sequence after the last record.
+     */
+    private void recover() {
+        Optional<Path> checkpointPath = Checkpoint.findLatest(journalDirectory);
+        if (checkpointPath.isPresent()) {
+            Checkpoint checkpoint = Checkpoint.read(checkpointPath.get(), instrumentDescriptor.getPriceScale());
+            loadCheckpoint(checkpoint);
+            lastAppliedSequence = checkpoint.getSequence();
+            LOGGER.info("Loaded checkpoint at sequence " + lastAppliedSequence);
+        }
+        replayJournal(lastAppliedSequence + 1);
+        currentSequence = lastAppliedSequence;
+        if (lastAppliedSequence >= 0) {
+            orderActionRingBuffer.resetSequence(lastAppliedSequence + 1);
+            bookVersion++;
+            if (snapshotDepth > 0) {
+                latestSnapshot = takeSnapshot(lastAppliedSequence);
+            }
+            marketDataPublisher.batchEnd(lastAppliedSequence);
+        }
+    }
+
+    /**
+     * Build the levels, the time priority lists and the order lookup directly from a checkpoint.
+     * The orders are already grouped by side and level in priority order, so each level is created once
+     * and every order is appended to the level created just before it.
+     */
+    private void loadCheckpoint(Checkpoint checkpoint) {
+        orderStore.ensureCapacity(checkpoint.getBidCount() + checkpoint.getOfferCount());
+        orderLookup.ensureCapacity(checkpoint.getBidCount() + checkpoint.getOfferCount());
+        loadCheckpointSide(checkpoint, Side.BID, 0, checkpoint.getBidCount());
+        loadCheckpointSide(checkpoint, Side.OFFER, checkpoint.getBidCount(), checkpoint.getBidCount() + checkpoint.getOfferCount());
+    }
+
+    private void loadCheckpointSide(Checkpoint checkpoint, Side side, int fromIndex, int toIndex) {
+        OrderLevelMap orderLevelMap = getOrderLevelMap(side);
+        OrderLevelBucket orderLevelBucket = null;
+        for (int i = fromIndex; i < toIndex; i++) {
+            long price = checkpoint.getPrice(i);
+            if (orderLevelBucket == null || orderLevelBucket.getPrice() != price) {
+                orderLevelBucket = newLevelBucket(price, side);
+                orderLevelMap.put(orderLevelBucket);
+                getDepthIndex(side).levelAdded(orderLevelBucket);
+            }
+            int handle = orderStore.allocate(checkpoint.getOrderId(i), price, side, checkpoint.getSize(i), checkpoint.getOrderTime(i));
+            orderLevelBucket.addOrder(handle);
+            orderLookup.put(checkpoint.getOrderId(i), handle);
+            orderStore.setOwnerId(handle, checkpoint.getOwnerId(i));
+            ownerIndex.add(handle);
+            if (checkpoint.getExpireTime(i) != 0) {
+                orderStore.setExpireTime(handle, checkpoint.getExpireTime(i));
+                expiryTimingWheel.schedule(handle);
+            }
+        }
+    }
+
+    /**
+     * Apply the journal records from the given sequence on directly to the book, without going through
+     * the ring buffer.
+     */
+    private void replayJournal(long fromSequence) {
+        OrderActionSlot slot = new OrderActionSlot();
+        long replayed = 0;
+        try (JournalReader journalReader = new JournalReader(journalDirectory, fromSequence, instrumentDescriptor.getPriceScale())) {
+            while (journalReader.next(slot)) {
+                currentSequence = journalReader.getSequence();
+                lastAppliedSequence = currentSequence;
+                replayed++;
+                // only valid actions are journaled, and the ones rejected by the book are rejected again
+                processOrderAction(slot.getOrderAction());
+            }
+            // the sequences of trailing rejected actions were reported too, so continue after them
+            if (journalReader.getSequence() > lastAppliedSequence) {
+                currentSequence = journalReader.getSequence();
+                lastAppliedSequence = currentSequence;
+            }
+        }
+        if (replayed > 0) {
+            LOGGER.info("Replayed " + replayed + " journal records up to sequence " + lastAppliedSequence);
+        }
+    }
+
+    private static OrderLevelMap createOrderLevelMap(Side side, OrderBookConfig config, long basePrice) {
+        return switch (config.getOrderLevelMapType()) {
+            case SKIP_LIST -> new SkipListOrderLevelMap(side);
+            case PRICE_LADDER -> new ArrayOrderLevelMap(side, basePrice, config.getPriceLadderCapacity(), config.getPriceLadderMaxCapacity());
+        };
     }
 
     public void addOrder(Order order) {
-        OrderEntry orderEntry = new OrderEntry(order, Instant.now());
-        orderActionQueue.add(new AddAction(orderEntry));
+        addOrder(order, OrderType.LIMIT);
+    }
+
+    /**
+     * Add an order of the given type. Order types other than LIMIT need matching to be enabled.
+     */
+    public void addOrder(Order order, OrderType orderType) {
+        addOrder(order, orderType, null);
+    }
+
+    /**
+     * Add an order of the given type, and be notified once it is applied or rejected.
+     * @param callback called on the processing thread with the outcome, null for none
+     */
+    public void addOrder(Order order, OrderType orderType, ActionCallback callback) {
+        checkNotHosted();
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        validateOrderType(orderType, matchingEnabled);
+        Side side = Side.fromChar(order.getSide());
+        long sequence = orderActionRingBuffer.next();
+        orderActionRingBuffer.get(sequence).setAddAction(order.getId(), toOrderTicks(order.getPrice(), orderType, instrumentDescriptor), side,
+                order.getSize(), System.currentTimeMillis(), orderType, 0, order.getOwnerId());
+        orderActionRingBuffer.get(sequence).setCallback(callback);
+        orderActionRingBuffer.publish(sequence);
+    }
+
+    /**
+     * Convert the price of an order to ticks. A MARKET order has no limit price, so its price is neither checked
+     * against the bounds of the instrument nor used, and it is stored as 0.
+     */
+    static long toOrderTicks(double price, OrderType orderType, InstrumentDescriptor instrumentDescriptor) {
+        return orderType == OrderType.MARKET ? 0 : instrumentDescriptor.toValidTicks(price);
+    }
+
+    /**
+     * Add a LIMIT order, see {@link #addOrderAsync(Order, OrderType)}.
+     */
+    public CompletableFuture<ActionResult> addOrderAsync(Order order) {
+        return addOrderAsync(order, OrderType.LIMIT);
+    }
+
+    /**
+     * Add an order of the given type without waiting for it to be applied.
+     * <p>
+     * The future is completed by the processing thread once the order is applied or rejected, so a gateway thread,
+     * typically a virtual thread per connection, can block on it without holding a platform thread. Stages chained
+     * without an executor run on the processing thread and must be as fast as a listener, the async variants of
+     * CompletableFuture hand them over to another thread instead.
+     * @return a future completed with the sequence of the order or the reason it was rejected
+     */
+    public CompletableFuture<ActionResult> addOrderAsync(Order order, OrderType orderType) {
+        ActionFuture actionFuture = new ActionFuture();
+        addOrder(order, orderType, actionFuture);
+        return actionFuture;
+    }
+
+    /**
+     * Add a good-till-time LIMIT order, removed from the book by the processing thread once the expire time has passed,
+     * at most one expiry tick late. The expiry is an action of its own, numbered and journaled like the others.
+     * @param expireTime epoch milliseconds
+     */
+    public void addGoodTillTimeOrder(Order order, long expireTime) {
+        checkNotHosted();
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        if (expireTime <= 0) {
+            throw new IllegalArgumentException("Expire time must be positive, got " + expireTime);
+        }
+        Side side = Side.fromChar(order.getSide());
+        long sequence = orderActionRingBuffer.next();
+        orderActionRingBuffer.get(sequence).setAddAction(order.getId(), instrumentDescriptor.toValidTicks(order.getPrice()), side, order.getSize(),
+                System.currentTimeMillis(), OrderType.LIMIT, expireTime, order.getOwnerId());
+        orderActionRingBuffer.publish(sequence);
+    }
+
+    /**
+     * Publish a batch of binary messages in the {@link stevenchen.orderbook.wire.WireFormat} layout, decoding them
+     * straight into the ring buffer. Prices are in ticks of the {@link #getInstrumentDescriptor() instrument}.
+     * @return the number of messages published
+     */
+    public int ingest(MemorySegment messages) {
+        checkNotHosted();
+        return WireDecoder.publish(messages, orderActionRingBuffer, matchingEnabled, instrumentDescriptor);
+    }
+
+    /**
+     * Publish the messages between the position and the limit of the buffer, see {@link #ingest(MemorySegment)}.
+     * The buffer position is not changed.
+     */
+    public int ingest(ByteBuffer messages) {
+        return ingest(MemorySegment.ofBuffer(messages));
+    }
+
+    /**
+     * Load a large set of resting orders, such as a start-of-day file, into an empty book without going through
+     * the ring buffer. The orders are converted and sorted by side and price in parallel, then every level is
+     * created once and the storage and order lookup are sized up front. Within a level, orders keep the time priority
+     * of their position in the array.
+     * <p>
+     * No sequence number is used and no market data event is emitted. The orders are not journaled, so with a journal
+     * directory {@link #writeCheckpoint()} should be called afterwards for them to be recovered.
+     * @throws IllegalArgumentException if an order is invalid or ids are duplicated, the orders cross with matching enabled,
+     * or the prices of a side span more than the price ladder can hold
+     * @throws IllegalStateException if the book is not empty
+     */
+    public void bulkLoad(Order[] orders) {
+        if (orders == null) {
+            throw new IllegalArgumentException("Orders cannot be null");
+        }
+        int count = orders.length;
+        if (count > BULK_LOAD_INDEX_MASK) {
+            throw new IllegalArgumentException("At most " + BULK_LOAD_INDEX_MASK + " orders can be loaded at once, got " + count);
+        }
+        long[] orderIds = new long[count];
+        long[] prices = new long[count];
+        long[] sizes = new long[count];
+        long[] ownerIds = new long[count];
+        long[] sortKeys = new long[count];
+        IntStream.range(0, count).parallel().forEach(i -> {
+            Order order = orders[i];
+            if (order == null) {
+                throw new IllegalArgumentException("Order cannot be null");
+            }
+            if (order.getSize() <= 0) {
+                throw new IllegalArgumentException("Size of order id " + order.getId() + " must be positive, got " + order.getSize());
+            }
+            Side side = Side.fromChar(order.getSide());
+            orderIds[i] = order.getId();
+            prices[i] = instrumentDescriptor.toValidTicks(order.getPrice());
+            sizes[i] = order.getSize();
+            ownerIds[i] = order.getOwnerId();
+            // only the side until the price range is known
+            sortKeys[i] = side.ordinal();
+        });
+        long[] priceKeys = bulkLoadPriceKeys(prices);
+        Side[] sides = Side.values();
+        IntStream.range(0, count).parallel().forEach(i -> sortKeys[i] = bulkLoadSortKey(sides[(int) sortKeys[i]], priceKeys[i], i));
+        long[] sortedOrderIds = orderIds.clone();
+        Arrays.parallelSort(sortedOrderIds);
+        for (int i = 1; i < count; i++) {
+            if (sortedOrderIds[i] == sortedOrderIds[i - 1]) {
+                throw new IllegalArgumentException("Order id " + sortedOrderIds[i] + " already exists");
+            }
+        }
+        // bids sort before offers, each side best price first, then by position in the array
+        Arrays.parallelSort(sortKeys);
+        if (matchingEnabled && count > 0 && sortKeys[0] >>> 62 == 0 && sortKeys[count - 1] >>> 62 == 1) {
+            long bestBid = prices[(int) (sortKeys[0] & BULK_LOAD_INDEX_MASK)];
+            long bestOffer = prices[(int) (sortKeys[bulkLoadFirstOffer(sortKeys)] & BULK_LOAD_INDEX_MASK)];
+            if (bestBid >= bestOffer) {
+                throw new IllegalArgumentException("Orders cross at " + instrumentDescriptor.toPrice(bestBid) + " and "
+                        + instrumentDescriptor.toPrice(bestOffer) + " with matching enabled");
+            }
+        }
+        if (maxLevelSpan < Long.MAX_VALUE && count > 0) {
+            int firstOffer = sortKeys[count - 1] >>> 62 == 0 ? count : bulkLoadFirstOffer(sortKeys);
+            // bids are sorted from the highest price, offers from the lowest
+            if (firstOffer > 0) {
+                validateBulkLoadSpan(Side.BID, prices[(int) (sortKeys[firstOffer - 1] & BULK_LOAD_INDEX_MASK)],
+                        prices[(int) (sortKeys[0] & BULK_LOAD_INDEX_MASK)]);
+            }
+            if (firstOffer < count) {
+                validateBulkLoadSpan(Side.OFFER, prices[(int) (sortKeys[firstOffer] & BULK_LOAD_INDEX_MASK)],
+                        prices[(int) (sortKeys[count - 1] & BULK_LOAD_INDEX_MASK)]);
+            }
+        }
+        long orderTime = System.currentTimeMillis();
+        synchronized (this) {
+            if (orderLookup.size() > 0) {
+                throw new IllegalStateException("Bulk load needs an empty book, it holds " + orderLookup.size() + " orders");
+            }
+            orderStore.ensureCapacity(count);
+            orderLookup.ensureCapacity(count);
+            OrderLevelBucket orderLevelBucket = null;
+            for (long sortKey : sortKeys) {
+                int i = (int) (sortKey & BULK_LOAD_INDEX_MASK);
+                Side side = sortKey >>> 62 == 0 ? Side.BID : Side.OFFER;
+                if (orderLevelBucket == null || orderLevelBucket.getSide() != side || orderLevelBucket.getPrice() != prices[i]) {
+                    orderLevelBucket = newLevelBucket(prices[i], side);
+                    getOrderLevelMap(side).put(orderLevelBucket);
+                    getDepthIndex(side).levelAdded(orderLevelBucket);
+                }
+                int handle = orderStore.allocate(orderIds[i], prices[i], side, sizes[i], orderTime);
+                orderLevelBucket.addOrder(handle);
+                orderLookup.put(orderIds[i], handle);
+                orderStore.setOwnerId(handle, ownerIds[i]);
+                ownerIndex.add(handle);
+                if (validationStage != null) {
+                    validationStage.orderAccepted(orderIds[i]);
+                }
+            }
+            if (validationStage != null) {
+                validationStage.flush();
+            }
+            bookVersion++;
+            if (snapshotDepth > 0) {
+                latestSnapshot = takeSnapshot(lastAppliedSequence);
+            }
+        }
+    }
+
+    /**
+     * Load the orders of a stream, see {@link #bulkLoad(Order[])}.
+     */
+    public void bulkLoad(Stream<Order> orders) {
+        if (orders == null) {
+            throw new IllegalArgumentException("Orders cannot be null");
+        }
+        bulkLoad(orders.toArray(Order[]::new));
+    }
+
+    /**
+     * Sort key of an order: the side in bit 62, the price key in bits 30 to 61, inverted for bids so the best price
+     * of both sides sorts first, then the position in the loaded array.
+     */
+    private static long bulkLoadSortKey(Side side, long priceKey, int index) {
+        if (side == Side.BID) {
+            return (0xFFFFFFFFL - priceKey) << 30 | index;
+        }
+        return 1L << 62 | priceKey << 30 | index;
+    }
+
+    /**
+     * Map the prices in ticks to 32 bit keys in the same order: the offset from the lowest price when the prices
+     * span less than 2^32 ticks, otherwise the rank of the price among the distinct loaded prices.
+     */
+    private static long[] bulkLoadPriceKeys(long[] prices) {
+        if (prices.length == 0) {
+            return prices;
+        }
+        long lowestPrice = LongStream.of(prices).parallel().min().getAsLong();
+        long highestPrice = LongStream.of(prices).parallel().max().getAsLong();
+        if (highestPrice - lowestPrice <= 0xFFFFFFFFL) {
+            return LongStream.of(prices).parallel().map(price -> price - lowestPrice).toArray();
+        }
+        long[] levelPrices = prices.clone();
+        Arrays.parallelSort(levelPrices);
+        int levelCount = 1;
+        for (int i = 1; i < levelPrices.length; i++) {
+            if (levelPrices[i] != levelPrices[levelCount - 1]) {
+                levelPrices[levelCount++] = levelPrices[i];
+            }
+        }
+        int distinctCount = levelCount;
+        return LongStream.of(prices).parallel().map(price -> Arrays.binarySearch(levelPrices, 0, distinctCount, price)).toArray();
+    }
+
+    private void validateBulkLoadSpan(Side side, long lowestPrice, long highestPrice) {
+        if (highestPrice - lowestPrice >= maxLevelSpan) {
+            throw new IllegalArgumentException(side + " prices from " + instrumentDescriptor.toPrice(lowestPrice) + " to "
+                    + instrumentDescriptor.toPrice(highestPrice) + " span more than the " + maxLevelSpan + " prices of the price ladder");
+        }
+    }
+
+    private static int bulkLoadFirstOffer(long[] sortKeys) {
+        int low = 0;
+        int high = sortKeys.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortKeys[middle] >>> 62 == 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    static void validateOrderType(OrderType orderType, boolean matchingEnabled) {
+        if (orderType == null) {
+            throw new IllegalArgumentException("OrderType cannot be null");
+        }
+        if (orderType != OrderType.LIMIT && !matchingEnabled) {
+            throw new IllegalArgumentException("Order type " + orderType + " needs matching to be enabled");
+        }
     }
 
     public void removeOrder(long orderId) {
-        orderActionQueue.add(new RemoveAction(orderId));
+        removeOrder(orderId, null);
+    }
+
+    /**
+     * Remove an order, and be notified once the removal is applied or rejected.
+     * @param callback called on the processing thread with the outcome, null for none
+     */
+    public void removeOrder(long orderId, ActionCallback callback) {
+        checkNotHosted();
+        long sequence = orderActionRingBuffer.next();
+        orderActionRingBuffer.get(sequence).setRemoveAction(orderId);
+        orderActionRingBuffer.get(sequence).setCallback(callback);
+        orderActionRingBuffer.publish(sequence);
+    }
+
+    /**
+     * Remove an order without waiting, see {@link #addOrderAsync(Order, OrderType)}.
+     * @return a future completed with the sequence of the removal or the reason it was rejected
+     */
+    public CompletableFuture<ActionResult> removeOrderAsync(long orderId) {
+        ActionFuture actionFuture = new ActionFuture();
+        removeOrder(orderId, actionFuture);
+        return actionFuture;
     }
 
     public void modifyOrder(long orderId, long newSize) {
-        orderActionQueue.add(new ModifyAction(orderId, newSize));
+        modifyOrder(orderId, newSize, null);
+    }
+
+    /**
+     * Modify the size of an order, and be notified once the modify is applied or rejected.
+     * @param callback called on the processing thread with the outcome, null for none
+     */
+    public void modifyOrder(long orderId, long newSize, ActionCallback callback) {
+        checkNotHosted();
+        long sequence = orderActionRingBuffer.next();
+        orderActionRingBuffer.get(sequence).setModifyAction(orderId, newSize);
+        orderActionRingBuffer.get(sequence).setCallback(callback);
+        orderActionRingBuffer.publish(sequence);
+    }
+
+    /**
+     * Modify the size of an order without waiting, see {@link #addOrderAsync(Order, OrderType)}.
+     * @return a future completed with the sequence of the modify or the reason it was rejected
+     */
+    public CompletableFuture<ActionResult> modifyOrderAsync(long orderId, long newSize) {
+        ActionFuture actionFuture = new ActionFuture();
+        modifyOrder(orderId, newSize, actionFuture);
+        return actionFuture;
+    }
+
+    /**
+     * A future that is its own callback, so an async action costs one allocation before it completes.
+     */
+    private static final class ActionFuture extends CompletableFuture<ActionResult> implements ActionCallback {
+        @Override
+        public void onApplied(long sequence, long filledSize) {
+            complete(new ActionResult(sequence, filledSize, null));
+        }
+
+        @Override
+        public void onRejected(long sequence, RejectReason reason) {
+            complete(new ActionResult(sequence, 0, reason));
+        }
+    }
+
+    /**
+     * Remove every resting order of an owner, on both sides, such as when its session disconnects.
+     */
+    public void massCancel(long ownerId) {
+        massCancel(ownerId, null, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Remove every resting order of an owner on one side.
+     * @param side the side to cancel, null for both sides
+     */
+    public void massCancel(long ownerId, Side side) {
+        massCancel(ownerId, side, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Remove the resting orders of an owner on one side within a range of prices.
+     * The orders are found through the owner index, without scanning the book, and removed in a single action:
+     * each order is reported as a REMOVE, and each level it touched is updated or deleted once at the end.
+     * @param side the side to cancel, null for both sides
+     * @param minPrice lowest price to cancel, inclusive
+     * @param maxPrice highest price to cancel, inclusive
+     */
+    public void massCancel(long ownerId, Side side, double minPrice, double maxPrice) {
+        massCancel(ownerId, side, instrumentDescriptor.toTicks(minPrice), instrumentDescriptor.toTicks(maxPrice));
+    }
+
+    private void massCancel(long ownerId, Side side, long minPrice, long maxPrice) {
+        checkNotHosted();
+        validateMassCancel(ownerId, minPrice, maxPrice, instrumentDescriptor);
+        long sequence = orderActionRingBuffer.next();
+        orderActionRingBuffer.get(sequence).setMassCancelAction(ownerId, side, minPrice, maxPrice);
+        orderActionRingBuffer.publish(sequence);
+    }
+
+    /**
+     * The actions of a hosted book go through the ring buffer of its shard, its own ring buffer has no consumer.
+     */
+    private void checkNotHosted() {
+        if (hosted) {
+            throw new IllegalStateException("The book is hosted by an OrderBookManager, submit its actions through the manager");
+        }
+    }
+
+    static void validateMassCancel(long ownerId, long minPrice, long maxPrice, InstrumentDescriptor instrumentDescriptor) {
+        if (ownerId == 0) {
+            throw new IllegalArgumentException("Owner id 0 is reserved for orders without owner");
+        }
+        if (minPrice > maxPrice) {
+            throw new IllegalArgumentException("Invalid price range " + instrumentDescriptor.toPrice(minPrice) + " to "
+                    + instrumentDescriptor.toPrice(maxPrice));
+        }
     }
 
     private void processOrderAction(OrderAction orderAction) {
@@ -46,63 +670,596 @@ public class OrderBook {
             case AddAction addAction -> processAddAction(addAction);
             case RemoveAction removeAction -> processRemoveAction(removeAction);
             case ModifyAction modifyAction -> processModifyAction(modifyAction);
+            case ExpireAction expireAction -> processExpireAction(expireAction);
+            case MassCancelAction massCancelAction -> processMassCancelAction(massCancelAction);
             case null, default -> LOGGER.warning("Unknown OrderAction type");
         }
     }
 
+    /**
+     * Process every published action, then return.
+     * Only one thread may process actions at a time.
+     */
     public void drainAndProcessOrderActions() {
-        while (!orderActionQueue.isEmpty()) {
-            synchronized (this) {
-                OrderAction orderAction = orderActionQueue.poll();
-                processOrderAction(orderAction);
+        checkNotHosted();
+        publishExpiry();
+        long first = orderActionRingBuffer.getReleasedSequence() + 1;
+        long next = first;
+        long available;
+        while ((available = orderActionRingBuffer.getAvailableSequence(next)) >= next) {
+            if (validationStage != null) {
+                validationStage.awaitValidated(available);
             }
+            processOrderActions(next, available);
+            next = available + 1;
+        }
+        if (next == first) {
+            forceJournalIfDue();
         }
     }
 
+    /**
+     * Process published actions until the thread is interrupted.
+     * Only one thread may process actions at a time.
+     */
     public void continuousProcessOrderActions() throws InterruptedException {
+        checkNotHosted();
         while (true) {
-            synchronized (this) {
-                OrderAction orderAction = orderActionQueue.take();
-                processOrderAction(orderAction);
+            publishExpiry();
+            long next = orderActionRingBuffer.getReleasedSequence() + 1;
+            long timeoutNanos = idleTimeoutNanos();
+            long available;
+            if (validationStage != null) {
+                available = timeoutNanos < 0 ? validationStage.waitFor(next) : validationStage.waitFor(next, timeoutNanos);
+            } else {
+                available = timeoutNanos < 0 ? orderActionRingBuffer.waitFor(next) : orderActionRingBuffer.waitFor(next, timeoutNanos);
+            }
+            if (available >= next) {
+                processOrderActions(next, available);
+            } else {
+                forceJournalIfDue();
+            }
+        }
+    }
+
+    /**
+     * With good-till-time orders resting, the processing loop wakes up every tick to expire them even when no action
+     * comes in, and with journal records left unforced by FsyncPolicy.INTERVAL, within the interval to force them.
+     * @return how long the loop may wait for an action, -1 to wait without timeout
+     */
+    private long idleTimeoutNanos() {
+        long timeoutNanos = expiryTimingWheel.size() == 0 ? -1 : expiryTickNanos;
+        if (journalWriter != null && journalWriter.isForcePending()) {
+            long fsyncIntervalNanos = Math.max(1, journalWriter.getFsyncIntervalNanos());
+            timeoutNanos = timeoutNanos < 0 ? fsyncIntervalNanos : Math.min(timeoutNanos, fsyncIntervalNanos);
+        }
+        return timeoutNanos;
+    }
+
+    /**
+     * Force the journal records of past batches once the FsyncPolicy.INTERVAL has passed, called by the processing
+     * thread when no batch ends, so the last records of a burst do not stay unforced.
+     */
+    synchronized void forceJournalIfDue() {
+        if (journalWriter != null) {
+            journalWriter.forceIfDue();
+        }
+    }
+
+    /**
+     * Publish an expiry action once orders may be due in the timing wheel, one at a time.
+     * The action is claimed without waiting, as only this thread frees slots: if the ring buffer is full,
+     * the expiry is published by a later call.
+     * <p>
+     * The wheel is only changed by the processing thread, so it is first checked without the lock, which is then
+     * only taken when an expiry is due rather than on every wakeup of the loop.
+     */
+    private void publishExpiry() {
+        if (!isExpiryDue(System.currentTimeMillis())) {
+            return;
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (!isExpiryDue(now)) {
+                return;
+            }
+            long sequence = orderActionRingBuffer.tryNext();
+            if (sequence < 0) {
+                return;
+            }
+            orderActionRingBuffer.get(sequence).setExpireAction(now);
+            orderActionRingBuffer.publish(sequence);
+            expiryPublished = true;
+        }
+    }
+
+    private boolean isExpiryDue(long now) {
+        return !expiryPublished && expiryTimingWheel.size() != 0 && now >= expiryTimingWheel.getNextAdvanceTime();
+    }
+
+    /**
+     * Process a contiguous run of published actions in batches of at most maxBatchSize actions.
+     */
+    private void processOrderActions(long fromSequence, long toSequence) {
+        long sequence = fromSequence;
+        while (sequence <= toSequence) {
+            sequence = processBatch(sequence, Math.min(toSequence, sequence + maxBatchSize - 1)) + 1;
+        }
+    }
+
+    /**
+     * Apply a batch of actions under a single lock acquisition, so the synchronized query methods only ever
+     * observe the book between batches. The batch is closed early once the latency budget is spent.
+     * The slots are released back to the producers, the book version is bumped and a snapshot is published
+     * once per batch.
+     * @return the last processed sequence
+     */
+    private long processBatch(long fromSequence, long toSequence) {
+        long deadline = System.nanoTime() + batchLatencyBudgetNanos;
+        long sequence = fromSequence;
+        long allocatedBytes = 0;
+        if (metrics != null) {
+            metrics.recordQueueDepth(orderActionRingBuffer.getClaimedSequence() - fromSequence + 1);
+            allocatedBytes = OrderBookMetrics.currentThreadAllocatedBytes();
+        }
+        synchronized (this) {
+            try {
+                while (true) {
+                    applyOrderAction(sequence, orderActionRingBuffer.get(sequence));
+                    if (sequence == toSequence || (batchLatencyBudgetNanos > 0 && System.nanoTime() - deadline >= 0)) {
+                        break;
+                    }
+                    sequence++;
+                }
+            } finally {
+                orderActionRingBuffer.release(sequence);
+                completeBatch(sequence);
+                if (metrics != null) {
+                    metrics.recordAllocatedBytes(OrderBookMetrics.currentThreadAllocatedBytes() - allocatedBytes);
+                }
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Apply an action, or report it as rejected if it does not pass validation. A rejected action is journaled as
+     * a REJECT marker only, which keeps its sequence from being reused after recovery.
+     */
+    private void applyOrderAction(long sequence, OrderActionSlot slot) {
+        OrderAction orderAction = slot.getOrderAction();
+        currentSequence = sequence;
+        long startNanos = metrics == null ? 0 : System.nanoTime();
+        currentRejectReason = null;
+        currentFilledSize = 0;
+        RejectReason rejectReason = validationStage != null ? slot.getRejectReason() : OrderActionValidator.validate(orderAction);
+        if (rejectReason != null) {
+            if (journalWriter != null) {
+                journalWriter.appendReject(sequence);
+            }
+            reject(rejectReason, orderAction);
+        } else {
+            if (journalWriter != null) {
+                journalWriter.append(sequence, orderAction);
+            }
+            processOrderAction(orderAction);
+        }
+        ActionCallback callback = slot.getCallback();
+        if (callback != null) {
+            // do not keep the caller's future reachable until the slot is reused
+            slot.setCallback(null);
+            addPendingCallback(callback, sequence, currentFilledSize, currentRejectReason);
+        }
+        if (metrics != null) {
+            metrics.recordAction(orderAction.getType(), startNanos - slot.getPublishNanos(), System.nanoTime() - startNanos);
+        }
+    }
+
+    private void addPendingCallback(ActionCallback callback, long sequence, long filledSize, RejectReason rejectReason) {
+        if (pendingCallbackCount == pendingCallbacks.length) {
+            int capacity = 2 * pendingCallbackCount;
+            pendingCallbacks = Arrays.copyOf(pendingCallbacks, capacity);
+            pendingSequences = Arrays.copyOf(pendingSequences, capacity);
+            pendingRejectReasons = Arrays.copyOf(pendingRejectReasons, capacity);
+            pendingFilledSizes = Arrays.copyOf(pendingFilledSizes, capacity);
+        }
+        pendingCallbacks[pendingCallbackCount] = callback;
+        pendingSequences[pendingCallbackCount] = sequence;
+        pendingRejectReasons[pendingCallbackCount] = rejectReason;
+        pendingFilledSizes[pendingCallbackCount] = filledSize;
+        pendingCallbackCount++;
+    }
+
+    /**
+     * Close the batch: force the journal according to the FsyncPolicy, publish the snapshot, and only then report
+     * the outcome of its actions, so a caller never sees an action applied before its journal record is forced.
+     */
+    private void completeBatch(long sequence) {
+        if (journalWriter != null) {
+            journalWriter.endBatch();
+        }
+        if (validationStage != null) {
+            validationStage.flush();
+        }
+        lastAppliedSequence = sequence;
+        bookVersion++;
+        if (snapshotDepth > 0) {
+            latestSnapshot = takeSnapshot(sequence);
+        }
+        marketDataPublisher.batchEnd(sequence);
+        completePendingCallbacks();
+    }
+
+    private void completePendingCallbacks() {
+        for (int i = 0; i < pendingCallbackCount; i++) {
+            ActionCallback callback = pendingCallbacks[i];
+            RejectReason rejectReason = pendingRejectReasons[i];
+            pendingCallbacks[i] = null;
+            pendingRejectReasons[i] = null;
+            if (rejectReason == null) {
+                callback.onApplied(pendingSequences[i], pendingFilledSizes[i]);
+            } else {
+                callback.onRejected(pendingSequences[i], rejectReason);
+            }
+        }
+        pendingCallbackCount = 0;
+    }
+
+    /**
+     * Apply the actions routed to this book by a shard of an {@link OrderBookManager} in one of its batches,
+     * numbered after the last action of this book, then complete the batch. Like {@link #processBatch(long, long)}
+     * this takes the lock once, so the queries only ever observe the book between batches.
+     * @param slots the slots of the shard batch, grouped by book
+     * @param from index of the first slot of this book
+     * @param count number of slots of this book
+     */
+    synchronized void applyRoutedBatch(OrderActionSlot[] slots, int from, int count) {
+        long allocatedBytes = metrics == null ? 0 : OrderBookMetrics.currentThreadAllocatedBytes();
+        try {
+            for (int i = from; i < from + count; i++) {
+                applyOrderAction(currentSequence + 1, slots[i]);
+            }
+        } finally {
+            completeBatch(currentSequence);
+            if (metrics != null) {
+                metrics.recordAllocatedBytes(OrderBookMetrics.currentThreadAllocatedBytes() - allocatedBytes);
             }
         }
     }
 
-    private ConcurrentNavigableMap<Integer, OrderLevelBucket> getOrderLevelMap(Side side) {
+    /**
+     * Copy the top levels of both sides, must be called by the processing thread.
+     */
+    private OrderBookSnapshot takeSnapshot(long sequence) {
+        int bidDepth = Math.min(snapshotDepth, bidLevelMap.size());
+        double[] bidPrices = new double[bidDepth];
+        long[] bidSizes = new long[bidDepth];
+        int[] bidOrderCounts = new int[bidDepth];
+        copyTopLevels(Side.BID, bidPrices, bidSizes, bidOrderCounts);
+        int offerDepth = Math.min(snapshotDepth, offerLevelMap.size());
+        double[] offerPrices = new double[offerDepth];
+        long[] offerSizes = new long[offerDepth];
+        int[] offerOrderCounts = new int[offerDepth];
+        copyTopLevels(Side.OFFER, offerPrices, offerSizes, offerOrderCounts);
+        return new OrderBookSnapshot(sequence, bookVersion, bidPrices, bidSizes, bidOrderCounts, offerPrices, offerSizes, offerOrderCounts);
+    }
+
+    /**
+     * Copy the best levels of a side into the arrays, from the depth index when it holds them all, otherwise by
+     * walking the level map once, as the depth index would start a new walk for every level beyond its depth.
+     */
+    private void copyTopLevels(Side side, double[] prices, long[] sizes, int[] orderCounts) {
+        LevelDepthIndex depthIndex = getDepthIndex(side);
+        if (prices.length <= depthIndex.getDepth()) {
+            for (int level = 0; level < prices.length; level++) {
+                copyLevel(depthIndex.getLevel(level), level, prices, sizes, orderCounts);
+            }
+            return;
+        }
+        int level = 0;
+        for (OrderLevelBucket orderLevelBucket : getOrderLevelMap(side)) {
+            if (level == prices.length) {
+                break;
+            }
+            copyLevel(orderLevelBucket, level++, prices, sizes, orderCounts);
+        }
+    }
+
+    private static void copyLevel(OrderLevelBucket orderLevelBucket, int level, double[] prices, long[] sizes, int[] orderCounts) {
+        prices[level] = orderLevelBucket.getOriginalPrice();
+        sizes[level] = orderLevelBucket.getTotalSize();
+        orderCounts[level] = orderLevelBucket.getOrderCount();
+    }
+
+    private OrderLevelMap getOrderLevelMap(Side side) {
         return side == Side.BID ? bidLevelMap : offerLevelMap;
     }
 
+    private LevelDepthIndex getDepthIndex(Side side) {
+        return side == Side.BID ? bidDepthIndex : offerDepthIndex;
+    }
+
+    private OrderLevelBucket newLevelBucket(long price, Side side) {
+        return new OrderLevelBucket(price, side, orderStore, side == Side.BID ? bidCumulativeDepthIndex : offerCumulativeDepthIndex,
+                instrumentDescriptor);
+    }
+
+    private void reject(RejectReason rejectReason, OrderAction orderAction) {
+        currentRejectReason = rejectReason;
+        marketDataPublisher.reject(rejectReason, currentSequence, orderAction.getType(), OrderActionValidator.getOrderId(orderAction));
+    }
+
+    /**
+     * Tell the validation stage that an order accepted by it is no longer in the book, or never rested in it.
+     */
+    private void releaseOrderId(long orderId) {
+        if (validationStage != null) {
+            validationStage.orderReleased(orderId);
+        }
+    }
+
     private void processAddAction(AddAction addAction) {
-        OrderEntry orderEntry = addAction.getOrderEntry();
-        if(orderLookup.containsKey(orderEntry.getOrder().getId())) {
-            throw new IllegalArgumentException("Order id " + orderEntry.getOrder().getId() + " already exists");
+        long orderId = addAction.getOrderId();
+        if(orderLookup.containsKey(orderId)) {
+            reject(RejectReason.DUPLICATE_ORDER_ID, addAction);
+            releaseOrderId(orderId);
+            return;
+        }
+        long price = addAction.getPrice();
+        Side side = addAction.getSide();
+        // checked before matching, so an order is either applied entirely or not at all, unless it fills entirely
+        // and never needs a level
+        if (addAction.getOrderType() == OrderType.LIMIT && !canHoldLevel(side, price) && !(matchingEnabled && canFill(addAction))) {
+            reject(RejectReason.PRICE_OUT_OF_RANGE, addAction);
+            releaseOrderId(orderId);
+            return;
+        }
+        long size = addAction.getSize();
+        if (matchingEnabled) {
+            size = matchOrder(addAction);
+            if (size == 0 || addAction.getOrderType() != OrderType.LIMIT) {
+                releaseOrderId(orderId);
+                return;
+            }
+        }
+        OrderLevelMap orderLevelMap = getOrderLevelMap(side);
+        OrderLevelBucket orderLevelBucket = orderLevelMap.get(price);
+        boolean newLevel = orderLevelBucket == null;
+        if (newLevel) {
+            orderLevelBucket = newLevelBucket(price, side);
+            orderLevelMap.put(orderLevelBucket);
+            getDepthIndex(side).levelAdded(orderLevelBucket);
+        }
+        int handle = orderStore.allocate(orderId, price, side, size, addAction.getOrderTime());
+        orderLevelBucket.addOrder(handle);
+        orderLookup.put(orderId, handle);
+        if (addAction.getOwnerId() != 0) {
+            orderStore.setOwnerId(handle, addAction.getOwnerId());
+            ownerIndex.add(handle);
+        }
+        if (addAction.getExpireTime() != 0) {
+            orderStore.setExpireTime(handle, addAction.getExpireTime());
+            expiryTimingWheel.schedule(handle);
+        }
+        marketDataPublisher.orderEvent(OrderEventType.ADD, currentSequence, orderId, side, orderLevelBucket.getOriginalPrice(), size);
+        if (newLevel) {
+            marketDataPublisher.levelCreated(currentSequence, orderLevelBucket);
+        } else {
+            marketDataPublisher.levelUpdated(currentSequence, orderLevelBucket);
+        }
+    }
+
+    /**
+     * @return whether a level at the given price exists or can be created without exceeding the price ladder or the
+     * cumulative depth index, which would otherwise throw in the middle of the action
+     */
+    private boolean canHoldLevel(Side side, long price) {
+        OrderLevelMap orderLevelMap = getOrderLevelMap(side);
+        if (maxLevelSpan == Long.MAX_VALUE || orderLevelMap.get(price) != null) {
+            return true;
+        }
+        CumulativeDepthIndex cumulativeDepthIndex = side == Side.BID ? bidCumulativeDepthIndex : offerCumulativeDepthIndex;
+        return orderLevelMap.canHold(price) && (cumulativeDepthIndex == null || cumulativeDepthIndex.canHold(price));
+    }
+
+    private static boolean crosses(AddAction addAction, OrderLevelBucket oppositeLevelBucket) {
+        if (addAction.getOrderType() == OrderType.MARKET) {
+            return true;
+        }
+        return addAction.getSide() == Side.BID
+                ? oppositeLevelBucket.getPrice() <= addAction.getPrice()
+                : oppositeLevelBucket.getPrice() >= addAction.getPrice();
+    }
+
+    /**
+     * Match an incoming order against the opposite side in price then time priority.
+     * When the best opposite level does not cross, which is the common case, this costs one comparison.
+     * @return the size left after matching
+     */
+    private long matchOrder(AddAction addAction) {
+        LevelDepthIndex oppositeDepthIndex = getDepthIndex(addAction.getSide().opposite());
+        OrderLevelBucket bestLevelBucket = oppositeDepthIndex.getLevel(0);
+        if (bestLevelBucket == null || !crosses(addAction, bestLevelBucket)) {
+            return addAction.getSize();
+        }
+        if (addAction.getOrderType() == OrderType.FOK && !canFill(addAction)) {
+            return addAction.getSize();
+        }
+        OrderLevelMap oppositeLevelMap = getOrderLevelMap(addAction.getSide().opposite());
+        long remainingSize = addAction.getSize();
+        while (remainingSize > 0 && bestLevelBucket != null && crosses(addAction, bestLevelBucket)) {
+            remainingSize = matchLevel(addAction, bestLevelBucket, remainingSize);
+            if (bestLevelBucket.isEmpty()) {
+                oppositeLevelMap.remove(bestLevelBucket.getPrice());
+                oppositeDepthIndex.levelRemoved(bestLevelBucket);
+                marketDataPublisher.levelDeleted(currentSequence, bestLevelBucket);
+                bestLevelBucket = oppositeDepthIndex.getLevel(0);
+            } else {
+                marketDataPublisher.levelUpdated(currentSequence, bestLevelBucket);
+            }
+        }
+        return remainingSize;
+    }
+
+    /**
+     * Fill the resting orders of a level in time priority, removing the ones that are completely filled.
+     * @return the size left after matching the level
+     */
+    private long matchLevel(AddAction addAction, OrderLevelBucket orderLevelBucket, long remainingSize) {
+        int handle = orderLevelBucket.getFirstOrder();
+        while (remainingSize > 0 && handle != OrderStore.NULL_HANDLE) {
+            int next = orderStore.getNext(handle);
+            long restingOrderId = orderStore.getOrderId(handle);
+            long restingSize = orderStore.getSize(handle);
+            long fillSize = Math.min(remainingSize, restingSize);
+            remainingSize -= fillSize;
+            currentFilledSize += fillSize;
+            marketDataPublisher.trade(currentSequence, addAction.getOrderId(), restingOrderId, addAction.getSide(), orderLevelBucket.getOriginalPrice(), fillSize);
+            if (fillSize == restingSize) {
+                orderLevelBucket.removeOrder(handle);
+                orderLookup.remove(restingOrderId);
+                freeRestingOrder(handle);
+                marketDataPublisher.orderEvent(OrderEventType.REMOVE, currentSequence, restingOrderId, orderLevelBucket.getSide(), orderLevelBucket.getOriginalPrice(), 0);
+            } else {
+                orderLevelBucket.updateOrderSize(handle, restingSize - fillSize);
+                marketDataPublisher.orderEvent(OrderEventType.MODIFY, currentSequence, restingOrderId, orderLevelBucket.getSide(), orderLevelBucket.getOriginalPrice(), restingSize - fillSize);
+            }
+            handle = next;
+        }
+        return remainingSize;
+    }
+
+    /**
+     * @return whether the crossing levels of the opposite side hold enough size to fill the whole order
+     */
+    private boolean canFill(AddAction addAction) {
+        long availableSize = 0;
+        for (OrderLevelBucket orderLevelBucket : getOrderLevelMap(addAction.getSide().opposite())) {
+            if (!crosses(addAction, orderLevelBucket)) {
+                break;
+            }
+            availableSize += orderLevelBucket.getTotalSize();
+            if (availableSize >= addAction.getSize()) {
+                return true;
+            }
         }
-        orderLookup.put(orderEntry.getOrder().getId(), orderEntry);
-        ConcurrentNavigableMap<Integer, OrderLevelBucket> orderLevelMap = getOrderLevelMap(orderEntry.getSide());
-        OrderLevelBucket orderLevelBucket = orderLevelMap.computeIfAbsent(orderEntry.getPrice(), p -> new OrderLevelBucket(p, orderEntry.getSide()));
-        orderLevelBucket.addOrderEntry(orderEntry);
+        return false;
     }
 
     private void processRemoveAction(RemoveAction removeAction) {
-        long orderId = removeAction.getOrderId();
-        OrderEntry orderEntry = orderLookup.get(orderId);
-        if (orderEntry == null) {
+        int handle = orderLookup.remove(removeAction.getOrderId());
+        if (handle == LongIntHashMap.MISSING) {
+            reject(RejectReason.UNKNOWN_ORDER_ID, removeAction);
             return;
         }
-        ConcurrentNavigableMap<Integer, OrderLevelBucket> orderLevelMap = getOrderLevelMap(orderEntry.getSide());
-        OrderLevelBucket orderLevelBucket = orderLevelMap.get(orderEntry.getPrice());
-        orderLevelBucket.removeOrderEntry(orderEntry.getOrder().getId());
+        removeRestingOrder(handle);
+    }
+
+    private void processExpireAction(ExpireAction expireAction) {
+        expiryPublished = false;
+        expiryTimingWheel.advance(expireAction.getTime(), expiryHandler);
+    }
+
+    /**
+     * Remove an order fired by the timing wheel, reported as a REMOVE.
+     */
+    private void expireOrder(int handle) {
+        orderLookup.remove(orderStore.getOrderId(handle));
+        removeRestingOrder(handle);
+    }
+
+    /**
+     * Unlink an order that is no longer in the order lookup from its level, and free its record.
+     */
+    private void removeRestingOrder(int handle) {
+        long orderId = orderStore.getOrderId(handle);
+        Side side = orderStore.getSide(handle);
+        long price = orderStore.getPrice(handle);
+        OrderLevelMap orderLevelMap = getOrderLevelMap(side);
+        OrderLevelBucket orderLevelBucket = orderLevelMap.get(price);
+        orderLevelBucket.removeOrder(handle);
+        marketDataPublisher.orderEvent(OrderEventType.REMOVE, currentSequence, orderId, side, orderLevelBucket.getOriginalPrice(), 0);
         if (orderLevelBucket.isEmpty()) {
-            orderLevelMap.remove(orderEntry.getPrice());
+            orderLevelMap.remove(price);
+            getDepthIndex(side).levelRemoved(orderLevelBucket);
+            marketDataPublisher.levelDeleted(currentSequence, orderLevelBucket);
+        } else {
+            marketDataPublisher.levelUpdated(currentSequence, orderLevelBucket);
         }
-        orderLookup.remove(orderEntry.getOrder().getId());
+        freeRestingOrder(handle);
+    }
+
+    /**
+     * Unlink an order that has left its level from the timing wheel and the owner index, and free its record.
+     */
+    private void freeRestingOrder(int handle) {
+        releaseOrderId(orderStore.getOrderId(handle));
+        expiryTimingWheel.cancel(handle);
+        ownerIndex.remove(handle);
+        orderStore.free(handle);
+    }
+
+    /**
+     * Walk the orders of the owner and remove the ones matching the side and price range from their levels,
+     * then update or delete each level touched once, rather than after every order.
+     */
+    private void processMassCancelAction(MassCancelAction massCancelAction) {
+        Side cancelSide = massCancelAction.getSide();
+        OrderLevelBucket orderLevelBucket = null;
+        int handle = ownerIndex.getFirstOrder(massCancelAction.getOwnerId());
+        while (handle != OrderStore.NULL_HANDLE) {
+            int next = orderStore.getOwnerNext(handle);
+            Side side = orderStore.getSide(handle);
+            long price = orderStore.getPrice(handle);
+            if ((cancelSide == null || side == cancelSide)
+                    && price >= massCancelAction.getMinPrice() && price <= massCancelAction.getMaxPrice()) {
+                // the orders of an owner tend to sit at a few prices, so the level of the previous order is tried first
+                if (orderLevelBucket == null || orderLevelBucket.getSide() != side || orderLevelBucket.getPrice() != price) {
+                    orderLevelBucket = getOrderLevelMap(side).get(price);
+                }
+                long orderId = orderStore.getOrderId(handle);
+                orderLevelBucket.removeOrder(handle);
+                orderLookup.remove(orderId);
+                marketDataPublisher.orderEvent(OrderEventType.REMOVE, currentSequence, orderId, side, orderLevelBucket.getOriginalPrice(), 0);
+                if (orderLevelBucket.markMassCancelled()) {
+                    massCancelledLevels.add(orderLevelBucket);
+                }
+                freeRestingOrder(handle);
+            }
+            handle = next;
+        }
+        for (OrderLevelBucket cancelledLevelBucket : massCancelledLevels) {
+            cancelledLevelBucket.clearMassCancelled();
+            if (cancelledLevelBucket.isEmpty()) {
+                getOrderLevelMap(cancelledLevelBucket.getSide()).remove(cancelledLevelBucket.getPrice());
+                getDepthIndex(cancelledLevelBucket.getSide()).levelRemoved(cancelledLevelBucket);
+                marketDataPublisher.levelDeleted(currentSequence, cancelledLevelBucket);
+            } else {
+                marketDataPublisher.levelUpdated(currentSequence, cancelledLevelBucket);
+            }
+        }
+        massCancelledLevels.clear();
     }
 
     private void processModifyAction(ModifyAction modifyAction) {
-        OrderEntry orderEntry = orderLookup.get(modifyAction.getOrderId());
-        Order oldOrder = orderEntry.getOrder();
-        Order newOrder = new Order(oldOrder.getId(), oldOrder.getPrice(), oldOrder.getSide(), modifyAction.getNewSize());
-        orderEntry.setOrder(newOrder);
+        int handle = orderLookup.get(modifyAction.getOrderId());
+        if (handle == LongIntHashMap.MISSING) {
+            reject(RejectReason.UNKNOWN_ORDER_ID, modifyAction);
+            return;
+        }
+        Side side = orderStore.getSide(handle);
+        OrderLevelBucket orderLevelBucket = getOrderLevelMap(side).get(orderStore.getPrice(handle));
+        orderLevelBucket.updateOrderSize(handle, modifyAction.getNewSize());
+        marketDataPublisher.orderEvent(OrderEventType.MODIFY, currentSequence, modifyAction.getOrderId(), side, orderLevelBucket.getOriginalPrice(), modifyAction.getNewSize());
+        marketDataPublisher.levelUpdated(currentSequence, orderLevelBucket);
+    }
+
+    private OrderLevelBucket getLevelBucket(Side side, int level) {
+        OrderLevelBucket orderLevelBucket = getDepthIndex(side).getLevel(level);
+        if (orderLevelBucket == null) {
+            throw new IllegalArgumentException("Invalid level " + level);
+        }
+        return orderLevelBucket;
     }
 
     /**
@@ -110,16 +1267,7 @@ public class OrderBook {
      * @return price of the level
      */
     public synchronized double getLevelPrice(Side side, int level) {
-        ConcurrentNavigableMap<Integer, OrderLevelBucket> orderLevelMap = getOrderLevelMap(side);
-        if (level < 0 || level >= orderLevelMap.size()) {
-            throw new IllegalArgumentException("Invalid level " + level);
-        }
-        Integer key = null;
-        Iterator<Integer> iterator = orderLevelMap.keySet().iterator();
-        for (int i = 0; i <= level; i++) {
-            key = iterator.next();
-        }
-        return orderLevelMap.get(key).getOriginalPrice();
+        return getLevelBucket(side, level).getOriginalPrice();
     }
 
     /**
@@ -135,17 +1283,7 @@ public class OrderBook {
      * @return total size of the level
      */
     public synchronized long getLevelTotalSize(Side side, int level) {
-        ConcurrentNavigableMap<Integer, OrderLevelBucket> orderLevelMap = getOrderLevelMap(side);
-        if (level < 0 || level >= orderLevelMap.size()) {
-            throw new IllegalArgumentException("Invalid level " + level);
-        }
-        Iterator<Integer> iterator = orderLevelMap.keySet().iterator();
-        Integer key = null;
-        for (int i = 0; i <= level; i++) {
-            key = iterator.next();
-        }
-        OrderLevelBucket orderLevelBucket = orderLevelMap.get(key);
-        return orderLevelBucket.getOrderEntries().stream().map(OrderEntry::getOrder).mapToLong(Order::getSize).sum();
+        return getLevelBucket(side, level).getTotalSize();
     }
 
     /**
@@ -157,15 +1295,116 @@ public class OrderBook {
     }
 
     /**
-     * Get all orders on a specific side of the order book, in level then time order.
-     * @return list of orders
+     * Get the number of orders at a specific level in the order book.
+     * @return order count of the level
+     */
+    public synchronized int getLevelOrderCount(Side side, int level) {
+        return getLevelBucket(side, level).getOrderCount();
+    }
+
+    /**
+     * Get the number of orders at a specific level in the order book, taking a char as the side.
+     * @return order count of the level
+     */
+    public int getLevelOrderCount(char side, int level) {
+        return getLevelOrderCount(Side.fromChar(side), level);
+    }
+
+    /**
+     * Get the number of price levels on a specific side of the order book.
+     * @return level count
      */
-    public synchronized List<Order> getAllOrdersOnSide(Side side) {
-        ConcurrentNavigableMap<Integer, OrderLevelBucket> orderLevelMap = getOrderLevelMap(side);
-        return orderLevelMap.keySet().stream()
-                .map(orderLevelMap::get)
-                .flatMap(bucket -> bucket.getOrderEntries().stream().map(OrderEntry::getOrder))
-                .collect(Collectors.toList());
+    public synchronized int getLevelCount(Side side) {
+        return getOrderLevelMap(side).size();
+    }
+
+    /**
+     * Get the total size of the levels of a side at the given price or better, in O(log C).
+     * Needs cumulative depth to be enabled in the OrderBookConfig.
+     * @return the cumulative size
+     */
+    public synchronized long cumulativeSize(Side side, double price) {
+        return getCumulativeDepthIndex(side).cumulativeSize(instrumentDescriptor.toTicks(price));
+    }
+
+    /**
+     * Get the worst price reached by sweeping the given quantity from the best price of a side, in O(log C).
+     * Needs cumulative depth to be enabled in the OrderBookConfig.
+     * @return the price of the last level swept, NaN if the side holds less than the quantity
+     */
+    public synchronized double priceForQuantity(Side side, long quantity) {
+        CumulativeDepthIndex cumulativeDepthIndex = getCumulativeDepthIndex(side);
+        if (!canSweep(cumulativeDepthIndex, quantity)) {
+            return Double.NaN;
+        }
+        return instrumentDescriptor.toPrice(cumulativeDepthIndex.priceForQuantity(quantity));
+    }
+
+    /**
+     * Get the volume weighted average price of sweeping the given quantity from the best price of a side, in O(log C).
+     * Needs cumulative depth to be enabled in the OrderBookConfig.
+     * @return the average price, NaN if the side holds less than the quantity
+     */
+    public synchronized double vwapForQuantity(Side side, long quantity) {
+        CumulativeDepthIndex cumulativeDepthIndex = getCumulativeDepthIndex(side);
+        if (!canSweep(cumulativeDepthIndex, quantity)) {
+            return Double.NaN;
+        }
+        return cumulativeDepthIndex.vwapForQuantity(quantity) / instrumentDescriptor.getPriceScale();
+    }
+
+    private CumulativeDepthIndex getCumulativeDepthIndex(Side side) {
+        CumulativeDepthIndex cumulativeDepthIndex = side == Side.BID ? bidCumulativeDepthIndex : offerCumulativeDepthIndex;
+        if (cumulativeDepthIndex == null) {
+            throw new IllegalStateException("Cumulative depth is not enabled");
+        }
+        return cumulativeDepthIndex;
+    }
+
+    private static boolean canSweep(CumulativeDepthIndex cumulativeDepthIndex, long quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive, got " + quantity);
+        }
+        return quantity <= cumulativeDepthIndex.getTotalSize();
+    }
+
+    /**
+     * Get all orders on a specific side of the order book, in level then time order. The fields of the orders are
+     * copied between two batches, then the lock is released and the Order objects of a large side are created in
+     * parallel, so the processing thread is never held up by the pool.
+     * @return fixed-size list of orders
+     */
+    public List<Order> getAllOrdersOnSide(Side side) {
+        long[] orderIds;
+        long[] prices;
+        long[] sizes;
+        long[] ownerIds;
+        synchronized (this) {
+            OrderLevelMap orderLevelMap = getOrderLevelMap(side);
+            int count = countOrders(orderLevelMap);
+            orderIds = new long[count];
+            prices = new long[count];
+            sizes = new long[count];
+            ownerIds = new long[count];
+            int index = 0;
+            for (OrderLevelBucket orderLevelBucket : orderLevelMap) {
+                for (int handle = orderLevelBucket.getFirstOrder(); handle != OrderStore.NULL_HANDLE; handle = orderStore.getNext(handle)) {
+                    orderIds[index] = orderStore.getOrderId(handle);
+                    prices[index] = orderStore.getPrice(handle);
+                    sizes[index] = orderStore.getSize(handle);
+                    ownerIds[index] = orderStore.getOwnerId(handle);
+                    index++;
+                }
+            }
+        }
+        Order[] orders = new Order[orderIds.length];
+        IntStream indexes = IntStream.range(0, orders.length);
+        if (orders.length >= PARALLEL_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        char sideChar = side.toChar();
+        indexes.forEach(i -> orders[i] = new Order(orderIds[i], instrumentDescriptor.toPrice(prices[i]), sideChar, sizes[i], ownerIds[i]));
+        return Arrays.asList(orders);
     }
 
     /**
@@ -176,6 +1415,205 @@ public class OrderBook {
         return getAllOrdersOnSide(Side.fromChar(side));
     }
 
+    /**
+     * Compute the total size, order and level counts of both sides, and the volume weighted average price of
+     * the best levels of each side. The levels are copied between two batches, then the lock is released and the
+     * offer side is computed by a pool thread while the caller computes the bid side, so the processing thread is
+     * never held up by the pool.
+     * @param vwapLevels number of best levels the average price is computed over
+     * @return the statistics
+     */
+    public BookStatistics getStatistics(int vwapLevels) {
+        if (vwapLevels <= 0) {
+            throw new IllegalArgumentException("VWAP level count must be positive, got " + vwapLevels);
+        }
+        long version;
+        SideLevels bidLevels;
+        SideLevels offerLevels;
+        synchronized (this) {
+            version = bookVersion;
+            bidLevels = new SideLevels(bidLevelMap, vwapLevels);
+            offerLevels = new SideLevels(offerLevelMap, vwapLevels);
+        }
+        CompletableFuture<BookStatistics.SideStatistics> offer = CompletableFuture.supplyAsync(offerLevels::statistics);
+        BookStatistics.SideStatistics bid = bidLevels.statistics();
+        return new BookStatistics(version, bid, offer.join());
+    }
+
+    /**
+     * Estimate the memory held by the order store, the order lookup, the level maps and their buckets.
+     * This is O(1), the structures report sizes derived from their capacity or their number of entries.
+     * @return the footprint
+     */
+    public synchronized MemoryFootprint getMemoryFootprint() {
+        int levelCount = bidLevelMap.size() + offerLevelMap.size();
+        return new MemoryFootprint(orderLookup.size(), bidLevelMap.size(), offerLevelMap.size(),
+                orderStore.estimatedHeapBytes(), orderStore.offHeapBytes(), orderLookup.estimatedBytes(),
+                bidLevelMap.estimatedBytes() + offerLevelMap.estimatedBytes(), levelCount * OrderLevelBucket.ESTIMATED_BYTES);
+    }
+
+    /**
+     * A copy of the sizes and order counts of the levels of one side, and of the prices of its best levels,
+     * taken under the lock so the statistics can be computed without holding it.
+     */
+    private static final class SideLevels {
+        private final long[] sizes;
+        private final int[] orderCounts;
+        private final double[] vwapPrices;
+
+        private SideLevels(OrderLevelMap orderLevelMap, int vwapLevels) {
+            sizes = new long[orderLevelMap.size()];
+            orderCounts = new int[sizes.length];
+            vwapPrices = new double[Math.min(vwapLevels, sizes.length)];
+            int level = 0;
+            // levels are iterated best first, so the first vwapLevels of them are the best ones
+            for (OrderLevelBucket orderLevelBucket : orderLevelMap) {
+                sizes[level] = orderLevelBucket.getTotalSize();
+                orderCounts[level] = orderLevelBucket.getOrderCount();
+                if (level < vwapPrices.length) {
+                    vwapPrices[level] = orderLevelBucket.getOriginalPrice();
+                }
+                level++;
+            }
+        }
+
+        private BookStatistics.SideStatistics statistics() {
+            long totalSize = 0;
+            int orderCount = 0;
+            double notional = 0;
+            long vwapSize = 0;
+            for (int level = 0; level < sizes.length; level++) {
+                totalSize += sizes[level];
+                orderCount += orderCounts[level];
+                if (level < vwapPrices.length) {
+                    notional += vwapPrices[level] * sizes[level];
+                    vwapSize += sizes[level];
+                }
+            }
+            return new BookStatistics.SideStatistics(totalSize, orderCount, sizes.length, vwapSize == 0 ? Double.NaN : notional / vwapSize);
+        }
+    }
+
+    /**
+     * Write a checkpoint of all resting orders into the journal directory, so that recovery only has to replay
+     * the journal after it. The orders are copied into compact arrays between two batches, which is the only time
+     * the processing thread is held up, then the file is written by a background thread.
+     * @return a future completed with the path of the checkpoint file once it is written
+     */
+    public CompletableFuture<Path> writeCheckpoint() {
+        if (journalDirectory == null) {
+            throw new IllegalStateException("Checkpoints are written into the journal directory, which is not configured");
+        }
+        Checkpoint checkpoint;
+        ExecutorService executor;
+        synchronized (this) {
+            checkpoint = copyToCheckpoint();
+            if (checkpointExecutor == null) {
+                checkpointExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "orderbook-checkpoint");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            executor = checkpointExecutor;
+        }
+        return CompletableFuture.supplyAsync(() -> checkpoint.write(journalDirectory), executor);
+    }
+
+    private Checkpoint copyToCheckpoint() {
+        int count = orderLookup.size();
+        long[] orderIds = new long[count];
+        long[] prices = new long[count];
+        long[] sizes = new long[count];
+        long[] orderTimes = new long[count];
+        long[] expireTimes = new long[count];
+        long[] ownerIds = new long[count];
+        int index = 0;
+        for (Side side : Side.values()) {
+            for (OrderLevelBucket orderLevelBucket : getOrderLevelMap(side)) {
+                for (int handle = orderLevelBucket.getFirstOrder(); handle != OrderStore.NULL_HANDLE; handle = orderStore.getNext(handle)) {
+                    orderIds[index] = orderStore.getOrderId(handle);
+                    prices[index] = orderStore.getPrice(handle);
+                    sizes[index] = orderStore.getSize(handle);
+                    orderTimes[index] = orderStore.getOrderTime(handle);
+                    expireTimes[index] = orderStore.getExpireTime(handle);
+                    ownerIds[index] = orderStore.getOwnerId(handle);
+                    index++;
+                }
+            }
+        }
+        int bidCount = count - countOrders(offerLevelMap);
+        return new Checkpoint(lastAppliedSequence, instrumentDescriptor.getPriceScale(), bidCount, count - bidCount, orderIds, prices, sizes, orderTimes, expireTimes, ownerIds);
+    }
+
+    private void forEachRestingOrder(LongConsumer orderIdConsumer) {
+        for (Side side : Side.values()) {
+            for (OrderLevelBucket orderLevelBucket : getOrderLevelMap(side)) {
+                for (int handle = orderLevelBucket.getFirstOrder(); handle != OrderStore.NULL_HANDLE; handle = orderStore.getNext(handle)) {
+                    orderIdConsumer.accept(orderStore.getOrderId(handle));
+                }
+            }
+        }
+    }
+
+    private static int countOrders(OrderLevelMap orderLevelMap) {
+        int count = 0;
+        for (OrderLevelBucket orderLevelBucket : orderLevelMap) {
+            count += orderLevelBucket.getOrderCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return the tick size and price bounds of the instrument, which convert the prices of the book to and from ticks
+     */
+    public InstrumentDescriptor getInstrumentDescriptor() {
+        return instrumentDescriptor;
+    }
+
+    /**
+     * Get the latency and throughput metrics recorded by the processing thread.
+     * For a book hosted by an {@link OrderBookManager}, the queue depth is reported by the manager's backlog instead.
+     */
+    public OrderBookMetrics getMetrics() {
+        if (metrics == null) {
+            throw new IllegalStateException("Metrics are not enabled");
+        }
+        return metrics;
+    }
+
+    /**
+     * Register a listener for the order (L3) and level (L2) changes applied by the processing thread.
+     */
+    public void addMarketDataListener(MarketDataListener listener) {
+        marketDataPublisher.addListener(listener);
+    }
+
+    public void removeMarketDataListener(MarketDataListener listener) {
+        marketDataPublisher.removeListener(listener);
+    }
+
+    /**
+     * Get the latest snapshot of the top levels of the book, published by the processing thread after every batch.
+     * This does not take any lock, so it never blocks or is blocked by the processing thread.
+     * @param depth number of levels per side, at most the snapshot depth of the OrderBookConfig
+     * @return the snapshot
+     */
+    public OrderBookSnapshot snapshot(int depth) {
+        if (depth < 0 || depth > snapshotDepth) {
+            throw new IllegalArgumentException("Invalid depth " + depth + ", snapshots are published with depth " + snapshotDepth);
+        }
+        return latestSnapshot.withDepth(depth);
+    }
+
+    /**
+     * Get the version of the book, incremented every time the processing thread finishes a batch of actions.
+     * @return the book version
+     */
+    public long getBookVersion() {
+        return bookVersion;
+    }
+
     /**
      * Get the total order count in the order book.
      * @return return the total order count
@@ -183,4 +1621,21 @@ public class OrderBook {
     int getOrdersCount() {
         return orderLookup.size();
     }
+
+    /**
+     * Close the journal and release the memory held by the order storage. The book must not be used afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        if (validationStage != null) {
+            validationStage.close();
+        }
+        if (checkpointExecutor != null) {
+            checkpointExecutor.shutdown();
+        }
+        if (journalWriter != null) {
+            journalWriter.close();
+        }
+        orderStore.close();
+    }
 }
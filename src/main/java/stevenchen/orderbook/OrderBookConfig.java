@@ -0,0 +1,388 @@
+package stevenchen.orderbook;
+
+import stevenchen.orderbook.journal.FsyncPolicy;
+import stevenchen.orderbook.journal.JournalWriter;
+import stevenchen.orderbook.model.ArrayOrderLevelMap;
+import stevenchen.orderbook.model.InstrumentDescriptor;
+import stevenchen.orderbook.model.OrderLevelMapType;
+import stevenchen.orderbook.model.OrderStorageType;
+import stevenchen.orderbook.sequencer.WaitStrategy;
+
+import java.nio.file.Path;
+
+/**
+ * Tuning options of an {@link OrderBook}. Setters return this config so options can be chained,
+ * the values are read once when the OrderBook is constructed.
+ */
+public class OrderBookConfig {
+    private int ringBufferSize = 1 << 16;
+    private WaitStrategy waitStrategy = WaitStrategy.PARK;
+    private int maxBatchSize = 1024;
+    private long batchLatencyBudgetNanos = 0;
+    private int depthIndexLevels = 10;
+    private int snapshotDepth = 10;
+    private boolean conflateLevelEvents = false;
+    private boolean matchingEnabled = false;
+    private boolean cumulativeDepthEnabled = false;
+    private InstrumentDescriptor instrumentDescriptor = InstrumentDescriptor.DEFAULT;
+    private OrderLevelMapType orderLevelMapType = OrderLevelMapType.SKIP_LIST;
+    private double priceLadderBasePrice = 0;
+    private int priceLadderCapacity = 1 << 14;
+    private int priceLadderMaxCapacity = 1 << 20;
+    private OrderStorageType orderStorageType = OrderStorageType.HEAP;
+    private int initialOrderCapacity = 1 << 12;
+    private Path journalDirectory;
+    private long journalSegmentSize = 64L << 20;
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.NONE;
+    private long fsyncIntervalMillis = 10;
+    private int shardCount = 1;
+    private boolean metricsEnabled = false;
+    private long expiryTickMillis = 10;
+    private int validationThreads = 0;
+
+    public int getRingBufferSize() {
+        return ringBufferSize;
+    }
+
+    /**
+     * Set the number of preallocated action slots, must be a power of 2.
+     */
+    public OrderBookConfig setRingBufferSize(int ringBufferSize) {
+        if (ringBufferSize <= 0 || Integer.bitCount(ringBufferSize) != 1) {
+            throw new IllegalArgumentException("Ring buffer size must be a power of 2, got " + ringBufferSize);
+        }
+        this.ringBufferSize = ringBufferSize;
+        return this;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * Set how producers wait for a free slot and how the processing thread waits for new actions.
+     */
+    public OrderBookConfig setWaitStrategy(WaitStrategy waitStrategy) {
+        if (waitStrategy == null) {
+            throw new IllegalArgumentException("WaitStrategy cannot be null");
+        }
+        this.waitStrategy = waitStrategy;
+        return this;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Set the maximum number of actions the processing thread applies under one lock acquisition.
+     * A larger batch gives higher throughput, a smaller one lets the query methods in more often.
+     */
+    public OrderBookConfig setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be positive, got " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    public long getBatchLatencyBudgetNanos() {
+        return batchLatencyBudgetNanos;
+    }
+
+    /**
+     * Set the time after which a batch is closed even if it has not reached the max batch size,
+     * bounding how long the query methods wait. 0 disables the time budget.
+     */
+    public OrderBookConfig setBatchLatencyBudgetNanos(long batchLatencyBudgetNanos) {
+        if (batchLatencyBudgetNanos < 0) {
+            throw new IllegalArgumentException("Batch latency budget cannot be negative, got " + batchLatencyBudgetNanos);
+        }
+        this.batchLatencyBudgetNanos = batchLatencyBudgetNanos;
+        return this;
+    }
+
+    public int getDepthIndexLevels() {
+        return depthIndexLevels;
+    }
+
+    /**
+     * Set the number of top levels per side whose price, size and order count are served in O(1).
+     */
+    public OrderBookConfig setDepthIndexLevels(int depthIndexLevels) {
+        if (depthIndexLevels <= 0) {
+            throw new IllegalArgumentException("Depth index levels must be positive, got " + depthIndexLevels);
+        }
+        this.depthIndexLevels = depthIndexLevels;
+        return this;
+    }
+
+    public int getSnapshotDepth() {
+        return snapshotDepth;
+    }
+
+    /**
+     * Set the number of levels per side copied into the snapshot published after every batch. 0 disables snapshots.
+     */
+    public OrderBookConfig setSnapshotDepth(int snapshotDepth) {
+        if (snapshotDepth < 0) {
+            throw new IllegalArgumentException("Snapshot depth cannot be negative, got " + snapshotDepth);
+        }
+        this.snapshotDepth = snapshotDepth;
+        return this;
+    }
+
+    public boolean isConflateLevelEvents() {
+        return conflateLevelEvents;
+    }
+
+    /**
+     * Set whether level events are reported as they happen, or once per changed level at the end of each batch.
+     */
+    public OrderBookConfig setConflateLevelEvents(boolean conflateLevelEvents) {
+        this.conflateLevelEvents = conflateLevelEvents;
+        return this;
+    }
+
+    public boolean isMatchingEnabled() {
+        return matchingEnabled;
+    }
+
+    /**
+     * Set whether incoming orders are matched against the opposite side before resting.
+     * When disabled, every order rests at its price and only LIMIT orders are accepted.
+     */
+    public OrderBookConfig setMatchingEnabled(boolean matchingEnabled) {
+        this.matchingEnabled = matchingEnabled;
+        return this;
+    }
+
+    public boolean isCumulativeDepthEnabled() {
+        return cumulativeDepthEnabled;
+    }
+
+    /**
+     * Set whether the book keeps prefix sums of the level sizes, which answer cumulative size and sweep price queries
+     * in O(log C) for a band of C prices, at the cost of an O(log C) update on every size change.
+     * The band starts as the price ladder band.
+     */
+    public OrderBookConfig setCumulativeDepthEnabled(boolean cumulativeDepthEnabled) {
+        this.cumulativeDepthEnabled = cumulativeDepthEnabled;
+        return this;
+    }
+
+    public InstrumentDescriptor getInstrumentDescriptor() {
+        return instrumentDescriptor;
+    }
+
+    /**
+     * Set the tick size and price bounds of the instrument, a tick of 0.01 with no bound by default.
+     * Prices are journaled and checkpointed in ticks, so the tick size of a journal directory must not change.
+     */
+    public OrderBookConfig setInstrumentDescriptor(InstrumentDescriptor instrumentDescriptor) {
+        if (instrumentDescriptor == null) {
+            throw new IllegalArgumentException("InstrumentDescriptor cannot be null");
+        }
+        this.instrumentDescriptor = instrumentDescriptor;
+        return this;
+    }
+
+    public OrderLevelMapType getOrderLevelMapType() {
+        return orderLevelMapType;
+    }
+
+    /**
+     * Set how the price levels of each side are stored.
+     */
+    public OrderBookConfig setOrderLevelMapType(OrderLevelMapType orderLevelMapType) {
+        if (orderLevelMapType == null) {
+            throw new IllegalArgumentException("OrderLevelMapType cannot be null");
+        }
+        this.orderLevelMapType = orderLevelMapType;
+        return this;
+    }
+
+    public double getPriceLadderBasePrice() {
+        return priceLadderBasePrice;
+    }
+
+    public int getPriceLadderCapacity() {
+        return priceLadderCapacity;
+    }
+
+    /**
+     * Set the initial price band of the PRICE_LADDER level map and of the cumulative depth index, starting at basePrice
+     * and holding capacity prices. Orders outside the band are still accepted, but recenter the ladder and the index,
+     * see {@link #setPriceLadderMaxCapacity(int)}.
+     */
+    public OrderBookConfig setPriceLadderBand(double basePrice, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Price ladder capacity must be positive, got " + capacity);
+        }
+        this.priceLadderBasePrice = basePrice;
+        this.priceLadderCapacity = capacity;
+        return this;
+    }
+
+    public int getPriceLadderMaxCapacity() {
+        return priceLadderMaxCapacity;
+    }
+
+    /**
+     * Set the number of consecutive prices the PRICE_LADDER level map and the cumulative depth index can grow to,
+     * at least the capacity of the initial band. A LIMIT order that would make the levels of its side span more prices
+     * is rejected with {@link stevenchen.orderbook.event.RejectReason#PRICE_OUT_OF_RANGE}, so a single outlier price
+     * cannot make the book allocate arrays of gigabytes.
+     */
+    public OrderBookConfig setPriceLadderMaxCapacity(int priceLadderMaxCapacity) {
+        if (priceLadderMaxCapacity <= 0 || priceLadderMaxCapacity > ArrayOrderLevelMap.MAX_CAPACITY) {
+            throw new IllegalArgumentException("Price ladder maximum capacity must be between 1 and " + ArrayOrderLevelMap.MAX_CAPACITY
+                    + ", got " + priceLadderMaxCapacity);
+        }
+        this.priceLadderMaxCapacity = priceLadderMaxCapacity;
+        return this;
+    }
+
+    public OrderStorageType getOrderStorageType() {
+        return orderStorageType;
+    }
+
+    /**
+     * Set where the resting orders are stored. OFF_HEAP memory is released by {@link OrderBook#close()}.
+     */
+    public OrderBookConfig setOrderStorageType(OrderStorageType orderStorageType) {
+        if (orderStorageType == null) {
+            throw new IllegalArgumentException("OrderStorageType cannot be null");
+        }
+        this.orderStorageType = orderStorageType;
+        return this;
+    }
+
+    public int getInitialOrderCapacity() {
+        return initialOrderCapacity;
+    }
+
+    /**
+     * Set the number of resting orders the order storage and lookup can hold before they grow.
+     */
+    public OrderBookConfig setInitialOrderCapacity(int initialOrderCapacity) {
+        if (initialOrderCapacity <= 0) {
+            throw new IllegalArgumentException("Initial order capacity must be positive, got " + initialOrderCapacity);
+        }
+        this.initialOrderCapacity = initialOrderCapacity;
+        return this;
+    }
+
+    public Path getJournalDirectory() {
+        return journalDirectory;
+    }
+
+    /**
+     * Set the directory of the write-ahead journal. When set, the OrderBook replays the journal found there
+     * on construction, then appends every processed action to it. null disables the journal.
+     */
+    public OrderBookConfig setJournalDirectory(Path journalDirectory) {
+        this.journalDirectory = journalDirectory;
+        return this;
+    }
+
+    public long getJournalSegmentSize() {
+        return journalSegmentSize;
+    }
+
+    /**
+     * Set the size in bytes each journal segment file is pre-allocated with, at least one 64 byte record.
+     */
+    public OrderBookConfig setJournalSegmentSize(long journalSegmentSize) {
+        if (journalSegmentSize < JournalWriter.MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Journal segment size must hold at least one record of "
+                    + JournalWriter.MIN_SEGMENT_SIZE + " bytes, got " + journalSegmentSize);
+        }
+        this.journalSegmentSize = journalSegmentSize;
+        return this;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    public long getFsyncIntervalMillis() {
+        return fsyncIntervalMillis;
+    }
+
+    /**
+     * Set when the journal is forced to disk.
+     * @param fsyncIntervalMillis minimum time between two forces, only used by FsyncPolicy.INTERVAL
+     */
+    public OrderBookConfig setFsyncPolicy(FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) {
+        if (fsyncPolicy == null) {
+            throw new IllegalArgumentException("FsyncPolicy cannot be null");
+        }
+        if (fsyncIntervalMillis < 0) {
+            throw new IllegalArgumentException("Fsync interval cannot be negative, got " + fsyncIntervalMillis);
+        }
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        return this;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Set the number of processing threads of an {@link OrderBookManager}, each one with its own ring buffer
+     * of ringBufferSize slots. Not used by a standalone OrderBook.
+     */
+    public OrderBookConfig setShardCount(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive, got " + shardCount);
+        }
+        this.shardCount = shardCount;
+        return this;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * Set whether the processing thread records queue wait and service time histograms, see OrderBook.getMetrics().
+     */
+    public OrderBookConfig setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+        return this;
+    }
+
+    public long getExpiryTickMillis() {
+        return expiryTickMillis;
+    }
+
+    /**
+     * Set the resolution of the timing wheel of good-till-time orders. Orders are expired at most one tick late,
+     * and the processing thread publishes at most one expiry per tick.
+     */
+    public OrderBookConfig setExpiryTickMillis(long expiryTickMillis) {
+        if (expiryTickMillis <= 0) {
+            throw new IllegalArgumentException("Expiry tick must be positive, got " + expiryTickMillis);
+        }
+        this.expiryTickMillis = expiryTickMillis;
+        return this;
+    }
+
+    public int getValidationThreads() {
+        return validationThreads;
+    }
+
+    /**
+     * Set the number of threads validating the actions, partitioned by order id, before the processing thread
+     * applies them. With 0, the processing thread validates the actions itself. Not used by an {@link OrderBookManager}.
+     */
+    public OrderBookConfig setValidationThreads(int validationThreads) {
+        if (validationThreads < 0) {
+            throw new IllegalArgumentException("Validation thread count cannot be negative, got " + validationThreads);
+        }
+        this.validationThreads = validationThreads;
+        return this;
+    }
+}
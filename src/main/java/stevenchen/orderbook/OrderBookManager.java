@@ -0,0 +1,361 @@
+package stevenchen.orderbook;
+
+import stevenchen.orderbook.journal.FsyncPolicy;
+import stevenchen.orderbook.model.InstrumentDescriptor;
+import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.model.OrderType;
+import stevenchen.orderbook.model.Side;
+import stevenchen.orderbook.sequencer.OrderActionRingBuffer;
+import stevenchen.orderbook.sequencer.OrderActionSlot;
+import stevenchen.orderbook.util.LongObjectHashMap;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hosts the order books of many instruments and processes them on a fixed number of shard threads.
+ * <p>
+ * Every instrument is assigned to one shard when it is added. A shard owns a ring buffer shared by all of its
+ * instruments and a thread that applies the actions to their books in batches, so shards never share a queue or a lock
+ * and throughput grows with the number of shards. The backlog of each shard tells which shards fall behind,
+ * hot instruments can then be placed on their own shard with {@link #addInstrument(long, int)}.
+ * <p>
+ * The books returned by the manager serve queries, snapshots, checkpoints and listeners as usual,
+ * but their actions must be submitted through the manager: their own methods that publish or process actions
+ * throw an IllegalStateException.
+ */
+public class OrderBookManager implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(OrderBookManager.class.getName());
+
+    private final OrderBookConfig config;
+    private final Shard[] shards;
+    private final List<OrderBook> orderBooks = new ArrayList<>();
+    // copied on every registration, so producers and shard threads look up instruments without a lock
+    private volatile LongObjectHashMap<Instrument> instruments = new LongObjectHashMap<>();
+
+    public OrderBookManager() {
+        this(new OrderBookConfig());
+    }
+
+    /**
+     * @param config the shard count and ring buffer options of the manager, and the options of every hosted book.
+     *               With a journal directory, each book journals into a subdirectory named after its instrument id.
+     */
+    public OrderBookManager(OrderBookConfig config) {
+        this.config = config;
+        shards = new Shard[config.getShardCount()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i);
+        }
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+    }
+
+    /**
+     * Add an instrument to the shard chosen by hashing its id.
+     * @return the book of the instrument
+     */
+    public OrderBook addInstrument(long instrumentId) {
+        long h = instrumentId * 0x9E3779B97F4A7C15L;
+        return addInstrument(instrumentId, Math.floorMod((int) (h ^ (h >>> 32)), shards.length));
+    }
+
+    /**
+     * Add an instrument to the given shard, with the instrument descriptor of the manager's config.
+     * @return the book of the instrument
+     */
+    public OrderBook addInstrument(long instrumentId, int shard) {
+        return addInstrument(instrumentId, shard, config.getInstrumentDescriptor());
+    }
+
+    /**
+     * Add an instrument to the given shard, with its own tick size and price bounds.
+     * @return the book of the instrument
+     */
+    public synchronized OrderBook addInstrument(long instrumentId, int shard, InstrumentDescriptor instrumentDescriptor) {
+        if (instrumentDescriptor == null) {
+            throw new IllegalArgumentException("InstrumentDescriptor cannot be null");
+        }
+        if (shard < 0 || shard >= shards.length) {
+            throw new IllegalArgumentException("Shard must be between 0 and " + (shards.length - 1) + ", got " + shard);
+        }
+        if (instruments.containsKey(instrumentId)) {
+            throw new IllegalArgumentException("Instrument id " + instrumentId + " already exists");
+        }
+        Path journalDirectory = config.getJournalDirectory() == null ? null : config.getJournalDirectory().resolve(Long.toString(instrumentId));
+        // the actions are published into the ring buffer of the shard, the book's own ring buffer is never used
+        OrderBook orderBook = new OrderBook(config, instrumentDescriptor, 1, journalDirectory);
+        LongObjectHashMap<Instrument> newInstruments = new LongObjectHashMap<>(instruments);
+        newInstruments.put(instrumentId, new Instrument(orderBook, shards[shard]));
+        instruments = newInstruments;
+        shards[shard].addOrderBook(orderBook);
+        orderBooks.add(orderBook);
+        return orderBook;
+    }
+
+    public OrderBook getOrderBook(long instrumentId) {
+        return getInstrument(instrumentId).orderBook;
+    }
+
+    private Instrument getInstrument(long instrumentId) {
+        Instrument instrument = instruments.get(instrumentId);
+        if (instrument == null) {
+            throw new IllegalArgumentException("Unknown instrument id " + instrumentId);
+        }
+        return instrument;
+    }
+
+    public void addOrder(long instrumentId, Order order) {
+        addOrder(instrumentId, order, OrderType.LIMIT);
+    }
+
+    /**
+     * Add an order of the given type. Order types other than LIMIT need matching to be enabled.
+     */
+    public void addOrder(long instrumentId, Order order, OrderType orderType) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        OrderBook.validateOrderType(orderType, config.isMatchingEnabled());
+        Side side = Side.fromChar(order.getSide());
+        Instrument instrument = getInstrument(instrumentId);
+        long price = OrderBook.toOrderTicks(order.getPrice(), orderType, instrument.orderBook.getInstrumentDescriptor());
+        OrderActionRingBuffer orderActionRingBuffer = instrument.shard.getOrderActionRingBuffer();
+        long sequence = orderActionRingBuffer.next();
+        OrderActionSlot slot = orderActionRingBuffer.get(sequence);
+        slot.setAddAction(order.getId(), price, side, order.getSize(), System.currentTimeMillis(), orderType,
+                0, order.getOwnerId());
+        slot.setInstrumentId(instrumentId);
+        orderActionRingBuffer.publish(sequence);
+    }
+
+    public void removeOrder(long instrumentId, long orderId) {
+        OrderActionRingBuffer orderActionRingBuffer = getInstrument(instrumentId).shard.getOrderActionRingBuffer();
+        long sequence = orderActionRingBuffer.next();
+        OrderActionSlot slot = orderActionRingBuffer.get(sequence);
+        slot.setRemoveAction(orderId);
+        slot.setInstrumentId(instrumentId);
+        orderActionRingBuffer.publish(sequence);
+    }
+
+    public void modifyOrder(long instrumentId, long orderId, long newSize) {
+        OrderActionRingBuffer orderActionRingBuffer = getInstrument(instrumentId).shard.getOrderActionRingBuffer();
+        long sequence = orderActionRingBuffer.next();
+        OrderActionSlot slot = orderActionRingBuffer.get(sequence);
+        slot.setModifyAction(orderId, newSize);
+        slot.setInstrumentId(instrumentId);
+        orderActionRingBuffer.publish(sequence);
+    }
+
+    /**
+     * Remove every resting order of an owner in the book of an instrument, see {@link OrderBook#massCancel(long)}.
+     */
+    public void massCancel(long instrumentId, long ownerId) {
+        massCancel(instrumentId, ownerId, null, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Remove the resting orders of an owner in the book of an instrument on one side within a range of prices,
+     * see {@link OrderBook#massCancel(long, Side, double, double)}.
+     * @param side the side to cancel, null for both sides
+     */
+    public void massCancel(long instrumentId, long ownerId, Side side, double minPrice, double maxPrice) {
+        InstrumentDescriptor instrumentDescriptor = getInstrument(instrumentId).orderBook.getInstrumentDescriptor();
+        massCancel(instrumentId, ownerId, side, instrumentDescriptor.toTicks(minPrice), instrumentDescriptor.toTicks(maxPrice));
+    }
+
+    private void massCancel(long instrumentId, long ownerId, Side side, long minPrice, long maxPrice) {
+        Instrument instrument = getInstrument(instrumentId);
+        OrderBook.validateMassCancel(ownerId, minPrice, maxPrice, instrument.orderBook.getInstrumentDescriptor());
+        OrderActionRingBuffer orderActionRingBuffer = instrument.shard.getOrderActionRingBuffer();
+        long sequence = orderActionRingBuffer.next();
+        OrderActionSlot slot = orderActionRingBuffer.get(sequence);
+        slot.setMassCancelAction(ownerId, side, minPrice, maxPrice);
+        slot.setInstrumentId(instrumentId);
+        orderActionRingBuffer.publish(sequence);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public int getShard(long instrumentId) {
+        return getInstrument(instrumentId).shard.index;
+    }
+
+    /**
+     * @return the number of actions published to the shard and not yet applied
+     */
+    public long getBacklog(int shard) {
+        OrderActionRingBuffer orderActionRingBuffer = shards[shard].orderActionRingBuffer;
+        return orderActionRingBuffer.getClaimedSequence() - orderActionRingBuffer.getReleasedSequence();
+    }
+
+    /**
+     * Stop the shard threads, dropping the actions they have not applied yet, and close every book.
+     */
+    @Override
+    public synchronized void close() {
+        for (Shard shard : shards) {
+            shard.thread.interrupt();
+        }
+        try {
+            for (Shard shard : shards) {
+                shard.thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (OrderBook orderBook : orderBooks) {
+            orderBook.close();
+        }
+    }
+
+    private static final class Instrument {
+        private final OrderBook orderBook;
+        private final Shard shard;
+        // number of actions of the book in the current batch of its shard, then index of its first action in the
+        // grouped slots, only used by the shard thread
+        private int batchCount;
+        private int batchOffset;
+
+        private Instrument(OrderBook orderBook, Shard shard) {
+            this.orderBook = orderBook;
+            this.shard = shard;
+        }
+    }
+
+    private final class Shard {
+        private final int index;
+        private final OrderActionRingBuffer orderActionRingBuffer;
+        private final Thread thread;
+        // the first exception thrown by a book of the shard, after which its actions are discarded
+        private volatile Throwable failure;
+        // the books of the shard, copied when an instrument is added
+        private volatile OrderBook[] orderBooks = new OrderBook[0];
+        // instruments with actions in the current batch, the instrument of each action, and the slots of the batch
+        // grouped by instrument, only used by the shard thread
+        private final Instrument[] batchInstruments;
+        private final Instrument[] slotInstruments;
+        private final OrderActionSlot[] groupedSlots;
+        private int batchInstrumentCount;
+
+        private Shard(int index) {
+            this.index = index;
+            orderActionRingBuffer = new OrderActionRingBuffer(config.getRingBufferSize(), config.getWaitStrategy(), config.isMetricsEnabled());
+            batchInstruments = new Instrument[config.getMaxBatchSize()];
+            slotInstruments = new Instrument[config.getMaxBatchSize()];
+            groupedSlots = new OrderActionSlot[config.getMaxBatchSize()];
+            thread = new Thread(this::run, "orderbook-shard-" + index);
+            thread.setDaemon(true);
+        }
+
+        /**
+         * @return the ring buffer to publish into
+         * @throws IllegalStateException if a book of the shard failed, as its actions are then discarded
+         */
+        private OrderActionRingBuffer getOrderActionRingBuffer() {
+            if (failure != null) {
+                throw new IllegalStateException("Shard " + index + " stopped applying actions after a failure", failure);
+            }
+            return orderActionRingBuffer;
+        }
+
+        private void addOrderBook(OrderBook orderBook) {
+            OrderBook[] newOrderBooks = Arrays.copyOf(orderBooks, orderBooks.length + 1);
+            newOrderBooks[orderBooks.length] = orderBook;
+            orderBooks = newOrderBooks;
+        }
+
+        private void run() {
+            int maxBatchSize = batchInstruments.length;
+            // with FsyncPolicy.INTERVAL, wake up within the interval to force the journal records of idle books
+            boolean forceWhenIdle = config.getJournalDirectory() != null && config.getFsyncPolicy() == FsyncPolicy.INTERVAL;
+            long timeoutNanos = Math.max(1, config.getFsyncIntervalMillis() * 1_000_000L);
+            try {
+                while (true) {
+                    long next = orderActionRingBuffer.getReleasedSequence() + 1;
+                    long available = forceWhenIdle ? orderActionRingBuffer.waitFor(next, timeoutNanos) : orderActionRingBuffer.waitFor(next);
+                    if (available < next) {
+                        for (OrderBook orderBook : orderBooks) {
+                            orderBook.forceJournalIfDue();
+                        }
+                    }
+                    for (long sequence = next; sequence <= available; sequence += maxBatchSize) {
+                        processBatch(sequence, Math.min(available, sequence + maxBatchSize - 1));
+                    }
+                }
+            } catch (InterruptedException e) {
+                // closed by the manager
+            }
+        }
+
+        /**
+         * Group a batch of actions by book, keeping their order within each book, then apply the actions of every
+         * book under a single acquisition of its lock, so each book is locked, bumps its version and publishes its
+         * snapshot once per batch, and its queries never observe part of the batch.
+         * <p>
+         * If a book throws, such as from a listener, the other books of the batch are still applied and the failure
+         * is recorded: the manager then refuses new actions for the shard, and the shard keeps releasing the actions
+         * already published without applying them, so no producer is left waiting for a slot.
+         */
+        private void processBatch(long fromSequence, long toSequence) {
+            try {
+                if (failure == null) {
+                    applyBatch(fromSequence, toSequence);
+                }
+            } catch (RuntimeException | Error e) {
+                fail(e);
+            } finally {
+                orderActionRingBuffer.release(toSequence);
+            }
+        }
+
+        private void fail(Throwable e) {
+            if (failure == null) {
+                failure = e;
+                LOGGER.log(Level.SEVERE, "Shard " + index + " failed, its pending actions are discarded", e);
+            }
+        }
+
+        private void applyBatch(long fromSequence, long toSequence) {
+            // read after the actions were published, so every instrument they refer to is registered
+            LongObjectHashMap<Instrument> instruments = OrderBookManager.this.instruments;
+            int count = (int) (toSequence - fromSequence + 1);
+            for (int i = 0; i < count; i++) {
+                Instrument instrument = instruments.get(orderActionRingBuffer.get(fromSequence + i).getInstrumentId());
+                if (instrument.batchCount++ == 0) {
+                    batchInstruments[batchInstrumentCount++] = instrument;
+                }
+                slotInstruments[i] = instrument;
+            }
+            int offset = 0;
+            for (int i = 0; i < batchInstrumentCount; i++) {
+                Instrument instrument = batchInstruments[i];
+                instrument.batchOffset = offset;
+                offset += instrument.batchCount;
+            }
+            for (int i = 0; i < count; i++) {
+                groupedSlots[slotInstruments[i].batchOffset++] = orderActionRingBuffer.get(fromSequence + i);
+                slotInstruments[i] = null;
+            }
+            for (int i = 0; i < batchInstrumentCount; i++) {
+                Instrument instrument = batchInstruments[i];
+                try {
+                    // the offset was moved past the actions of the instrument while grouping them
+                    instrument.orderBook.applyRoutedBatch(groupedSlots, instrument.batchOffset - instrument.batchCount, instrument.batchCount);
+                } catch (RuntimeException | Error e) {
+                    fail(e);
+                }
+                instrument.batchCount = 0;
+                batchInstruments[i] = null;
+            }
+            batchInstrumentCount = 0;
+        }
+    }
+}
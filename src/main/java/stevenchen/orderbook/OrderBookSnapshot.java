@@ -0,0 +1,93 @@
+package stevenchen.orderbook;
+
+import stevenchen.orderbook.model.Side;
+
+import java.util.Arrays;
+
+/**
+ * An immutable copy of the top levels of both sides of an {@link OrderBook}, published by the processing
+ * thread after every batch. Readers get the latest one from {@link OrderBook#snapshot(int)} without taking
+ * any lock, and can compare its sequence with their own to detect staleness.
+ */
+public class OrderBookSnapshot {
+    private final long sequence;
+    private final long bookVersion;
+    private final double[] bidPrices;
+    private final long[] bidSizes;
+    private final int[] bidOrderCounts;
+    private final double[] offerPrices;
+    private final long[] offerSizes;
+    private final int[] offerOrderCounts;
+
+    OrderBookSnapshot(long sequence, long bookVersion,
+                      double[] bidPrices, long[] bidSizes, int[] bidOrderCounts,
+                      double[] offerPrices, long[] offerSizes, int[] offerOrderCounts) {
+        this.sequence = sequence;
+        this.bookVersion = bookVersion;
+        this.bidPrices = bidPrices;
+        this.bidSizes = bidSizes;
+        this.bidOrderCounts = bidOrderCounts;
+        this.offerPrices = offerPrices;
+        this.offerSizes = offerSizes;
+        this.offerOrderCounts = offerOrderCounts;
+    }
+
+    static OrderBookSnapshot empty() {
+        return new OrderBookSnapshot(-1, 0, new double[0], new long[0], new int[0], new double[0], new long[0], new int[0]);
+    }
+
+    /**
+     * Get the sequence number of the last action applied to the book when this snapshot was taken.
+     * @return the sequence number, -1 if no action had been applied
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getBookVersion() {
+        return bookVersion;
+    }
+
+    /**
+     * Get the number of levels captured on a side, at most the requested depth.
+     * @return level count
+     */
+    public int getLevelCount(Side side) {
+        return side == Side.BID ? bidPrices.length : offerPrices.length;
+    }
+
+    public double getLevelPrice(Side side, int level) {
+        checkLevel(side, level);
+        return side == Side.BID ? bidPrices[level] : offerPrices[level];
+    }
+
+    public long getLevelTotalSize(Side side, int level) {
+        checkLevel(side, level);
+        return side == Side.BID ? bidSizes[level] : offerSizes[level];
+    }
+
+    public int getLevelOrderCount(Side side, int level) {
+        checkLevel(side, level);
+        return side == Side.BID ? bidOrderCounts[level] : offerOrderCounts[level];
+    }
+
+    private void checkLevel(Side side, int level) {
+        if (level < 0 || level >= getLevelCount(side)) {
+            throw new IllegalArgumentException("Invalid level " + level);
+        }
+    }
+
+    /**
+     * @return a snapshot holding at most the given number of levels per side, this one if it is not deeper
+     */
+    OrderBookSnapshot withDepth(int depth) {
+        if (bidPrices.length <= depth && offerPrices.length <= depth) {
+            return this;
+        }
+        int bidDepth = Math.min(depth, bidPrices.length);
+        int offerDepth = Math.min(depth, offerPrices.length);
+        return new OrderBookSnapshot(sequence, bookVersion,
+                Arrays.copyOf(bidPrices, bidDepth), Arrays.copyOf(bidSizes, bidDepth), Arrays.copyOf(bidOrderCounts, bidDepth),
+                Arrays.copyOf(offerPrices, offerDepth), Arrays.copyOf(offerSizes, offerDepth), Arrays.copyOf(offerOrderCounts, offerDepth));
+    }
+}
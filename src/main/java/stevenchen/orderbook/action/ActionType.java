@@ -0,0 +1,5 @@
+package stevenchen.orderbook.action;
+
+public enum ActionType {
+    ADD, REMOVE, MODIFY, EXPIRE, MASS_CANCEL
+}
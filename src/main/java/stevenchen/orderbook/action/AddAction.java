@@ -1,14 +1,86 @@
 package stevenchen.orderbook.action;
 
-import stevenchen.orderbook.model.OrderEntry;
+import stevenchen.orderbook.model.OrderType;
+import stevenchen.orderbook.model.Side;
 
 public class AddAction implements OrderAction {
-    private final OrderEntry orderEntry;
+    private long orderId;
+    private long price;
+    private Side side;
+    private long size;
+    private long orderTime;
+    private OrderType orderType;
+    private long expireTime;
+    private long ownerId;
 
-    public AddAction(OrderEntry orderEntry) {
-        this.orderEntry = orderEntry;
+    public void set(long orderId, long price, Side side, long size, long orderTime, OrderType orderType) {
+        set(orderId, price, side, size, orderTime, orderType, 0);
     }
-    public OrderEntry getOrderEntry() {
-        return orderEntry;
+
+    public void set(long orderId, long price, Side side, long size, long orderTime, OrderType orderType, long expireTime) {
+        set(orderId, price, side, size, orderTime, orderType, expireTime, 0);
+    }
+
+    public void set(long orderId, long price, Side side, long size, long orderTime, OrderType orderType, long expireTime,
+                    long ownerId) {
+        this.orderId = orderId;
+        this.price = price;
+        this.side = side;
+        this.size = size;
+        this.orderTime = orderTime;
+        this.orderType = orderType;
+        this.expireTime = expireTime;
+        this.ownerId = ownerId;
+    }
+
+    public long getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * @return the price in ticks, see {@link stevenchen.orderbook.model.InstrumentDescriptor}
+     */
+    public long getPrice() {
+        return price;
+    }
+
+    public Side getSide() {
+        return side;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Get the time the action was submitted, in epoch milliseconds.
+     * @return submission time
+     */
+    public long getOrderTime() {
+        return orderTime;
+    }
+
+    public OrderType getOrderType() {
+        return orderType;
+    }
+
+    /**
+     * Get the time a good-till-time order expires, in epoch milliseconds.
+     * @return expire time, 0 if the order is good till cancelled
+     */
+    public long getExpireTime() {
+        return expireTime;
+    }
+
+    /**
+     * @return the owner or session submitting the order, 0 if it has none
+     */
+    public long getOwnerId() {
+        return ownerId;
+    }
+
+    @Override
+    public ActionType getType() {
+        return ActionType.ADD;
     }
 }
@@ -0,0 +1,25 @@
+package stevenchen.orderbook.action;
+
+/**
+ * Expire every good-till-time order due at the given time, published by the processing thread itself
+ * so that expiries are numbered and journaled like any other action.
+ */
+public class ExpireAction implements OrderAction {
+    private long time;
+
+    public void set(long time) {
+        this.time = time;
+    }
+
+    /**
+     * @return the time orders are expired up to, in epoch milliseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    @Override
+    public ActionType getType() {
+        return ActionType.EXPIRE;
+    }
+}
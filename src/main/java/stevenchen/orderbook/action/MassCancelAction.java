@@ -0,0 +1,51 @@
+package stevenchen.orderbook.action;
+
+import stevenchen.orderbook.model.Side;
+
+/**
+ * Remove every resting order of an owner, optionally restricted to one side and a range of prices,
+ * typically when the session of a client disconnects.
+ */
+public class MassCancelAction implements OrderAction {
+    private long ownerId;
+    private Side side;
+    private long minPrice;
+    private long maxPrice;
+
+    public void set(long ownerId, Side side, long minPrice, long maxPrice) {
+        this.ownerId = ownerId;
+        this.side = side;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    public long getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * @return the side to cancel, null for both sides
+     */
+    public Side getSide() {
+        return side;
+    }
+
+    /**
+     * @return the lowest price in ticks to cancel, inclusive
+     */
+    public long getMinPrice() {
+        return minPrice;
+    }
+
+    /**
+     * @return the highest price in ticks to cancel, inclusive
+     */
+    public long getMaxPrice() {
+        return maxPrice;
+    }
+
+    @Override
+    public ActionType getType() {
+        return ActionType.MASS_CANCEL;
+    }
+}
@@ -1,10 +1,10 @@
 package stevenchen.orderbook.action;
 
 public class ModifyAction implements OrderAction {
-    private final long orderId;
-    private final long newSize;
+    private long orderId;
+    private long newSize;
 
-    public ModifyAction(long orderId, long newSize) {
+    public void set(long orderId, long newSize) {
         this.orderId = orderId;
         this.newSize = newSize;
     }
@@ -16,4 +16,9 @@ public class ModifyAction implements OrderAction {
     public long getNewSize() {
         return newSize;
     }
+
+    @Override
+    public ActionType getType() {
+        return ActionType.MODIFY;
+    }
 }
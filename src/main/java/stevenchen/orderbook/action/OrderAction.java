@@ -1,4 +1,5 @@
 package stevenchen.orderbook.action;
 
 public interface OrderAction {
+    ActionType getType();
 }
@@ -1,11 +1,17 @@
 package stevenchen.orderbook.action;
 
 public class RemoveAction implements OrderAction{
-    private final long orderId;
-    public RemoveAction(long orderId) {
+    private long orderId;
+
+    public void set(long orderId) {
         this.orderId = orderId;
     }
     public long getOrderId() {
         return orderId;
     }
+
+    @Override
+    public ActionType getType() {
+        return ActionType.REMOVE;
+    }
 }
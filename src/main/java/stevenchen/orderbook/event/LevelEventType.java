@@ -0,0 +1,16 @@
+package stevenchen.orderbook.event;
+
+public enum LevelEventType {
+    /**
+     * A price level appeared on the book.
+     */
+    NEW,
+    /**
+     * The total size or order count of an existing level changed.
+     */
+    UPDATE,
+    /**
+     * The last order of a level was removed.
+     */
+    DELETE
+}
@@ -0,0 +1,56 @@
+package stevenchen.orderbook.event;
+
+import stevenchen.orderbook.action.ActionType;
+import stevenchen.orderbook.model.Side;
+
+/**
+ * Receives the changes applied to an OrderBook, on the processing thread, in sequence order.
+ * Implementations must be fast and must not throw, as they run inside the processing loop.
+ * All methods do nothing by default, so a listener only implements the feed it needs.
+ */
+public interface MarketDataListener {
+    /**
+     * Called for every order added, modified or removed (L3).
+     * @param sequence sequence of the action that caused the event
+     * @param size size of the order after the event, 0 for REMOVE
+     */
+    default void onOrderEvent(OrderEventType type, long sequence, long orderId, Side side, double price, long size) {
+    }
+
+    /**
+     * Called when the aggregate of a price level changes (L2). When level events are conflated, this is
+     * called at most once per level per batch, just before {@link #onBatchEnd(long)}, with the final state.
+     * @param sequence sequence of the action that changed the level, when conflated the sequence of the last action
+     *                 of the batch that changed a level
+     * @param totalSize total size of the level after the change, 0 for DELETE
+     * @param orderCount order count of the level after the change, 0 for DELETE
+     */
+    default void onLevelEvent(LevelEventType type, long sequence, Side side, double price, long totalSize, int orderCount) {
+    }
+
+    /**
+     * Called for every fill of an incoming order against a resting order, before the order and level events
+     * of the resting order.
+     * @param sequence sequence of the action of the incoming order
+     * @param aggressorSide side of the incoming order
+     * @param price price of the resting order
+     * @param size filled size
+     */
+    default void onTrade(long sequence, long aggressorOrderId, long restingOrderId, Side aggressorSide, double price, long size) {
+    }
+
+    /**
+     * Called for every action rejected instead of being applied. A rejected action changes nothing in the book.
+     * @param sequence sequence of the rejected action
+     * @param orderId order id of the action, 0 for actions without one
+     */
+    default void onReject(RejectReason reason, long sequence, ActionType actionType, long orderId) {
+    }
+
+    /**
+     * Called after every batch of actions.
+     * @param sequence sequence of the last action of the batch
+     */
+    default void onBatchEnd(long sequence) {
+    }
+}
@@ -0,0 +1,117 @@
+package stevenchen.orderbook.event;
+
+import stevenchen.orderbook.action.ActionType;
+import stevenchen.orderbook.model.OrderLevelBucket;
+import stevenchen.orderbook.model.Side;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Dispatches the changes made by the processing thread to the registered {@link MarketDataListener}s.
+ * <p>
+ * With conflation enabled, level changes are collected during the batch and each changed level is reported
+ * once at the end of the batch. A level created and deleted in the same batch is not reported at all.
+ */
+public class MarketDataPublisher {
+    private final boolean conflateLevelEvents;
+    private final List<OrderLevelBucket> changedLevels = new ArrayList<>();
+    private volatile MarketDataListener[] listeners = new MarketDataListener[0];
+    private long lastSequence;
+
+    public MarketDataPublisher(boolean conflateLevelEvents) {
+        this.conflateLevelEvents = conflateLevelEvents;
+    }
+
+    public synchronized void addListener(MarketDataListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("MarketDataListener cannot be null");
+        }
+        MarketDataListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+        newListeners[listeners.length] = listener;
+        listeners = newListeners;
+    }
+
+    public synchronized void removeListener(MarketDataListener listener) {
+        listeners = Arrays.stream(listeners).filter(l -> l != listener).toArray(MarketDataListener[]::new);
+    }
+
+    public boolean hasListeners() {
+        return listeners.length > 0;
+    }
+
+    public void orderEvent(OrderEventType type, long sequence, long orderId, Side side, double price, long size) {
+        for (MarketDataListener listener : listeners) {
+            listener.onOrderEvent(type, sequence, orderId, side, price, size);
+        }
+    }
+
+    public void trade(long sequence, long aggressorOrderId, long restingOrderId, Side aggressorSide, double price, long size) {
+        for (MarketDataListener listener : listeners) {
+            listener.onTrade(sequence, aggressorOrderId, restingOrderId, aggressorSide, price, size);
+        }
+    }
+
+    public void reject(RejectReason reason, long sequence, ActionType actionType, long orderId) {
+        for (MarketDataListener listener : listeners) {
+            listener.onReject(reason, sequence, actionType, orderId);
+        }
+    }
+
+    public void levelCreated(long sequence, OrderLevelBucket orderLevelBucket) {
+        levelChanged(LevelEventType.NEW, sequence, orderLevelBucket);
+    }
+
+    public void levelUpdated(long sequence, OrderLevelBucket orderLevelBucket) {
+        levelChanged(LevelEventType.UPDATE, sequence, orderLevelBucket);
+    }
+
+    public void levelDeleted(long sequence, OrderLevelBucket orderLevelBucket) {
+        levelChanged(LevelEventType.DELETE, sequence, orderLevelBucket);
+    }
+
+    private void levelChanged(LevelEventType type, long sequence, OrderLevelBucket orderLevelBucket) {
+        if (listeners.length == 0) {
+            return;
+        }
+        if (!conflateLevelEvents) {
+            publishLevelEvent(type, sequence, orderLevelBucket);
+            return;
+        }
+        lastSequence = sequence;
+        if (orderLevelBucket.markPendingLevelEvent(type == LevelEventType.NEW)) {
+            changedLevels.add(orderLevelBucket);
+        }
+    }
+
+    private void publishLevelEvent(LevelEventType type, long sequence, OrderLevelBucket orderLevelBucket) {
+        long totalSize = type == LevelEventType.DELETE ? 0 : orderLevelBucket.getTotalSize();
+        int orderCount = type == LevelEventType.DELETE ? 0 : orderLevelBucket.getOrderCount();
+        for (MarketDataListener listener : listeners) {
+            listener.onLevelEvent(type, sequence, orderLevelBucket.getSide(), orderLevelBucket.getOriginalPrice(), totalSize, orderCount);
+        }
+    }
+
+    /**
+     * Flush the conflated level events and notify the end of the batch.
+     */
+    public void batchEnd(long sequence) {
+        for (int i = 0; i < changedLevels.size(); i++) {
+            OrderLevelBucket orderLevelBucket = changedLevels.get(i);
+            // buckets are removed from the level map as soon as they are empty and never reused
+            boolean deleted = orderLevelBucket.isEmpty();
+            boolean created = orderLevelBucket.isCreatedInBatch();
+            orderLevelBucket.clearPendingLevelEvent();
+            if (deleted && created) {
+                continue;
+            }
+            publishLevelEvent(deleted ? LevelEventType.DELETE : created ? LevelEventType.NEW : LevelEventType.UPDATE,
+                    lastSequence, orderLevelBucket);
+        }
+        changedLevels.clear();
+        for (MarketDataListener listener : listeners) {
+            listener.onBatchEnd(sequence);
+        }
+    }
+}
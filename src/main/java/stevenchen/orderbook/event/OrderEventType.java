@@ -0,0 +1,5 @@
+package stevenchen.orderbook.event;
+
+public enum OrderEventType {
+    ADD, MODIFY, REMOVE
+}
@@ -0,0 +1,21 @@
+package stevenchen.orderbook.event;
+
+public enum RejectReason {
+    /**
+     * An order with the same id is already resting in the book.
+     */
+    DUPLICATE_ORDER_ID,
+    /**
+     * No resting order has the id of the modify or remove.
+     */
+    UNKNOWN_ORDER_ID,
+    /**
+     * The size of the order, or the new size of a modify, is not positive.
+     */
+    INVALID_SIZE,
+    /**
+     * The price of a LIMIT order is too far from the other levels of its side for the price ladder or the cumulative
+     * depth index to hold it, see {@link stevenchen.orderbook.OrderBookConfig#setPriceLadderMaxCapacity(int)}.
+     */
+    PRICE_OUT_OF_RANGE
+}
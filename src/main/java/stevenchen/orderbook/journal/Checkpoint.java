@@ -0,0 +1,209 @@
+package stevenchen.orderbook.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static stevenchen.orderbook.journal.JournalFormat.DOUBLE;
+import static stevenchen.orderbook.journal.JournalFormat.INT;
+import static stevenchen.orderbook.journal.JournalFormat.LONG;
+import static stevenchen.orderbook.journal.JournalFormat.LONG_UNALIGNED;
+
+/**
+ * A copy of all resting orders of a book at a given sequence, bids then offers, each side in level then time order.
+ * <p>
+ * The file starts with a 32 byte header: magic, bid count and offer count as ints, then the sequence as a long at offset 16
+ * and the price scale the prices are in ticks of as a double at offset 24.
+ * It is followed by 48 byte records of order id, size, order time, expire time, owner id and price in ticks as longs.
+ * Files are named after their sequence and written to a temporary file first, so a partially written checkpoint
+ * is never loaded.
+ */
+public class Checkpoint {
+    // changed with the record layout, so a checkpoint of an older layout is not loaded
+    private static final int MAGIC = 0x4F42434D;
+    private static final long HEADER_SIZE = 32;
+    private static final long RECORD_SIZE = 48;
+    private static final String SUFFIX = ".checkpoint";
+
+    private final long sequence;
+    private final double priceScale;
+    private final int bidCount;
+    private final int offerCount;
+    private final long[] orderIds;
+    private final long[] prices;
+    private final long[] sizes;
+    private final long[] orderTimes;
+    private final long[] expireTimes;
+    private final long[] ownerIds;
+
+    /**
+     * @param sequence sequence of the last action applied to the book
+     * @param priceScale the ticks per unit of price of the book
+     */
+    public Checkpoint(long sequence, double priceScale, int bidCount, int offerCount, long[] orderIds, long[] prices, long[] sizes, long[] orderTimes,
+                      long[] expireTimes, long[] ownerIds) {
+        this.sequence = sequence;
+        this.priceScale = priceScale;
+        this.bidCount = bidCount;
+        this.offerCount = offerCount;
+        this.orderIds = orderIds;
+        this.prices = prices;
+        this.sizes = sizes;
+        this.orderTimes = orderTimes;
+        this.expireTimes = expireTimes;
+        this.ownerIds = ownerIds;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public double getPriceScale() {
+        return priceScale;
+    }
+
+    public int getBidCount() {
+        return bidCount;
+    }
+
+    public int getOfferCount() {
+        return offerCount;
+    }
+
+    /**
+     * Orders are indexed from 0 to bidCount + offerCount, bids first.
+     */
+    public long getOrderId(int index) {
+        return orderIds[index];
+    }
+
+    /**
+     * @return the price in ticks
+     */
+    public long getPrice(int index) {
+        return prices[index];
+    }
+
+    public long getSize(int index) {
+        return sizes[index];
+    }
+
+    public long getOrderTime(int index) {
+        return orderTimes[index];
+    }
+
+    /**
+     * @return the expire time of a good-till-time order, 0 if the order does not expire
+     */
+    public long getExpireTime(int index) {
+        return expireTimes[index];
+    }
+
+    /**
+     * @return the owner of the order, 0 if it has none
+     */
+    public long getOwnerId(int index) {
+        return ownerIds[index];
+    }
+
+    /**
+     * Write this checkpoint into the directory.
+     * @return the path of the checkpoint file
+     */
+    public Path write(Path directory) {
+        int count = bidCount + offerCount;
+        Path path = directory.resolve(String.format("%020d%s", sequence, SUFFIX));
+        Path temporaryPath = directory.resolve(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 Arena arena = Arena.ofConfined()) {
+                MemorySegment segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + RECORD_SIZE * count, arena);
+                segment.set(INT, 0, MAGIC);
+                segment.set(INT, 4, bidCount);
+                segment.set(INT, 8, offerCount);
+                segment.set(LONG, 16, sequence);
+                segment.set(DOUBLE, 24, priceScale);
+                long position = HEADER_SIZE;
+                for (int i = 0; i < count; i++) {
+                    segment.set(LONG_UNALIGNED, position, orderIds[i]);
+                    segment.set(LONG_UNALIGNED, position + 8, sizes[i]);
+                    segment.set(LONG_UNALIGNED, position + 16, orderTimes[i]);
+                    segment.set(LONG_UNALIGNED, position + 24, expireTimes[i]);
+                    segment.set(LONG_UNALIGNED, position + 32, ownerIds[i]);
+                    segment.set(LONG_UNALIGNED, position + 40, prices[i]);
+                    position += RECORD_SIZE;
+                }
+                segment.force();
+            }
+            Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write checkpoint " + path, e);
+        }
+        return path;
+    }
+
+    /**
+     * @param priceScale the ticks per unit of price of the book, a checkpoint written with another one fails the read
+     */
+    public static Checkpoint read(Path path, double priceScale) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             Arena arena = Arena.ofConfined()) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            if (segment.byteSize() < HEADER_SIZE || segment.get(INT, 0) != MAGIC) {
+                throw new IllegalStateException("Not a checkpoint file: " + path);
+            }
+            int bidCount = segment.get(INT, 4);
+            int offerCount = segment.get(INT, 8);
+            long sequence = segment.get(LONG, 16);
+            JournalFormat.checkPriceScale(segment.get(DOUBLE, 24), priceScale, path);
+            int count = bidCount + offerCount;
+            if (segment.byteSize() != HEADER_SIZE + RECORD_SIZE * count) {
+                throw new IllegalStateException("Truncated checkpoint file: " + path);
+            }
+            long[] orderIds = new long[count];
+            long[] prices = new long[count];
+            long[] sizes = new long[count];
+            long[] orderTimes = new long[count];
+            long[] expireTimes = new long[count];
+            long[] ownerIds = new long[count];
+            long position = HEADER_SIZE;
+            for (int i = 0; i < count; i++) {
+                orderIds[i] = segment.get(LONG_UNALIGNED, position);
+                sizes[i] = segment.get(LONG_UNALIGNED, position + 8);
+                orderTimes[i] = segment.get(LONG_UNALIGNED, position + 16);
+                expireTimes[i] = segment.get(LONG_UNALIGNED, position + 24);
+                ownerIds[i] = segment.get(LONG_UNALIGNED, position + 32);
+                prices[i] = segment.get(LONG_UNALIGNED, position + 40);
+                position += RECORD_SIZE;
+            }
+            return new Checkpoint(sequence, priceScale, bidCount, offerCount, orderIds, prices, sizes, orderTimes, expireTimes, ownerIds);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read checkpoint " + path, e);
+        }
+    }
+
+    /**
+     * Find the checkpoint with the highest sequence in the directory.
+     * @return the path of the checkpoint file, or empty if there is none
+     */
+    public static Optional<Path> findLatest(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return Optional.empty();
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).max(Path::compareTo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package stevenchen.orderbook.journal;
+
+/**
+ * When the journal forces its memory-mapped segments to disk.
+ */
+public enum FsyncPolicy {
+    /**
+     * Leave it to the operating system. Survives a process crash, but not a machine crash.
+     */
+    NONE,
+    /**
+     * Force after every batch processed, before the next batch is applied.
+     */
+    PER_BATCH,
+    /**
+     * Force at the end of a batch if the configured interval has elapsed since the last force.
+     */
+    INTERVAL
+}
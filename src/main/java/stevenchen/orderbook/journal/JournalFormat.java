@@ -0,0 +1,72 @@
+package stevenchen.orderbook.journal;
+
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+/**
+ * Layout of the journal segment files, and the byte order shared with {@link Checkpoint} files.
+ * <p>
+ * A segment is a pre-sized file named after the sequence of its first record. It starts with a 64 byte header holding
+ * a magic int and, at offset 8, the price scale the prices are in ticks of, followed by fixed-width 64 byte records.
+ * A record holds the record type, side and order type as bytes at offset 0, 1 and 2, then from offset 8 the sequence,
+ * order id, size, order time, expire time, owner id and price in ticks as longs. EXPIRE records keep their time in
+ * the order time. MASS_CANCEL records keep the owner in the order id, BOTH_SIDES or the side in the side, the lowest
+ * price in the price and the highest price in the size. REJECT records only hold the sequence of an action rejected
+ * by validation, so recovery does not reuse it. Unused space is zero, so a record type of 0 marks the end of the
+ * written part of a segment. The type byte is written last, so a partially written record is never read.
+ */
+final class JournalFormat {
+    static final ValueLayout.OfByte BYTE = ValueLayout.JAVA_BYTE;
+    static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN);
+    static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+    static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE.withOrder(ByteOrder.LITTLE_ENDIAN);
+    static final ValueLayout.OfLong LONG_UNALIGNED = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    static final int MAGIC = 0x4F424A4C;
+    static final long HEADER_SIZE = 64;
+    static final long MAGIC_OFFSET = 0;
+    static final long PRICE_SCALE_OFFSET = 8;
+
+    static final long RECORD_SIZE = 64;
+    static final long TYPE_OFFSET = 0;
+    static final long SIDE_OFFSET = 1;
+    static final long ORDER_TYPE_OFFSET = 2;
+    static final long SEQUENCE_OFFSET = 8;
+    static final long ORDER_ID_OFFSET = 16;
+    static final long SIZE_OFFSET = 24;
+    static final long ORDER_TIME_OFFSET = 32;
+    static final long EXPIRE_TIME_OFFSET = 40;
+    static final long OWNER_ID_OFFSET = 48;
+    static final long PRICE_OFFSET = 56;
+
+    static final byte END_OF_SEGMENT = 0;
+    static final byte ADD = 1;
+    static final byte REMOVE = 2;
+    static final byte MODIFY = 3;
+    static final byte EXPIRE = 4;
+    static final byte MASS_CANCEL = 5;
+    static final byte REJECT = 6;
+
+    static final byte BOTH_SIDES = -1;
+
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private JournalFormat() {
+    }
+
+    static Path segmentPath(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Fail when a journal or checkpoint file holds ticks of another price scale than the book, as its prices
+     * would be read as different prices.
+     */
+    static void checkPriceScale(double filePriceScale, double priceScale, Path path) {
+        if (Double.compare(filePriceScale, priceScale) != 0) {
+            throw new IllegalStateException("File " + path + " holds prices with a scale of " + filePriceScale
+                    + " ticks per unit, the book uses " + priceScale);
+        }
+    }
+}
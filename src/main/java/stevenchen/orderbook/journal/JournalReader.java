@@ -0,0 +1,169 @@
+package stevenchen.orderbook.journal;
+
+import stevenchen.orderbook.model.OrderType;
+import stevenchen.orderbook.model.Side;
+import stevenchen.orderbook.sequencer.OrderActionSlot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static stevenchen.orderbook.journal.JournalFormat.*;
+
+/**
+ * Reads the records of the segments in a journal directory, in sequence order, from a given sequence on.
+ * Each segment is memory-mapped and records are decoded straight into a reusable {@link OrderActionSlot}.
+ */
+public class JournalReader implements AutoCloseable {
+    private static final Side[] SIDES = Side.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+
+    private final List<Path> segmentPaths;
+    private final long fromSequence;
+    private final double priceScale;
+    private int segmentIndex;
+    private Arena arena;
+    private MemorySegment segment;
+    private long position;
+    private long sequence = -1;
+
+    /**
+     * @param priceScale the ticks per unit of price of the book, a segment written with another one fails the read
+     */
+    public JournalReader(Path directory, double priceScale) {
+        this(directory, 0, priceScale);
+    }
+
+    /**
+     * @param fromSequence records before this sequence are skipped, and so are the segments holding only such records
+     * @param priceScale the ticks per unit of price of the book, a segment written with another one fails the read
+     */
+    public JournalReader(Path directory, long fromSequence, double priceScale) {
+        this.fromSequence = fromSequence;
+        this.priceScale = priceScale;
+        this.segmentPaths = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> allSegmentPaths;
+        try (Stream<Path> paths = Files.list(directory)) {
+            allSegmentPaths = paths.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (int i = 0; i < allSegmentPaths.size(); i++) {
+            // a segment ends before the first sequence of the next one
+            if (i + 1 < allSegmentPaths.size() && firstSequence(allSegmentPaths.get(i + 1)) <= fromSequence) {
+                continue;
+            }
+            segmentPaths.add(allSegmentPaths.get(i));
+        }
+    }
+
+    private static long firstSequence(Path segmentPath) {
+        String fileName = segmentPath.getFileName().toString();
+        return Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Decode the next record into the slot, skipping REJECT markers.
+     * @return false if there are no more records
+     */
+    public boolean next(OrderActionSlot slot) {
+        while (true) {
+            if (segment != null && position + RECORD_SIZE <= segment.byteSize()) {
+                byte type = segment.get(BYTE, position + TYPE_OFFSET);
+                if (type == REJECT) {
+                    sequence = segment.get(LONG, position + SEQUENCE_OFFSET);
+                    position += RECORD_SIZE;
+                    continue;
+                }
+                if (type != END_OF_SEGMENT) {
+                    decode(type, slot);
+                    position += RECORD_SIZE;
+                    if (sequence >= fromSequence) {
+                        return true;
+                    }
+                    continue;
+                }
+            }
+            if (segmentIndex == segmentPaths.size()) {
+                closeSegment();
+                return false;
+            }
+            openSegment(segmentPaths.get(segmentIndex++));
+        }
+    }
+
+    private void decode(byte type, OrderActionSlot slot) {
+        sequence = segment.get(LONG, position + SEQUENCE_OFFSET);
+        long orderId = segment.get(LONG, position + ORDER_ID_OFFSET);
+        switch (type) {
+            case ADD -> slot.setAddAction(orderId,
+                    segment.get(LONG, position + PRICE_OFFSET),
+                    SIDES[segment.get(BYTE, position + SIDE_OFFSET)],
+                    segment.get(LONG, position + SIZE_OFFSET),
+                    segment.get(LONG, position + ORDER_TIME_OFFSET),
+                    ORDER_TYPES[segment.get(BYTE, position + ORDER_TYPE_OFFSET)],
+                    segment.get(LONG, position + EXPIRE_TIME_OFFSET),
+                    segment.get(LONG, position + OWNER_ID_OFFSET));
+            case REMOVE -> slot.setRemoveAction(orderId);
+            case MODIFY -> slot.setModifyAction(orderId, segment.get(LONG, position + SIZE_OFFSET));
+            case EXPIRE -> slot.setExpireAction(segment.get(LONG, position + ORDER_TIME_OFFSET));
+            case MASS_CANCEL -> {
+                byte side = segment.get(BYTE, position + SIDE_OFFSET);
+                slot.setMassCancelAction(orderId, side == BOTH_SIDES ? null : SIDES[side],
+                        segment.get(LONG, position + PRICE_OFFSET), segment.get(LONG, position + SIZE_OFFSET));
+            }
+            default -> throw new IllegalStateException("Corrupted journal record type " + type + " at sequence " + sequence);
+        }
+    }
+
+    /**
+     * @return the sequence of the last record read, REJECT markers included, which may be before the from sequence
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    private void openSegment(Path path) {
+        closeSegment();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            arena = Arena.ofConfined();
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read journal segment " + path, e);
+        }
+        if (segment.byteSize() < HEADER_SIZE || segment.get(INT, MAGIC_OFFSET) == 0) {
+            // created but not written before a crash
+            position = segment.byteSize();
+            return;
+        }
+        if (segment.get(INT, MAGIC_OFFSET) != MAGIC) {
+            throw new IllegalStateException("Not a journal segment: " + path);
+        }
+        checkPriceScale(segment.get(DOUBLE, PRICE_SCALE_OFFSET), priceScale, path);
+        position = HEADER_SIZE;
+    }
+
+    private void closeSegment() {
+        if (segment != null) {
+            arena.close();
+            segment = null;
+            arena = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        closeSegment();
+    }
+}
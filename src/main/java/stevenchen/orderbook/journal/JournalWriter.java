@@ -0,0 +1,188 @@
+package stevenchen.orderbook.journal;
+
+import stevenchen.orderbook.action.AddAction;
+import stevenchen.orderbook.action.ExpireAction;
+import stevenchen.orderbook.action.MassCancelAction;
+import stevenchen.orderbook.action.ModifyAction;
+import stevenchen.orderbook.action.OrderAction;
+import stevenchen.orderbook.action.RemoveAction;
+import stevenchen.orderbook.model.Side;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static stevenchen.orderbook.journal.JournalFormat.*;
+
+/**
+ * Appends order actions to memory-mapped, pre-sized journal segments.
+ * Only the processing thread of the OrderBook appends, in sequence order.
+ */
+public class JournalWriter implements AutoCloseable {
+    /**
+     * The smallest segment size, holding a single record. The segment header comes on top of the segment size.
+     */
+    public static final long MIN_SEGMENT_SIZE = RECORD_SIZE;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final double priceScale;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private Arena arena;
+    private MemorySegment segment;
+    private long position;
+    private boolean dirty;
+    private long lastFsyncNanos = System.nanoTime();
+
+    /**
+     * @param segmentSize size of the records of each segment file in bytes, rounded down to a whole number of records
+     * @param priceScale the ticks per unit of price of the book, written into every segment header
+     */
+    public JournalWriter(Path directory, long segmentSize, double priceScale, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) {
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Segment size must hold at least one record, got " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = HEADER_SIZE + segmentSize - segmentSize % RECORD_SIZE;
+        this.priceScale = priceScale;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncIntervalMillis * 1_000_000L;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void openSegment(long firstSequence) {
+        closeSegment();
+        Path path = segmentPath(directory, firstSequence);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            arena = Arena.ofShared();
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize, arena);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal segment " + path, e);
+        }
+        segment.set(DOUBLE, PRICE_SCALE_OFFSET, priceScale);
+        segment.set(INT, MAGIC_OFFSET, MAGIC);
+        position = HEADER_SIZE;
+    }
+
+    private void closeSegment() {
+        if (segment != null) {
+            segment.force();
+            arena.close();
+            segment = null;
+            arena = null;
+        }
+    }
+
+    public void append(long sequence, OrderAction orderAction) {
+        ensureCapacity(sequence);
+        byte type;
+        switch (orderAction) {
+            case AddAction addAction -> {
+                type = ADD;
+                segment.set(BYTE, position + SIDE_OFFSET, (byte) addAction.getSide().ordinal());
+                segment.set(BYTE, position + ORDER_TYPE_OFFSET, (byte) addAction.getOrderType().ordinal());
+                segment.set(LONG, position + PRICE_OFFSET, addAction.getPrice());
+                segment.set(LONG, position + ORDER_ID_OFFSET, addAction.getOrderId());
+                segment.set(LONG, position + SIZE_OFFSET, addAction.getSize());
+                segment.set(LONG, position + ORDER_TIME_OFFSET, addAction.getOrderTime());
+                segment.set(LONG, position + EXPIRE_TIME_OFFSET, addAction.getExpireTime());
+                segment.set(LONG, position + OWNER_ID_OFFSET, addAction.getOwnerId());
+            }
+            case RemoveAction removeAction -> {
+                type = REMOVE;
+                segment.set(LONG, position + ORDER_ID_OFFSET, removeAction.getOrderId());
+            }
+            case ModifyAction modifyAction -> {
+                type = MODIFY;
+                segment.set(LONG, position + ORDER_ID_OFFSET, modifyAction.getOrderId());
+                segment.set(LONG, position + SIZE_OFFSET, modifyAction.getNewSize());
+            }
+            case ExpireAction expireAction -> {
+                type = EXPIRE;
+                segment.set(LONG, position + ORDER_TIME_OFFSET, expireAction.getTime());
+            }
+            case MassCancelAction massCancelAction -> {
+                type = MASS_CANCEL;
+                Side side = massCancelAction.getSide();
+                segment.set(BYTE, position + SIDE_OFFSET, side == null ? BOTH_SIDES : (byte) side.ordinal());
+                segment.set(LONG, position + PRICE_OFFSET, massCancelAction.getMinPrice());
+                segment.set(LONG, position + ORDER_ID_OFFSET, massCancelAction.getOwnerId());
+                segment.set(LONG, position + SIZE_OFFSET, massCancelAction.getMaxPrice());
+            }
+            default -> throw new IllegalArgumentException("Unknown OrderAction type");
+        }
+        commit(sequence, type);
+    }
+
+    /**
+     * Append a marker for an action rejected before it reached the book, so that its sequence, already reported
+     * to the caller, is not reused after recovery.
+     */
+    public void appendReject(long sequence) {
+        ensureCapacity(sequence);
+        commit(sequence, REJECT);
+    }
+
+    private void ensureCapacity(long sequence) {
+        if (segment == null || position + RECORD_SIZE > segmentSize) {
+            openSegment(sequence);
+        }
+    }
+
+    private void commit(long sequence, byte type) {
+        segment.set(LONG, position + SEQUENCE_OFFSET, sequence);
+        segment.set(BYTE, position + TYPE_OFFSET, type);
+        position += RECORD_SIZE;
+        dirty = true;
+    }
+
+    /**
+     * Called at the end of every batch, forces the segment to disk according to the FsyncPolicy.
+     */
+    public void endBatch() {
+        forceIfDue();
+    }
+
+    /**
+     * @return whether records were appended since the last force and are left for a later force by FsyncPolicy.INTERVAL,
+     * the processing thread must then call {@link #forceIfDue()} when it is idle, as no batch end may come
+     */
+    public boolean isForcePending() {
+        return dirty && fsyncPolicy == FsyncPolicy.INTERVAL;
+    }
+
+    public long getFsyncIntervalNanos() {
+        return fsyncIntervalNanos;
+    }
+
+    /**
+     * Force the segment to disk if the FsyncPolicy requires it: at every call for PER_BATCH, once the interval
+     * has passed since the last force for INTERVAL.
+     */
+    public void forceIfDue() {
+        if (!dirty || fsyncPolicy == FsyncPolicy.NONE) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (fsyncPolicy == FsyncPolicy.PER_BATCH || now - lastFsyncNanos >= fsyncIntervalNanos) {
+            segment.force();
+            lastFsyncNanos = now;
+            dirty = false;
+        }
+    }
+
+    @Override
+    public void close() {
+        closeSegment();
+    }
+}
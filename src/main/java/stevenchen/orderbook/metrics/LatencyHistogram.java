@@ -0,0 +1,95 @@
+package stevenchen.orderbook.metrics;
+
+/**
+ * An immutable histogram of latencies in nanoseconds, in log-linear buckets like an HDR histogram.
+ * <p>
+ * Values below 64 have their own bucket. Above that, every power of 2 is split into 32 buckets,
+ * so a recorded value is off by less than 1/32 (about 3%) wherever it falls in the range of a long.
+ */
+public class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    static final int LINEAR_LIMIT = 2 * SUB_BUCKET_COUNT;
+    static final int BUCKET_COUNT = LINEAR_LIMIT + (62 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final long[] counts;
+    private final long totalCount;
+
+    LatencyHistogram(long[] counts) {
+        this.counts = counts;
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        this.totalCount = total;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return value < 0 ? 0 : (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKET_COUNT + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+    }
+
+    /**
+     * @return the highest value that falls into the given bucket
+     */
+    static long bucketHighestValue(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKET_COUNT + 1;
+        long subBucket = (index - LINEAR_LIMIT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the highest value of the bucket holding the given percentile, or 0 if the histogram is empty
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100, got " + percentile);
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return bucketHighestValue(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the highest value of the highest non-empty bucket, or 0 if the histogram is empty
+     */
+    public long getMaxValue() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] > 0) {
+                return bucketHighestValue(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the mean of the bucket values, or 0 if the histogram is empty
+     */
+    public double getMean() {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = 0; i < counts.length; i++) {
+            sum += (double) counts[i] * bucketHighestValue(i);
+        }
+        return sum / totalCount;
+    }
+}
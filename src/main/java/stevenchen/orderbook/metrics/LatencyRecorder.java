@@ -0,0 +1,37 @@
+package stevenchen.orderbook.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records latencies into the buckets of a {@link LatencyHistogram}.
+ * <p>
+ * There is a single writer, the processing thread, so recording is a plain increment published with a lazy set,
+ * with no CAS and no allocation. Readers take interval histograms by diffing the counts against the previous interval.
+ */
+public class LatencyRecorder {
+    private final AtomicLongArray counts = new AtomicLongArray(LatencyHistogram.BUCKET_COUNT);
+    // cumulative counts at the end of the previous interval, only used by the reader
+    private final long[] previousCounts = new long[LatencyHistogram.BUCKET_COUNT];
+
+    /**
+     * Record a value, must only be called by the single writer thread.
+     */
+    public void record(long value) {
+        int index = LatencyHistogram.bucketIndex(value);
+        counts.lazySet(index, counts.get(index) + 1);
+    }
+
+    /**
+     * Close the current interval. Readers must not call this concurrently.
+     * @return the values recorded since the previous interval was closed
+     */
+    public LatencyHistogram closeInterval() {
+        long[] intervalCounts = new long[previousCounts.length];
+        for (int i = 0; i < previousCounts.length; i++) {
+            long count = counts.get(i);
+            intervalCounts[i] = count - previousCounts[i];
+            previousCounts[i] = count;
+        }
+        return new LatencyHistogram(intervalCounts);
+    }
+}
@@ -0,0 +1,92 @@
+package stevenchen.orderbook.metrics;
+
+import stevenchen.orderbook.action.ActionType;
+
+/**
+ * The metrics of one interval, between two calls to {@link OrderBookMetrics#snapshot()}.
+ */
+public class MetricsSnapshot {
+    private final long intervalNanos;
+    private final long queueDepth;
+    private final long maxQueueDepth;
+    private final long allocatedBytes;
+    private final LatencyHistogram[] queueWaits;
+    private final LatencyHistogram[] serviceTimes;
+
+    MetricsSnapshot(long intervalNanos, long queueDepth, long maxQueueDepth, long allocatedBytes,
+                    LatencyHistogram[] queueWaits, LatencyHistogram[] serviceTimes) {
+        this.intervalNanos = intervalNanos;
+        this.queueDepth = queueDepth;
+        this.maxQueueDepth = maxQueueDepth;
+        this.allocatedBytes = allocatedBytes;
+        this.queueWaits = queueWaits;
+        this.serviceTimes = serviceTimes;
+    }
+
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * @return the number of actions published and not yet processed when the snapshot was taken
+     */
+    public long getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return the highest number of pending actions seen by the processing thread at the start of a batch
+     */
+    public long getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * @return the time the actions of the given type spent in the ring buffer, from publish to the start of processing
+     */
+    public LatencyHistogram getQueueWait(ActionType actionType) {
+        return queueWaits[actionType.ordinal()];
+    }
+
+    /**
+     * @return the time spent applying the actions of the given type to the book
+     */
+    public LatencyHistogram getServiceTime(ActionType actionType) {
+        return serviceTimes[actionType.ordinal()];
+    }
+
+    public long getActionCount(ActionType actionType) {
+        return serviceTimes[actionType.ordinal()].getCount();
+    }
+
+    public long getActionCount() {
+        long count = 0;
+        for (LatencyHistogram serviceTime : serviceTimes) {
+            count += serviceTime.getCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return the bytes allocated by the processing thread while it applied the actions of the interval,
+     * 0 if the JVM does not count allocations per thread
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return the bytes allocated by the processing thread per action processed during the interval
+     */
+    public double getAllocatedBytesPerAction() {
+        long actionCount = getActionCount();
+        return actionCount == 0 ? 0 : (double) allocatedBytes / actionCount;
+    }
+
+    /**
+     * @return the number of actions processed per second during the interval
+     */
+    public double getThroughput() {
+        return intervalNanos == 0 ? 0 : getActionCount() * 1e9 / intervalNanos;
+    }
+}
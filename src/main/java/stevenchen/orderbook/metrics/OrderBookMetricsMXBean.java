@@ -0,0 +1,29 @@
+package stevenchen.orderbook.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link OrderBookMetrics}. Apart from the queue depth, the values are those of the latest interval,
+ * closed by {@link OrderBookMetrics#snapshot()} or by the {@link #closeInterval()} operation.
+ */
+public interface OrderBookMetricsMXBean {
+    long getQueueDepth();
+
+    long getMaxQueueDepth();
+
+    long getActionCount();
+
+    double getThroughput();
+
+    /**
+     * @return the bytes allocated by the processing thread per processed action
+     */
+    double getAllocatedBytesPerAction();
+
+    /**
+     * @return the queue wait and service time percentiles per action type, keyed like "ADD.queueWait.p99"
+     */
+    Map<String, Long> getLatencyNanos();
+
+    void closeInterval();
+}
@@ -0,0 +1,223 @@
+package stevenchen.orderbook.model;
+
+import stevenchen.orderbook.util.MemoryEstimates;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A price ladder: levels are stored in a contiguous array indexed by (price - basePrice),
+ * with a BitSet of non-empty slots to find the next level without visiting empty prices.
+ * <p>
+ * The index of the best level is tracked on every insert and remove, so the top of the book is an array read.
+ * When a price falls outside the array, the ladder is recentered around the occupied range,
+ * doubling its capacity if the range does not fit, up to a maximum capacity. A level further than that from the
+ * other levels cannot be held, which the book checks with {@link #canHold(long)} before inserting it.
+ */
+public class ArrayOrderLevelMap implements OrderLevelMap {
+    public static final int MAX_CAPACITY = 1 << 30;
+
+    private final Side side;
+    private final int maxCapacity;
+    private OrderLevelBucket[] levels;
+    private BitSet occupied;
+    private long basePrice;
+    private int bestIndex = -1;
+    private int size;
+
+    /**
+     * @param basePrice price in ticks stored at index 0
+     * @param capacity number of consecutive prices the ladder can hold before recentering
+     */
+    public ArrayOrderLevelMap(Side side, long basePrice, int capacity) {
+        this(side, basePrice, capacity, MAX_CAPACITY);
+    }
+
+    /**
+     * @param maxCapacity number of consecutive prices the ladder can grow to, at most {@link #MAX_CAPACITY}
+     */
+    public ArrayOrderLevelMap(Side side, long basePrice, int capacity, int maxCapacity) {
+        if (maxCapacity <= 0 || maxCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Maximum capacity must be between 1 and " + MAX_CAPACITY + ", got " + maxCapacity);
+        }
+        if (capacity <= 0 || capacity > maxCapacity) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + maxCapacity + ", got " + capacity);
+        }
+        this.side = side;
+        this.maxCapacity = maxCapacity;
+        this.basePrice = basePrice;
+        this.levels = new OrderLevelBucket[capacity];
+        this.occupied = new BitSet(capacity);
+    }
+
+    @Override
+    public Side getSide() {
+        return side;
+    }
+
+    @Override
+    public OrderLevelBucket get(long price) {
+        long index = price - basePrice;
+        if (index < 0 || index >= levels.length) {
+            return null;
+        }
+        return levels[(int) index];
+    }
+
+    @Override
+    public void put(OrderLevelBucket orderLevelBucket) {
+        long price = orderLevelBucket.getPrice();
+        if (price - basePrice < 0 || price - basePrice >= levels.length) {
+            recenter(price);
+        }
+        int index = (int) (price - basePrice);
+        if (levels[index] != null) {
+            throw new IllegalArgumentException("Level " + price + " already exists");
+        }
+        levels[index] = orderLevelBucket;
+        occupied.set(index);
+        size++;
+        if (bestIndex < 0 || isBetter(index, bestIndex)) {
+            bestIndex = index;
+        }
+    }
+
+    @Override
+    public OrderLevelBucket remove(long price) {
+        long offset = price - basePrice;
+        if (offset < 0 || offset >= levels.length || levels[(int) offset] == null) {
+            return null;
+        }
+        int index = (int) offset;
+        OrderLevelBucket orderLevelBucket = levels[index];
+        levels[index] = null;
+        occupied.clear(index);
+        size--;
+        if (index == bestIndex) {
+            bestIndex = nextIndex(index);
+        }
+        return orderLevelBucket;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the estimated size of the ladder, which depends on its capacity rather than on the number of levels
+     */
+    @Override
+    public long estimatedBytes() {
+        return MemoryEstimates.objectBytes(3 * MemoryEstimates.REFERENCE_BYTES + Long.BYTES + 2 * Integer.BYTES)
+                + MemoryEstimates.arrayBytes(levels.length, MemoryEstimates.REFERENCE_BYTES)
+                // BitSet object and its words
+                + MemoryEstimates.objectBytes(MemoryEstimates.REFERENCE_BYTES + Integer.BYTES + 1)
+                + MemoryEstimates.arrayBytes(occupied.size() / Long.SIZE, Long.BYTES);
+    }
+
+    /**
+     * @return the best level, or null if the ladder is empty
+     */
+    public OrderLevelBucket getBest() {
+        return bestIndex < 0 ? null : levels[bestIndex];
+    }
+
+    public long getBasePrice() {
+        return basePrice;
+    }
+
+    public int getCapacity() {
+        return levels.length;
+    }
+
+    public int getMaxCapacity() {
+        return maxCapacity;
+    }
+
+    /**
+     * @return whether a level at the given price fits within the maximum capacity together with the other levels
+     */
+    @Override
+    public boolean canHold(long price) {
+        return (price - basePrice >= 0 && price - basePrice < levels.length) || occupiedSpan(price) <= maxCapacity;
+    }
+
+    /**
+     * @return the lowest price of the levels and the given price
+     */
+    private long lowestPrice(long price) {
+        return size == 0 ? price : Math.min(price, basePrice + occupied.nextSetBit(0));
+    }
+
+    /**
+     * @return the highest price of the levels and the given price
+     */
+    private long highestPrice(long price) {
+        return size == 0 ? price : Math.max(price, basePrice + occupied.previousSetBit(levels.length - 1));
+    }
+
+    private long occupiedSpan(long price) {
+        return highestPrice(price) - lowestPrice(price) + 1;
+    }
+
+    private boolean isBetter(int index, int otherIndex) {
+        return side == Side.BID ? index > otherIndex : index < otherIndex;
+    }
+
+    /**
+     * @return the index of the next non-empty level after the given one in priority order, or -1
+     */
+    private int nextIndex(int index) {
+        return side == Side.BID ? occupied.previousSetBit(index - 1) : occupied.nextSetBit(index + 1);
+    }
+
+    private void recenter(long price) {
+        long low = lowestPrice(price);
+        long span = highestPrice(price) - low + 1;
+        if (span > maxCapacity) {
+            throw new IllegalArgumentException("Price " + price + " is more than " + maxCapacity + " ticks away from the other levels of the ladder");
+        }
+        int capacity = levels.length;
+        while (capacity < span) {
+            capacity = (int) Math.min(2L * capacity, maxCapacity);
+        }
+        long newBasePrice = low - (capacity - span) / 2;
+        OrderLevelBucket[] newLevels = new OrderLevelBucket[capacity];
+        BitSet newOccupied = new BitSet(capacity);
+        int shift = (int) (basePrice - newBasePrice);
+        for (int i = occupied.nextSetBit(0); i >= 0; i = occupied.nextSetBit(i + 1)) {
+            newLevels[i + shift] = levels[i];
+            newOccupied.set(i + shift);
+        }
+        if (bestIndex >= 0) {
+            bestIndex += shift;
+        }
+        levels = newLevels;
+        occupied = newOccupied;
+        basePrice = newBasePrice;
+    }
+
+    @Override
+    public Iterator<OrderLevelBucket> iterator() {
+        return new Iterator<>() {
+            private int index = bestIndex;
+
+            @Override
+            public boolean hasNext() {
+                return index >= 0;
+            }
+
+            @Override
+            public OrderLevelBucket next() {
+                if (index < 0) {
+                    throw new NoSuchElementException();
+                }
+                OrderLevelBucket orderLevelBucket = levels[index];
+                index = nextIndex(index);
+                return orderLevelBucket;
+            }
+        };
+    }
+}
@@ -0,0 +1,201 @@
+package stevenchen.orderbook.model;
+
+/**
+ * Prefix sums of the level sizes of one side of the book, in a Fenwick tree indexed by price.
+ * <p>
+ * Positions are numbered from the best end of a band of consecutive prices, so the prefix up to a position is the size
+ * available at that price or better. A second tree holds size times the offset of the price from the base of the band,
+ * which gives the cost of sweeping the side. Offsets are bounded by the capacity, so the tree does not overflow with the
+ * large tick counts of fine-tick instruments, as size times price would.
+ * Every update and query is O(log C) for a band of C prices. OrderLevelBucket reports its size changes,
+ * and a price outside the band recenters the band around the occupied prices, doubling it if needed up to a maximum
+ * capacity, and rebuilds both trees from the level map. The book checks {@link #canHold(long)} before adding a level,
+ * so a size change never has to recenter beyond the maximum.
+ */
+public class CumulativeDepthIndex {
+    private final OrderLevelMap orderLevelMap;
+    private final Side side;
+    private final int maxCapacity;
+    private long basePrice;
+    private int capacity;
+    // 1-based Fenwick trees
+    private long[] sizes;
+    // size times the offset of the price from basePrice
+    private long[] notionals;
+    // notional relative to basePrice and size of the levels before the position found by the last search
+    private long notionalBefore;
+    private long sizeBefore;
+
+    /**
+     * @param basePrice lowest price in ticks of the initial band
+     * @param capacity number of consecutive prices of the initial band
+     */
+    public CumulativeDepthIndex(OrderLevelMap orderLevelMap, long basePrice, int capacity) {
+        this(orderLevelMap, basePrice, capacity, ArrayOrderLevelMap.MAX_CAPACITY);
+    }
+
+    /**
+     * @param maxCapacity number of consecutive prices the band can grow to, at most {@link ArrayOrderLevelMap#MAX_CAPACITY}
+     */
+    public CumulativeDepthIndex(OrderLevelMap orderLevelMap, long basePrice, int capacity, int maxCapacity) {
+        if (maxCapacity <= 0 || maxCapacity > ArrayOrderLevelMap.MAX_CAPACITY) {
+            throw new IllegalArgumentException("Maximum capacity must be between 1 and " + ArrayOrderLevelMap.MAX_CAPACITY + ", got " + maxCapacity);
+        }
+        if (capacity <= 0 || capacity > maxCapacity) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + maxCapacity + ", got " + capacity);
+        }
+        this.orderLevelMap = orderLevelMap;
+        this.side = orderLevelMap.getSide();
+        this.maxCapacity = maxCapacity;
+        this.basePrice = basePrice;
+        this.capacity = capacity;
+        this.sizes = new long[capacity + 1];
+        this.notionals = new long[capacity + 1];
+    }
+
+    /**
+     * Notify the index that the total size of a level changed. The level must already be in the level map.
+     */
+    public void sizeChanged(OrderLevelBucket orderLevelBucket, long delta) {
+        long price = orderLevelBucket.getPrice();
+        if (price < basePrice || price - basePrice >= capacity) {
+            // the rebuild reads the new total size of the level, so the delta is already included
+            recenter(price);
+            return;
+        }
+        add((int) position(price), delta, delta * (price - basePrice));
+    }
+
+    /**
+     * @return whether a level at the given price fits within the maximum capacity together with the levels of the map,
+     * in O(1) inside the band and O(L) outside it
+     */
+    public boolean canHold(long price) {
+        return (price >= basePrice && price - basePrice < capacity) || occupiedSpan(price) <= maxCapacity;
+    }
+
+    private long occupiedSpan(long price) {
+        long low = price;
+        long high = price;
+        for (OrderLevelBucket orderLevelBucket : orderLevelMap) {
+            low = Math.min(low, orderLevelBucket.getPrice());
+            high = Math.max(high, orderLevelBucket.getPrice());
+        }
+        return high - low + 1;
+    }
+
+    /**
+     * Get the size of the levels at the given price or better.
+     */
+    public long cumulativeSize(long price) {
+        // a price beyond the band counts everything before or after it
+        return prefix(sizes, (int) Math.max(0, Math.min(position(price), capacity)));
+    }
+
+    public long getTotalSize() {
+        return prefix(sizes, capacity);
+    }
+
+    /**
+     * Get the worst price reached when sweeping the given quantity from the best price.
+     * @param quantity positive and at most {@link #getTotalSize()}
+     */
+    public long priceForQuantity(long quantity) {
+        return price(search(quantity));
+    }
+
+    /**
+     * Get the average price paid when sweeping the given quantity from the best price.
+     * @param quantity positive and at most {@link #getTotalSize()}
+     * @return the average price in ticks
+     */
+    public double vwapForQuantity(long quantity) {
+        int position = search(quantity);
+        // the levels before the last one are swept entirely, the rest is filled at the last price
+        double notional = notionalBefore + (quantity - sizeBefore) * (double) (price(position) - basePrice);
+        return basePrice + notional / quantity;
+    }
+
+    public long getBasePrice() {
+        return basePrice;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Find the first position whose prefix size reaches the quantity, by descending the tree from the largest power
+     * of two.
+     */
+    private int search(long quantity) {
+        int position = 0;
+        long remaining = quantity;
+        notionalBefore = 0;
+        for (int step = Integer.highestOneBit(capacity); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= capacity && sizes[next] < remaining) {
+                position = next;
+                remaining -= sizes[next];
+                notionalBefore += notionals[next];
+            }
+        }
+        sizeBefore = quantity - remaining;
+        return position + 1;
+    }
+
+    private long position(long price) {
+        return side == Side.BID ? basePrice + capacity - price : price - basePrice + 1;
+    }
+
+    private long price(int position) {
+        return side == Side.BID ? basePrice + capacity - position : basePrice + position - 1;
+    }
+
+    private void add(int position, long size, long notional) {
+        for (int i = position; i <= capacity; i += i & -i) {
+            sizes[i] += size;
+            notionals[i] += notional;
+        }
+    }
+
+    private static long prefix(long[] tree, int position) {
+        long sum = 0;
+        for (int i = position; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void recenter(long price) {
+        long low = price;
+        long high = price;
+        for (OrderLevelBucket orderLevelBucket : orderLevelMap) {
+            low = Math.min(low, orderLevelBucket.getPrice());
+            high = Math.max(high, orderLevelBucket.getPrice());
+        }
+        long span = high - low + 1;
+        if (span > maxCapacity) {
+            throw new IllegalArgumentException("Price " + price + " is more than " + maxCapacity + " ticks away from the other levels");
+        }
+        while (capacity < span) {
+            capacity = (int) Math.min(2L * capacity, maxCapacity);
+        }
+        basePrice = low - (capacity - span) / 2;
+        sizes = new long[capacity + 1];
+        notionals = new long[capacity + 1];
+        for (OrderLevelBucket orderLevelBucket : orderLevelMap) {
+            int position = (int) position(orderLevelBucket.getPrice());
+            sizes[position] = orderLevelBucket.getTotalSize();
+            notionals[position] = orderLevelBucket.getTotalSize() * (orderLevelBucket.getPrice() - basePrice);
+        }
+        // turn the values into a Fenwick tree in O(C), by pushing each node into its parent
+        for (int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                sizes[parent] += sizes[i];
+                notionals[parent] += notionals[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package stevenchen.orderbook.model;
+
+import java.util.Arrays;
+
+/**
+ * A hierarchical timing wheel of good-till-time orders, linked through the timer links of their OrderStore records.
+ * <p>
+ * Time is cut into ticks of a fixed number of milliseconds. Level 0 has a slot per tick for the next 64 ticks, each
+ * higher level has a slot per 64 slots of the level below, so 4 levels cover 64^4 ticks. Scheduling and cancelling
+ * are O(1). Advancing fires the level 0 slot of every tick passed, and every 64 ticks moves the orders of the next
+ * slot of a higher level down to where they now belong, so each order is moved at most once per level and the book
+ * is never scanned. Orders further out than the wheel covers are parked in the last slot and placed again when it
+ * comes round.
+ * <p>
+ * The wheel only moves on {@link #advance(long, ExpiryHandler)}, and an order due at tick t fires on the first
+ * advance to tick t or later, so replaying the same adds, removes and advances expires the same orders.
+ * Orders scheduled before the first advance wait in a pending list, since the wheel does not know the time yet.
+ */
+public class ExpiryTimingWheel {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final int PENDING = LEVELS * SLOTS;
+    // the timer prev link of the first order of a slot holds the slot, encoded below NULL_HANDLE,
+    // so an order is unlinked in O(1) wherever it is
+    private static final int HEAD_MARKER = OrderStore.NULL_HANDLE - 1;
+
+    /**
+     * Receives the orders that expire, the order is already unlinked from the wheel.
+     */
+    public interface ExpiryHandler {
+        void expired(int handle);
+    }
+
+    private final OrderStore orderStore;
+    private final long tickMillis;
+    private final int[] heads = new int[PENDING + 1];
+    private boolean started;
+    // next tick to fire
+    private long currentTick;
+    private int size;
+
+    public ExpiryTimingWheel(OrderStore orderStore, long tickMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive, got " + tickMillis);
+        }
+        this.orderStore = orderStore;
+        this.tickMillis = tickMillis;
+        Arrays.fill(heads, OrderStore.NULL_HANDLE);
+    }
+
+    /**
+     * Schedule an order at the expire time of its record.
+     */
+    public void schedule(int handle) {
+        size++;
+        if (!started) {
+            link(handle, PENDING);
+            return;
+        }
+        place(handle);
+    }
+
+    /**
+     * Remove an order from the wheel, does nothing if it is not scheduled.
+     */
+    public void cancel(int handle) {
+        if (orderStore.getTimerPrev(handle) == OrderStore.NULL_HANDLE) {
+            return;
+        }
+        unlink(handle);
+        size--;
+    }
+
+    /**
+     * Fire every order due at the tick of the given time or before.
+     * @param time epoch milliseconds, an earlier time than the last advance does nothing
+     */
+    public void advance(long time, ExpiryHandler expiryHandler) {
+        long targetTick = Math.floorDiv(time, tickMillis);
+        if (!started) {
+            started = true;
+            currentTick = targetTick;
+            int handle = detach(PENDING);
+            while (handle != OrderStore.NULL_HANDLE) {
+                int next = orderStore.getTimerNext(handle);
+                place(handle);
+                handle = next;
+            }
+        }
+        while (currentTick <= targetTick) {
+            if (size == 0) {
+                currentTick = targetTick + 1;
+                return;
+            }
+            if ((currentTick & SLOT_MASK) == 0) {
+                cascade();
+            }
+            int handle = detach((int) (currentTick & SLOT_MASK));
+            while (handle != OrderStore.NULL_HANDLE) {
+                int next = orderStore.getTimerNext(handle);
+                orderStore.setTimerPrev(handle, OrderStore.NULL_HANDLE);
+                orderStore.setTimerNext(handle, OrderStore.NULL_HANDLE);
+                size--;
+                expiryHandler.expired(handle);
+                handle = next;
+            }
+            currentTick++;
+        }
+    }
+
+    /**
+     * Get the time from which the next advance can fire or move orders, so the caller does not advance for nothing.
+     * @return epoch milliseconds, Long.MAX_VALUE if no order is scheduled, Long.MIN_VALUE before the first advance
+     */
+    public long getNextAdvanceTime() {
+        if (size == 0) {
+            return Long.MAX_VALUE;
+        }
+        if (!started) {
+            return Long.MIN_VALUE;
+        }
+        long tick = currentTick;
+        // the first non-empty level 0 slot, or the next cascade
+        do {
+            if (heads[(int) (tick & SLOT_MASK)] != OrderStore.NULL_HANDLE) {
+                break;
+            }
+            tick++;
+        } while ((tick & SLOT_MASK) != 0);
+        return tick * tickMillis;
+    }
+
+    /**
+     * @return the number of scheduled orders
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Move the orders of the higher level slots that start at the current tick down the wheel.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            long levelTick = currentTick >> (SLOT_BITS * level);
+            int handle = detach(level * SLOTS + (int) (levelTick & SLOT_MASK));
+            while (handle != OrderStore.NULL_HANDLE) {
+                int next = orderStore.getTimerNext(handle);
+                place(handle);
+                handle = next;
+            }
+            if ((levelTick & SLOT_MASK) != 0) {
+                break;
+            }
+        }
+    }
+
+    private void place(int handle) {
+        long expireTick = Math.ceilDiv(orderStore.getExpireTime(handle), tickMillis);
+        long delta = expireTick - currentTick;
+        if (delta < 0) {
+            // overdue, fires on the next advance
+            expireTick = currentTick;
+            delta = 0;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        if (delta >= 1L << (SLOT_BITS * LEVELS)) {
+            expireTick = currentTick + (1L << (SLOT_BITS * LEVELS)) - 1;
+        }
+        link(handle, level * SLOTS + (int) ((expireTick >> (SLOT_BITS * level)) & SLOT_MASK));
+    }
+
+    private void link(int handle, int slot) {
+        int head = heads[slot];
+        orderStore.setTimerPrev(handle, HEAD_MARKER - slot);
+        orderStore.setTimerNext(handle, head);
+        if (head != OrderStore.NULL_HANDLE) {
+            orderStore.setTimerPrev(head, handle);
+        }
+        heads[slot] = handle;
+    }
+
+    private void unlink(int handle) {
+        int prev = orderStore.getTimerPrev(handle);
+        int next = orderStore.getTimerNext(handle);
+        if (prev <= HEAD_MARKER) {
+            heads[HEAD_MARKER - prev] = next;
+            if (next != OrderStore.NULL_HANDLE) {
+                orderStore.setTimerPrev(next, prev);
+            }
+        } else {
+            orderStore.setTimerNext(prev, next);
+            if (next != OrderStore.NULL_HANDLE) {
+                orderStore.setTimerPrev(next, prev);
+            }
+        }
+        orderStore.setTimerPrev(handle, OrderStore.NULL_HANDLE);
+        orderStore.setTimerNext(handle, OrderStore.NULL_HANDLE);
+    }
+
+    /**
+     * Empty a slot.
+     * @return the first order of its list, the orders keep their next links
+     */
+    private int detach(int slot) {
+        int head = heads[slot];
+        heads[slot] = OrderStore.NULL_HANDLE;
+        return head;
+    }
+}
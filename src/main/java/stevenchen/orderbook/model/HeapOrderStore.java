@@ -0,0 +1,250 @@
+package stevenchen.orderbook.model;
+
+import stevenchen.orderbook.util.MemoryEstimates;
+
+import java.util.Arrays;
+
+/**
+ * An OrderStore keeping each field in its own primitive array, so a record costs no object header
+ * and no reference, and the whole store is a handful of arrays for the garbage collector.
+ */
+public class HeapOrderStore implements OrderStore {
+    private static final Side[] SIDES = Side.values();
+
+    private long[] orderIds;
+    private long[] sizes;
+    private long[] orderTimes;
+    private long[] expireTimes;
+    private long[] ownerIds;
+    private long[] prices;
+    private int[] prevs;
+    private int[] nexts;
+    private int[] timerPrevs;
+    private int[] timerNexts;
+    private int[] ownerPrevs;
+    private int[] ownerNexts;
+    private byte[] sides;
+    private int used;
+    private int size;
+    private int freeHead = NULL_HANDLE;
+
+    public HeapOrderStore(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be positive, got " + initialCapacity);
+        }
+        orderIds = new long[initialCapacity];
+        sizes = new long[initialCapacity];
+        orderTimes = new long[initialCapacity];
+        expireTimes = new long[initialCapacity];
+        ownerIds = new long[initialCapacity];
+        prices = new long[initialCapacity];
+        prevs = new int[initialCapacity];
+        nexts = new int[initialCapacity];
+        timerPrevs = new int[initialCapacity];
+        timerNexts = new int[initialCapacity];
+        ownerPrevs = new int[initialCapacity];
+        ownerNexts = new int[initialCapacity];
+        sides = new byte[initialCapacity];
+    }
+
+    @Override
+    public int allocate(long orderId, long price, Side side, long size, long orderTime) {
+        int handle;
+        if (freeHead != NULL_HANDLE) {
+            handle = freeHead;
+            freeHead = nexts[handle];
+        } else {
+            if (used == orderIds.length) {
+                grow();
+            }
+            handle = used++;
+        }
+        orderIds[handle] = orderId;
+        prices[handle] = price;
+        sides[handle] = (byte) side.ordinal();
+        sizes[handle] = size;
+        orderTimes[handle] = orderTime;
+        expireTimes[handle] = 0;
+        ownerIds[handle] = 0;
+        prevs[handle] = NULL_HANDLE;
+        nexts[handle] = NULL_HANDLE;
+        timerPrevs[handle] = NULL_HANDLE;
+        timerNexts[handle] = NULL_HANDLE;
+        ownerPrevs[handle] = NULL_HANDLE;
+        ownerNexts[handle] = NULL_HANDLE;
+        this.size++;
+        return handle;
+    }
+
+    private void grow() {
+        resize(orderIds.length * 2);
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        if (capacity > orderIds.length) {
+            resize(capacity);
+        }
+    }
+
+    private void resize(int capacity) {
+        orderIds = Arrays.copyOf(orderIds, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        orderTimes = Arrays.copyOf(orderTimes, capacity);
+        expireTimes = Arrays.copyOf(expireTimes, capacity);
+        ownerIds = Arrays.copyOf(ownerIds, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        prevs = Arrays.copyOf(prevs, capacity);
+        nexts = Arrays.copyOf(nexts, capacity);
+        timerPrevs = Arrays.copyOf(timerPrevs, capacity);
+        timerNexts = Arrays.copyOf(timerNexts, capacity);
+        ownerPrevs = Arrays.copyOf(ownerPrevs, capacity);
+        ownerNexts = Arrays.copyOf(ownerNexts, capacity);
+        sides = Arrays.copyOf(sides, capacity);
+    }
+
+    @Override
+    public void free(int handle) {
+        nexts[handle] = freeHead;
+        freeHead = handle;
+        size--;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int capacity() {
+        return orderIds.length;
+    }
+
+    @Override
+    public long estimatedHeapBytes() {
+        long capacity = orderIds.length;
+        return MemoryEstimates.objectBytes(13 * MemoryEstimates.REFERENCE_BYTES + 3 * Integer.BYTES)
+                + 6 * MemoryEstimates.arrayBytes(capacity, Long.BYTES)
+                + 6 * MemoryEstimates.arrayBytes(capacity, Integer.BYTES)
+                + MemoryEstimates.arrayBytes(capacity, Byte.BYTES);
+    }
+
+    @Override
+    public long offHeapBytes() {
+        return 0;
+    }
+
+    @Override
+    public long getOrderId(int handle) {
+        return orderIds[handle];
+    }
+
+    @Override
+    public long getPrice(int handle) {
+        return prices[handle];
+    }
+
+    @Override
+    public Side getSide(int handle) {
+        return SIDES[sides[handle]];
+    }
+
+    @Override
+    public long getSize(int handle) {
+        return sizes[handle];
+    }
+
+    @Override
+    public void setSize(int handle, long size) {
+        sizes[handle] = size;
+    }
+
+    @Override
+    public long getOrderTime(int handle) {
+        return orderTimes[handle];
+    }
+
+    @Override
+    public long getExpireTime(int handle) {
+        return expireTimes[handle];
+    }
+
+    @Override
+    public void setExpireTime(int handle, long expireTime) {
+        expireTimes[handle] = expireTime;
+    }
+
+    @Override
+    public int getTimerPrev(int handle) {
+        return timerPrevs[handle];
+    }
+
+    @Override
+    public void setTimerPrev(int handle, int prev) {
+        timerPrevs[handle] = prev;
+    }
+
+    @Override
+    public int getTimerNext(int handle) {
+        return timerNexts[handle];
+    }
+
+    @Override
+    public void setTimerNext(int handle, int next) {
+        timerNexts[handle] = next;
+    }
+
+    @Override
+    public long getOwnerId(int handle) {
+        return ownerIds[handle];
+    }
+
+    @Override
+    public void setOwnerId(int handle, long ownerId) {
+        ownerIds[handle] = ownerId;
+    }
+
+    @Override
+    public int getOwnerPrev(int handle) {
+        return ownerPrevs[handle];
+    }
+
+    @Override
+    public void setOwnerPrev(int handle, int prev) {
+        ownerPrevs[handle] = prev;
+    }
+
+    @Override
+    public int getOwnerNext(int handle) {
+        return ownerNexts[handle];
+    }
+
+    @Override
+    public void setOwnerNext(int handle, int next) {
+        ownerNexts[handle] = next;
+    }
+
+    @Override
+    public int getPrev(int handle) {
+        return prevs[handle];
+    }
+
+    @Override
+    public void setPrev(int handle, int prev) {
+        prevs[handle] = prev;
+    }
+
+    @Override
+    public int getNext(int handle) {
+        return nexts[handle];
+    }
+
+    @Override
+    public void setNext(int handle, int next) {
+        nexts[handle] = next;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,119 @@
+package stevenchen.orderbook.model;
+
+/**
+ * The price grid of the instrument traded in a book: its tick size and the range of prices it accepts.
+ * <p>
+ * Inside the book, prices are longs counting ticks, so levels, order records, actions and journal records never
+ * hold a double. {@link #toTicks(double)} rounds a price to the nearest tick with one multiplication by the
+ * precomputed number of ticks per unit of price, the price scale, and converting back divides by it. When the
+ * scale is a whole number, such as 100 for a tick of 0.01 or 100000000 for a tick of 1e-8, converting back
+ * gives the closest double to the decimal price.
+ * <p>
+ * The bounds keep tick counts within +/- 2^53, where every tick count converts to a double exactly.
+ * Immutable, so a single descriptor can be shared by the producers and the processing thread.
+ */
+public final class InstrumentDescriptor {
+    /**
+     * Largest absolute tick count a descriptor accepts.
+     */
+    public static final long MAX_TICKS = 1L << 53;
+    /**
+     * A tick of 0.01 with no other bound, the default of {@link stevenchen.orderbook.OrderBookConfig}.
+     */
+    public static final InstrumentDescriptor DEFAULT = new InstrumentDescriptor(0.01);
+
+    private final double tickSize;
+    private final double priceScale;
+    private final long minTicks;
+    private final long maxTicks;
+
+    /**
+     * A descriptor accepting any price within +/- {@link #MAX_TICKS} ticks.
+     */
+    public InstrumentDescriptor(double tickSize) {
+        this(tickSize, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @param minPrice lowest price accepted, inclusive, capped at -{@link #MAX_TICKS} ticks
+     * @param maxPrice highest price accepted, inclusive, capped at {@link #MAX_TICKS} ticks
+     */
+    public InstrumentDescriptor(double tickSize, double minPrice, double maxPrice) {
+        if (!(tickSize > 0) || Double.isInfinite(tickSize)) {
+            throw new IllegalArgumentException("Tick size must be positive, got " + tickSize);
+        }
+        if (!(minPrice <= maxPrice)) {
+            throw new IllegalArgumentException("Invalid price bounds " + minPrice + " to " + maxPrice);
+        }
+        double scale = 1 / tickSize;
+        double wholeScale = Math.rint(scale);
+        // 1 / 0.01 is not exactly 100 in binary, snap it so that converting back divides by the exact scale
+        this.priceScale = Math.abs(scale - wholeScale) <= wholeScale * 1e-9 ? wholeScale : scale;
+        this.tickSize = tickSize;
+        this.minTicks = Math.max(toTicks(minPrice), -MAX_TICKS);
+        this.maxTicks = Math.min(toTicks(maxPrice), MAX_TICKS);
+    }
+
+    public double getTickSize() {
+        return tickSize;
+    }
+
+    /**
+     * @return the number of ticks per unit of price
+     */
+    public double getPriceScale() {
+        return priceScale;
+    }
+
+    public double getMinPrice() {
+        return toPrice(minTicks);
+    }
+
+    public double getMaxPrice() {
+        return toPrice(maxTicks);
+    }
+
+    public long getMinTicks() {
+        return minTicks;
+    }
+
+    public long getMaxTicks() {
+        return maxTicks;
+    }
+
+    /**
+     * Convert a price to the nearest tick count, without checking the bounds. Used for queries and ranges,
+     * where a price outside the bounds is meaningful.
+     */
+    public long toTicks(double price) {
+        return Math.round(price * priceScale);
+    }
+
+    /**
+     * Convert the price of an order to the nearest tick count.
+     * @throws IllegalArgumentException if the price is outside the bounds or not a number
+     */
+    public long toValidTicks(double price) {
+        long ticks = Math.round(price * priceScale);
+        if (ticks < minTicks || ticks > maxTicks || price != price) {
+            throw new IllegalArgumentException("Price " + price + " is outside the bounds " + getMinPrice() + " to " + getMaxPrice());
+        }
+        return ticks;
+    }
+
+    /**
+     * @return whether a tick count received in ticks, such as from a binary message, is within the bounds
+     */
+    public boolean isValidTicks(long ticks) {
+        return ticks >= minTicks && ticks <= maxTicks;
+    }
+
+    public double toPrice(long ticks) {
+        return ticks / priceScale;
+    }
+
+    @Override
+    public String toString() {
+        return "InstrumentDescriptor[tickSize=" + tickSize + ", minPrice=" + getMinPrice() + ", maxPrice=" + getMaxPrice() + "]";
+    }
+}
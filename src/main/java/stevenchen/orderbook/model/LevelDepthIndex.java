@@ -0,0 +1,96 @@
+package stevenchen.orderbook.model;
+
+import java.util.Iterator;
+
+/**
+ * Keeps the top levels of one side of the book in an array so that level k can be read in O(1).
+ * <p>
+ * The array is only rebuilt when a level is created or removed within the cached depth,
+ * size changes are read directly from the running totals of the OrderLevelBucket.
+ */
+public class LevelDepthIndex {
+    private final OrderLevelMap orderLevelMap;
+    private final Side side;
+    private final OrderLevelBucket[] topLevels;
+    private int topLevelCount;
+    private boolean valid;
+
+    public LevelDepthIndex(OrderLevelMap orderLevelMap, int depth) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("Depth must be positive, got " + depth);
+        }
+        this.orderLevelMap = orderLevelMap;
+        this.side = orderLevelMap.getSide();
+        this.topLevels = new OrderLevelBucket[depth];
+    }
+
+    /**
+     * @return the number of top levels read in O(1)
+     */
+    public int getDepth() {
+        return topLevels.length;
+    }
+
+    /**
+     * Notify the index that a new level has been inserted into the level map.
+     */
+    public void levelAdded(OrderLevelBucket orderLevelBucket) {
+        invalidateIfWithinDepth(orderLevelBucket.getPrice());
+    }
+
+    /**
+     * Notify the index that a level has been removed from the level map.
+     */
+    public void levelRemoved(OrderLevelBucket orderLevelBucket) {
+        invalidateIfWithinDepth(orderLevelBucket.getPrice());
+    }
+
+    private void invalidateIfWithinDepth(long price) {
+        if (!valid) {
+            return;
+        }
+        if (topLevelCount < topLevels.length) {
+            valid = false;
+            return;
+        }
+        long lastPrice = topLevels[topLevelCount - 1].getPrice();
+        if (side == Side.BID ? price >= lastPrice : price <= lastPrice) {
+            valid = false;
+        }
+    }
+
+    /**
+     * Get the bucket of a level, counting from the best price.
+     * O(1) within the cached depth, O(level) beyond it.
+     * @return the bucket, or null if the side has fewer levels
+     */
+    public OrderLevelBucket getLevel(int level) {
+        if (level < 0 || level >= orderLevelMap.size()) {
+            return null;
+        }
+        if (level < topLevels.length) {
+            if (!valid) {
+                rebuild();
+            }
+            return topLevels[level];
+        }
+        Iterator<OrderLevelBucket> iterator = orderLevelMap.iterator();
+        OrderLevelBucket orderLevelBucket = null;
+        for (int i = 0; i <= level; i++) {
+            orderLevelBucket = iterator.next();
+        }
+        return orderLevelBucket;
+    }
+
+    private void rebuild() {
+        topLevelCount = 0;
+        Iterator<OrderLevelBucket> iterator = orderLevelMap.iterator();
+        while (topLevelCount < topLevels.length && iterator.hasNext()) {
+            topLevels[topLevelCount++] = iterator.next();
+        }
+        for (int i = topLevelCount; i < topLevels.length; i++) {
+            topLevels[i] = null;
+        }
+        valid = true;
+    }
+}
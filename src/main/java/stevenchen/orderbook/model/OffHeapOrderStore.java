@@ -0,0 +1,252 @@
+package stevenchen.orderbook.model;
+
+import stevenchen.orderbook.util.MemoryEstimates;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * An OrderStore keeping the records in off-heap memory, so resting orders do not live in the old generation
+ * and are never scanned by the garbage collector.
+ * <p>
+ * Records are 80 bytes wide: order id, size, order time and price in ticks as longs, prev and next as ints,
+ * then the expire time as a long and the timer prev and next as ints, then the owner id as a long and
+ * the owner prev and next as ints, and the side as a byte. The segment is allocated from a shared arena so that the
+ * query methods can read it from any thread while holding the OrderBook lock. When it is full it is copied into a
+ * segment twice as large.
+ */
+public class OffHeapOrderStore implements OrderStore {
+    private static final Side[] SIDES = Side.values();
+
+    private static final long RECORD_SIZE = 80;
+    private static final long ORDER_ID_OFFSET = 0;
+    private static final long SIZE_OFFSET = 8;
+    private static final long ORDER_TIME_OFFSET = 16;
+    private static final long PRICE_OFFSET = 24;
+    private static final long PREV_OFFSET = 32;
+    private static final long NEXT_OFFSET = 36;
+    private static final long EXPIRE_TIME_OFFSET = 40;
+    private static final long TIMER_PREV_OFFSET = 48;
+    private static final long TIMER_NEXT_OFFSET = 52;
+    private static final long OWNER_ID_OFFSET = 56;
+    private static final long OWNER_PREV_OFFSET = 64;
+    private static final long OWNER_NEXT_OFFSET = 68;
+    private static final long SIDE_OFFSET = 72;
+
+    private Arena arena;
+    private MemorySegment segment;
+    private int capacity;
+    private int used;
+    private int size;
+    private int freeHead = NULL_HANDLE;
+
+    public OffHeapOrderStore(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be positive, got " + initialCapacity);
+        }
+        this.capacity = initialCapacity;
+        this.arena = Arena.ofShared();
+        this.segment = arena.allocate(RECORD_SIZE * initialCapacity, Long.BYTES);
+    }
+
+    private static long offset(int handle) {
+        return handle * RECORD_SIZE;
+    }
+
+    @Override
+    public int allocate(long orderId, long price, Side side, long size, long orderTime) {
+        int handle;
+        if (freeHead != NULL_HANDLE) {
+            handle = freeHead;
+            freeHead = getNext(handle);
+        } else {
+            if (used == capacity) {
+                grow();
+            }
+            handle = used++;
+        }
+        long offset = offset(handle);
+        segment.set(ValueLayout.JAVA_LONG, offset + ORDER_ID_OFFSET, orderId);
+        segment.set(ValueLayout.JAVA_LONG, offset + SIZE_OFFSET, size);
+        segment.set(ValueLayout.JAVA_LONG, offset + ORDER_TIME_OFFSET, orderTime);
+        segment.set(ValueLayout.JAVA_LONG, offset + PRICE_OFFSET, price);
+        segment.set(ValueLayout.JAVA_INT, offset + PREV_OFFSET, NULL_HANDLE);
+        segment.set(ValueLayout.JAVA_INT, offset + NEXT_OFFSET, NULL_HANDLE);
+        segment.set(ValueLayout.JAVA_BYTE, offset + SIDE_OFFSET, (byte) side.ordinal());
+        segment.set(ValueLayout.JAVA_LONG, offset + EXPIRE_TIME_OFFSET, 0);
+        segment.set(ValueLayout.JAVA_INT, offset + TIMER_PREV_OFFSET, NULL_HANDLE);
+        segment.set(ValueLayout.JAVA_INT, offset + TIMER_NEXT_OFFSET, NULL_HANDLE);
+        segment.set(ValueLayout.JAVA_LONG, offset + OWNER_ID_OFFSET, 0);
+        segment.set(ValueLayout.JAVA_INT, offset + OWNER_PREV_OFFSET, NULL_HANDLE);
+        segment.set(ValueLayout.JAVA_INT, offset + OWNER_NEXT_OFFSET, NULL_HANDLE);
+        this.size++;
+        return handle;
+    }
+
+    private void grow() {
+        resize(capacity * 2);
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        if (capacity > this.capacity) {
+            resize(capacity);
+        }
+    }
+
+    private void resize(int newCapacity) {
+        Arena newArena = Arena.ofShared();
+        MemorySegment newSegment = newArena.allocate(RECORD_SIZE * newCapacity, Long.BYTES);
+        MemorySegment.copy(segment, 0, newSegment, 0, RECORD_SIZE * capacity);
+        arena.close();
+        arena = newArena;
+        segment = newSegment;
+        capacity = newCapacity;
+    }
+
+    @Override
+    public void free(int handle) {
+        setNext(handle, freeHead);
+        freeHead = handle;
+        size--;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the size of the store object itself, the records are reported by {@link #offHeapBytes()}
+     */
+    @Override
+    public long estimatedHeapBytes() {
+        return MemoryEstimates.objectBytes(2 * MemoryEstimates.REFERENCE_BYTES + 4 * Integer.BYTES);
+    }
+
+    @Override
+    public long offHeapBytes() {
+        return RECORD_SIZE * capacity;
+    }
+
+    @Override
+    public long getOrderId(int handle) {
+        return segment.get(ValueLayout.JAVA_LONG, offset(handle) + ORDER_ID_OFFSET);
+    }
+
+    @Override
+    public long getPrice(int handle) {
+        return segment.get(ValueLayout.JAVA_LONG, offset(handle) + PRICE_OFFSET);
+    }
+
+    @Override
+    public Side getSide(int handle) {
+        return SIDES[segment.get(ValueLayout.JAVA_BYTE, offset(handle) + SIDE_OFFSET)];
+    }
+
+    @Override
+    public long getSize(int handle) {
+        return segment.get(ValueLayout.JAVA_LONG, offset(handle) + SIZE_OFFSET);
+    }
+
+    @Override
+    public void setSize(int handle, long size) {
+        segment.set(ValueLayout.JAVA_LONG, offset(handle) + SIZE_OFFSET, size);
+    }
+
+    @Override
+    public long getOrderTime(int handle) {
+        return segment.get(ValueLayout.JAVA_LONG, offset(handle) + ORDER_TIME_OFFSET);
+    }
+
+    @Override
+    public long getExpireTime(int handle) {
+        return segment.get(ValueLayout.JAVA_LONG, offset(handle) + EXPIRE_TIME_OFFSET);
+    }
+
+    @Override
+    public void setExpireTime(int handle, long expireTime) {
+        segment.set(ValueLayout.JAVA_LONG, offset(handle) + EXPIRE_TIME_OFFSET, expireTime);
+    }
+
+    @Override
+    public int getTimerPrev(int handle) {
+        return segment.get(ValueLayout.JAVA_INT, offset(handle) + TIMER_PREV_OFFSET);
+    }
+
+    @Override
+    public void setTimerPrev(int handle, int prev) {
+        segment.set(ValueLayout.JAVA_INT, offset(handle) + TIMER_PREV_OFFSET, prev);
+    }
+
+    @Override
+    public int getTimerNext(int handle) {
+        return segment.get(ValueLayout.JAVA_INT, offset(handle) + TIMER_NEXT_OFFSET);
+    }
+
+    @Override
+    public void setTimerNext(int handle, int next) {
+        segment.set(ValueLayout.JAVA_INT, offset(handle) + TIMER_NEXT_OFFSET, next);
+    }
+
+    @Override
+    public long getOwnerId(int handle) {
+        return segment.get(ValueLayout.JAVA_LONG, offset(handle) + OWNER_ID_OFFSET);
+    }
+
+    @Override
+    public void setOwnerId(int handle, long ownerId) {
+        segment.set(ValueLayout.JAVA_LONG, offset(handle) + OWNER_ID_OFFSET, ownerId);
+    }
+
+    @Override
+    public int getOwnerPrev(int handle) {
+        return segment.get(ValueLayout.JAVA_INT, offset(handle) + OWNER_PREV_OFFSET);
+    }
+
+    @Override
+    public void setOwnerPrev(int handle, int prev) {
+        segment.set(ValueLayout.JAVA_INT, offset(handle) + OWNER_PREV_OFFSET, prev);
+    }
+
+    @Override
+    public int getOwnerNext(int handle) {
+        return segment.get(ValueLayout.JAVA_INT, offset(handle) + OWNER_NEXT_OFFSET);
+    }
+
+    @Override
+    public void setOwnerNext(int handle, int next) {
+        segment.set(ValueLayout.JAVA_INT, offset(handle) + OWNER_NEXT_OFFSET, next);
+    }
+
+    @Override
+    public int getPrev(int handle) {
+        return segment.get(ValueLayout.JAVA_INT, offset(handle) + PREV_OFFSET);
+    }
+
+    @Override
+    public void setPrev(int handle, int prev) {
+        segment.set(ValueLayout.JAVA_INT, offset(handle) + PREV_OFFSET, prev);
+    }
+
+    @Override
+    public int getNext(int handle) {
+        return segment.get(ValueLayout.JAVA_INT, offset(handle) + NEXT_OFFSET);
+    }
+
+    @Override
+    public void setNext(int handle, int next) {
+        segment.set(ValueLayout.JAVA_INT, offset(handle) + NEXT_OFFSET, next);
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
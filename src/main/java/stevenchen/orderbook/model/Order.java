@@ -5,14 +5,20 @@ public class Order{
     private double price;
     private char side; // B "Bid " o r O " O f f e r "
     private long size;
+    private long ownerId; // owner or session of the order, 0 if it has none
     public Order (long id, double price, char side, long size) {
+        this(id, price, side, size, 0);
+    }
+    public Order (long id, double price, char side, long size, long ownerId) {
         this.id=id ;
         this.price=price ;
         this.size=size ;
         this.side=side ;
+        this.ownerId=ownerId ;
     }
     public long getId () {return id;}
     public double getPrice() {return price;}
     public long getSize() {return size;}
     public char getSide() {return side;}
+    public long getOwnerId() {return ownerId;}
 }
\ No newline at end of file
@@ -1,63 +1,192 @@
 package stevenchen.orderbook.model;
 
-import java.util.Collection;
-import java.util.LinkedHashMap;
+import stevenchen.orderbook.util.MemoryEstimates;
 
 public class OrderLevelBucket {
+    /**
+     * Estimated heap size of a bucket, see {@link MemoryEstimates}. The orders of the level live in the OrderStore.
+     */
+    public static final long ESTIMATED_BYTES = MemoryEstimates.objectBytes(2 * Long.BYTES + Double.BYTES
+            + 3 * MemoryEstimates.REFERENCE_BYTES + 3 * Integer.BYTES + 3);
+
+    // in ticks
     private final long price;
+    // converted once, as every event of the level reports it
+    private final double originalPrice;
     private final Side side;
-    private final LinkedHashMap<Long, OrderEntry> orderEntryMap;
+    private final OrderStore orderStore;
+    // notified of every change of the total size, null when the book keeps no cumulative depth
+    private final CumulativeDepthIndex cumulativeDepthIndex;
+    // doubly linked list of order handles in time order, the links are stored in the OrderStore records
+    private int head = OrderStore.NULL_HANDLE;
+    private int tail = OrderStore.NULL_HANDLE;
+    private int orderCount;
+    private long totalSize;
+    // conflation state of the current batch, only used by the processing thread
+    private boolean pendingLevelEvent;
+    private boolean createdInBatch;
+    // set while a mass cancel removes orders from the level, only used by the processing thread
+    private boolean massCancelled;
+
+    public OrderLevelBucket(long price, Side side, OrderStore orderStore) {
+        this(price, side, orderStore, null);
+    }
+
+    public OrderLevelBucket(long price, Side side, OrderStore orderStore, CumulativeDepthIndex cumulativeDepthIndex) {
+        this(price, side, orderStore, cumulativeDepthIndex, InstrumentDescriptor.DEFAULT);
+    }
 
-    public OrderLevelBucket(long price, Side side) {
+    /**
+     * @param price price in ticks of the instrument
+     */
+    public OrderLevelBucket(long price, Side side, OrderStore orderStore, CumulativeDepthIndex cumulativeDepthIndex,
+                            InstrumentDescriptor instrumentDescriptor) {
         this.price = price;
+        this.originalPrice = instrumentDescriptor.toPrice(price);
         this.side = side;
-        this.orderEntryMap = new LinkedHashMap<>();
+        this.orderStore = orderStore;
+        this.cumulativeDepthIndex = cumulativeDepthIndex;
     }
 
+    /**
+     * @return the price in ticks
+     */
     public long getPrice() {
         return price;
     }
 
     public double getOriginalPrice() {
-        return price / 100.0;
+        return originalPrice;
     }
 
     public Side getSide() {
         return side;
     }
 
-    public void addOrderEntry(OrderEntry orderEntry) {
-        if(orderEntry == null) {
-            throw new IllegalArgumentException("OrderEntry cannot be null");
+    /**
+     * Append an order to the end of the time priority list.
+     */
+    public void addOrder(int handle) {
+        if(orderStore.getPrice(handle) != price) {
+            throw new IllegalArgumentException("Order price does not match bucket price");
+        }
+        if(orderStore.getSide(handle) != side) {
+            throw new IllegalArgumentException("Order side does not match bucket side");
         }
-        if(orderEntry.getPrice() != price) {
-            throw new IllegalArgumentException("OrderEntry price does not match bucket price");
+        orderStore.setPrev(handle, tail);
+        orderStore.setNext(handle, OrderStore.NULL_HANDLE);
+        if (tail == OrderStore.NULL_HANDLE) {
+            head = handle;
+        } else {
+            orderStore.setNext(tail, handle);
         }
-        if(orderEntry.getSide() != side) {
-            throw new IllegalArgumentException("OrderEntry side does not match bucket side");
+        tail = handle;
+        orderCount++;
+        sizeChanged(orderStore.getSize(handle));
+    }
+
+    /**
+     * Unlink an order from the time priority list in O(1).
+     */
+    public void removeOrder(int handle) {
+        int prev = orderStore.getPrev(handle);
+        int next = orderStore.getNext(handle);
+        if (prev == OrderStore.NULL_HANDLE) {
+            if (head != handle) {
+                throw new IllegalArgumentException("Order id " + orderStore.getOrderId(handle) + " not found in bucket");
+            }
+            head = next;
+        } else {
+            orderStore.setNext(prev, next);
         }
-        orderEntryMap.put(orderEntry.getOrder().getId(), orderEntry);
+        if (next == OrderStore.NULL_HANDLE) {
+            tail = prev;
+        } else {
+            orderStore.setPrev(next, prev);
+        }
+        orderStore.setPrev(handle, OrderStore.NULL_HANDLE);
+        orderStore.setNext(handle, OrderStore.NULL_HANDLE);
+        orderCount--;
+        sizeChanged(-orderStore.getSize(handle));
+    }
+
+    /**
+     * Change the size of an order in this bucket, keeping the running total size in step.
+     */
+    public void updateOrderSize(int handle, long newSize) {
+        long delta = newSize - orderStore.getSize(handle);
+        orderStore.setSize(handle, newSize);
+        sizeChanged(delta);
     }
 
-    public void removeOrderEntry(long orderId) {
-        OrderEntry entry = orderEntryMap.remove(orderId);
-        if (entry == null) {
-            throw new IllegalArgumentException("Order id " + orderId + " not found in bucket");
+    private void sizeChanged(long delta) {
+        totalSize += delta;
+        if (cumulativeDepthIndex != null) {
+            cumulativeDepthIndex.sizeChanged(this, delta);
         }
     }
 
+    /**
+     * Get the sum of the sizes of all orders in this bucket, maintained incrementally.
+     * @return total size of the level
+     */
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
     public boolean isEmpty() {
-        return orderEntryMap.isEmpty();
+        return head == OrderStore.NULL_HANDLE;
     }
 
     /**
-     * Generate an Iterable of OrderEntry objects in time order.
-     * This utilise the LinkedHashMap to maintain the insertion order.
-     *
-     * @return
+     * Get the oldest order of the level, the first in time priority.
+     * The following orders are reached through {@link OrderStore#getNext(int)}.
+     * @return the handle of the first order, or NULL_HANDLE if the bucket is empty
      */
-    public Collection<OrderEntry> getOrderEntries() {
-        return orderEntryMap.values();
+    public int getFirstOrder() {
+        return head;
+    }
+
+    /**
+     * Mark this level as changed in the current batch.
+     * @param created whether the change is the creation of the level
+     * @return true if the level was not marked yet in this batch
+     */
+    public boolean markPendingLevelEvent(boolean created) {
+        createdInBatch |= created;
+        if (pendingLevelEvent) {
+            return false;
+        }
+        pendingLevelEvent = true;
+        return true;
     }
-}
 
+    public boolean isCreatedInBatch() {
+        return createdInBatch;
+    }
+
+    public void clearPendingLevelEvent() {
+        pendingLevelEvent = false;
+        createdInBatch = false;
+    }
+
+    /**
+     * Mark this level as touched by the mass cancel being applied, so its cleanup is done once at the end.
+     * @return true if the level was not marked yet
+     */
+    public boolean markMassCancelled() {
+        if (massCancelled) {
+            return false;
+        }
+        massCancelled = true;
+        return true;
+    }
+
+    public void clearMassCancelled() {
+        massCancelled = false;
+    }
+}
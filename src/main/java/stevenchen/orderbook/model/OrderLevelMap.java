@@ -0,0 +1,49 @@
+package stevenchen.orderbook.model;
+
+/**
+ * The price levels of one side of the book, keyed by price in ticks.
+ * Iteration goes from the best price to the worst, i.e. descending for BID and ascending for OFFER.
+ * <p>
+ * Implementations are only mutated by the processing thread of the OrderBook.
+ */
+public interface OrderLevelMap extends Iterable<OrderLevelBucket> {
+    Side getSide();
+
+    /**
+     * @return the bucket at the given price, or null if there is none
+     */
+    OrderLevelBucket get(long price);
+
+    /**
+     * Insert a new bucket, there must not be a bucket at the same price already.
+     */
+    void put(OrderLevelBucket orderLevelBucket);
+
+    /**
+     * @return whether a new level at the given price can be inserted, false if the map is bounded and the price is
+     * too far from the other levels
+     */
+    default boolean canHold(long price) {
+        return true;
+    }
+
+    /**
+     * @return the removed bucket, or null if there was none
+     */
+    OrderLevelBucket remove(long price);
+
+    /**
+     * @return the number of levels, in O(1)
+     */
+    int size();
+
+    /**
+     * @return the estimated heap size of the map structure, without the buckets it holds,
+     * see {@link stevenchen.orderbook.util.MemoryEstimates}
+     */
+    long estimatedBytes();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -0,0 +1,15 @@
+package stevenchen.orderbook.model;
+
+/**
+ * Implementation used to store the price levels of each side of an OrderBook.
+ */
+public enum OrderLevelMapType {
+    /**
+     * A skip list, suitable for any price range.
+     */
+    SKIP_LIST,
+    /**
+     * An array of levels indexed by price, for instruments trading in a known price band.
+     */
+    PRICE_LADDER
+}
@@ -0,0 +1,15 @@
+package stevenchen.orderbook.model;
+
+/**
+ * Where the resting orders of an OrderBook are stored.
+ */
+public enum OrderStorageType {
+    /**
+     * Primitive arrays on the Java heap.
+     */
+    HEAP,
+    /**
+     * Fixed-width records in off-heap memory.
+     */
+    OFF_HEAP
+}
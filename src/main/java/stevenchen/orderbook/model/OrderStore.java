@@ -0,0 +1,113 @@
+package stevenchen.orderbook.model;
+
+/**
+ * Fixed-width storage of the resting orders, addressed by int handles.
+ * <p>
+ * Each record holds the order id, price in ticks, side, size, order time and the prev/next links of the time
+ * priority list of its level, the expire time and links of good-till-time orders in the {@link ExpiryTimingWheel},
+ * and the owner id and links of the orders of an owner in the {@link OwnerIndex}. Freed records are kept on a free
+ * list and reused by the next allocation, so after warmup adding and removing orders does not generate garbage.
+ * Not thread safe, only the processing thread of the OrderBook mutates the store.
+ */
+public interface OrderStore extends AutoCloseable {
+    int NULL_HANDLE = -1;
+
+    /**
+     * Allocate a record, reusing a freed one if possible. The links are initialised to NULL_HANDLE
+     * and the expire time and owner id to 0.
+     * @return the handle of the record
+     */
+    int allocate(long orderId, long price, Side side, long size, long orderTime);
+
+    /**
+     * Grow the store so that it holds at least the given number of records without growing again.
+     */
+    void ensureCapacity(int capacity);
+
+    /**
+     * Return a record to the free list, the handle must not be used afterwards.
+     */
+    void free(int handle);
+
+    /**
+     * @return number of allocated records
+     */
+    int size();
+
+    /**
+     * @return number of records the store can hold before growing
+     */
+    int capacity();
+
+    /**
+     * @return the estimated bytes of the Java heap held by the store, see {@link stevenchen.orderbook.util.MemoryEstimates}
+     */
+    long estimatedHeapBytes();
+
+    /**
+     * @return the bytes of native memory held by the store, 0 if it keeps its records on the heap
+     */
+    long offHeapBytes();
+
+    long getOrderId(int handle);
+
+    /**
+     * @return the price in ticks, see {@link InstrumentDescriptor}
+     */
+    long getPrice(int handle);
+
+    Side getSide(int handle);
+
+    long getSize(int handle);
+
+    void setSize(int handle, long size);
+
+    /**
+     * @return the time the order was submitted, in epoch milliseconds
+     */
+    long getOrderTime(int handle);
+
+    /**
+     * @return the time a good-till-time order expires, in epoch milliseconds, 0 if it does not expire
+     */
+    long getExpireTime(int handle);
+
+    void setExpireTime(int handle, long expireTime);
+
+    int getTimerPrev(int handle);
+
+    void setTimerPrev(int handle, int prev);
+
+    int getTimerNext(int handle);
+
+    void setTimerNext(int handle, int next);
+
+    /**
+     * @return the owner or session that submitted the order, 0 if it has none
+     */
+    long getOwnerId(int handle);
+
+    void setOwnerId(int handle, long ownerId);
+
+    int getOwnerPrev(int handle);
+
+    void setOwnerPrev(int handle, int prev);
+
+    int getOwnerNext(int handle);
+
+    void setOwnerNext(int handle, int next);
+
+    int getPrev(int handle);
+
+    void setPrev(int handle, int prev);
+
+    int getNext(int handle);
+
+    void setNext(int handle, int next);
+
+    /**
+     * Release the memory held by the store.
+     */
+    @Override
+    void close();
+}
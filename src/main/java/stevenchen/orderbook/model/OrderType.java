@@ -0,0 +1,23 @@
+package stevenchen.orderbook.model;
+
+/**
+ * How an incoming order is matched against the opposite side of the book, when matching is enabled.
+ */
+public enum OrderType {
+    /**
+     * Match at the order price or better, then rest the remainder on the book.
+     */
+    LIMIT,
+    /**
+     * Match at any price, the remainder is cancelled. The order price is ignored.
+     */
+    MARKET,
+    /**
+     * Immediate or cancel: match at the order price or better, the remainder is cancelled.
+     */
+    IOC,
+    /**
+     * Fill or kill: match the whole size at the order price or better, or do nothing.
+     */
+    FOK
+}
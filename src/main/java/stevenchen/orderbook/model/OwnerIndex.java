@@ -0,0 +1,81 @@
+package stevenchen.orderbook.model;
+
+import stevenchen.orderbook.util.LongIntHashMap;
+
+/**
+ * A secondary index from an owner (a client or gateway session) to its resting orders.
+ * <p>
+ * The orders of an owner form an intrusive doubly linked list through the owner links of their OrderStore records,
+ * and a LongIntHashMap keeps the first order of each owner. Adding and removing an order are O(1), and the orders of
+ * an owner are walked without touching the rest of the book. Orders with owner id 0 have no owner and are not indexed.
+ * Not thread safe, only the processing thread of the OrderBook mutates the index.
+ */
+public class OwnerIndex {
+    private final OrderStore orderStore;
+    private final LongIntHashMap heads = new LongIntHashMap();
+
+    public OwnerIndex(OrderStore orderStore) {
+        this.orderStore = orderStore;
+    }
+
+    /**
+     * Link an order at the head of the list of the owner of its record, does nothing if it has no owner.
+     */
+    public void add(int handle) {
+        long ownerId = orderStore.getOwnerId(handle);
+        if (ownerId == 0) {
+            return;
+        }
+        int head = heads.put(ownerId, handle);
+        orderStore.setOwnerPrev(handle, OrderStore.NULL_HANDLE);
+        if (head != LongIntHashMap.MISSING) {
+            orderStore.setOwnerNext(handle, head);
+            orderStore.setOwnerPrev(head, handle);
+        } else {
+            orderStore.setOwnerNext(handle, OrderStore.NULL_HANDLE);
+        }
+    }
+
+    /**
+     * Unlink an order from the list of its owner, does nothing if it has no owner.
+     */
+    public void remove(int handle) {
+        long ownerId = orderStore.getOwnerId(handle);
+        if (ownerId == 0) {
+            return;
+        }
+        int prev = orderStore.getOwnerPrev(handle);
+        int next = orderStore.getOwnerNext(handle);
+        if (prev == OrderStore.NULL_HANDLE) {
+            if (next == OrderStore.NULL_HANDLE) {
+                heads.remove(ownerId);
+            } else {
+                heads.put(ownerId, next);
+            }
+        } else {
+            orderStore.setOwnerNext(prev, next);
+        }
+        if (next != OrderStore.NULL_HANDLE) {
+            orderStore.setOwnerPrev(next, prev);
+        }
+        orderStore.setOwnerPrev(handle, OrderStore.NULL_HANDLE);
+        orderStore.setOwnerNext(handle, OrderStore.NULL_HANDLE);
+    }
+
+    /**
+     * Get the most recently added resting order of an owner, the others follow through
+     * {@link OrderStore#getOwnerNext(int)}.
+     * @return the handle of the order, NULL_HANDLE if the owner has no resting order
+     */
+    public int getFirstOrder(long ownerId) {
+        int head = heads.get(ownerId);
+        return head == LongIntHashMap.MISSING ? OrderStore.NULL_HANDLE : head;
+    }
+
+    /**
+     * @return the number of owners with at least one resting order
+     */
+    public int getOwnerCount() {
+        return heads.size();
+    }
+}
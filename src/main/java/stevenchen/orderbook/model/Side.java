@@ -13,6 +13,10 @@ public enum Side {
         return this.sideChar;
     }
 
+    public Side opposite() {
+        return this == BID ? OFFER : BID;
+    }
+
     public static Side fromChar(char c) {
         for (Side side : Side.values()) {
             if (side.sideChar == Character.toUpperCase(c)) {
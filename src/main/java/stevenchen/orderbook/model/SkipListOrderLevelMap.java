@@ -0,0 +1,71 @@
+package stevenchen.orderbook.model;
+
+import stevenchen.orderbook.util.MemoryEstimates;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class SkipListOrderLevelMap implements OrderLevelMap {
+    // a node (key, value and next references), the boxed price, and half an index node on average,
+    // as a quarter of the nodes get indexed with two index levels on average
+    private static final long ENTRY_BYTES = MemoryEstimates.objectBytes(3 * MemoryEstimates.REFERENCE_BYTES)
+            + MemoryEstimates.objectBytes(Long.BYTES)
+            + MemoryEstimates.objectBytes(3 * MemoryEstimates.REFERENCE_BYTES) / 2;
+    // the map with its head index and node, and this object
+    private static final long BASE_BYTES = MemoryEstimates.objectBytes(8 * MemoryEstimates.REFERENCE_BYTES)
+            + 2 * MemoryEstimates.objectBytes(3 * MemoryEstimates.REFERENCE_BYTES)
+            + MemoryEstimates.objectBytes(2 * MemoryEstimates.REFERENCE_BYTES + Integer.BYTES);
+
+    private final Side side;
+    private final ConcurrentNavigableMap<Long, OrderLevelBucket> orderLevelMap;
+    private int size;
+
+    public SkipListOrderLevelMap(Side side) {
+        this.side = side;
+        this.orderLevelMap = side == Side.BID ? new ConcurrentSkipListMap<>(Comparator.reverseOrder()) : new ConcurrentSkipListMap<>();
+    }
+
+    @Override
+    public Side getSide() {
+        return side;
+    }
+
+    @Override
+    public OrderLevelBucket get(long price) {
+        return orderLevelMap.get(price);
+    }
+
+    @Override
+    public void put(OrderLevelBucket orderLevelBucket) {
+        if (orderLevelMap.putIfAbsent(orderLevelBucket.getPrice(), orderLevelBucket) != null) {
+            throw new IllegalArgumentException("Level " + orderLevelBucket.getPrice() + " already exists");
+        }
+        size++;
+    }
+
+    @Override
+    public OrderLevelBucket remove(long price) {
+        OrderLevelBucket orderLevelBucket = orderLevelMap.remove(price);
+        if (orderLevelBucket != null) {
+            size--;
+        }
+        return orderLevelBucket;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long estimatedBytes() {
+        return BASE_BYTES + size * ENTRY_BYTES;
+    }
+
+    @Override
+    public Iterator<OrderLevelBucket> iterator() {
+        return orderLevelMap.values().iterator();
+    }
+}
@@ -0,0 +1,191 @@
+package stevenchen.orderbook.sequencer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded multi-producer, single-consumer ring buffer of preallocated {@link OrderActionSlot}s.
+ * <p>
+ * Producers claim a sequence with {@link #next()}, fill in the slot returned by {@link #get(long)} and
+ * make it visible with {@link #publish(long)}. The consumer reads published slots in sequence order and
+ * hands them back to the producers with {@link #release(long)}.
+ */
+public class OrderActionRingBuffer {
+    private final OrderActionSlot[] slots;
+    private final AtomicLongArray publishedSequences;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final boolean timestamping;
+    private final AtomicLong claimedSequence = new AtomicLong(-1);
+    private final AtomicLong releasedSequence = new AtomicLong(-1);
+
+    public OrderActionRingBuffer(int capacity, WaitStrategy waitStrategy) {
+        this(capacity, waitStrategy, false);
+    }
+
+    /**
+     * @param timestamping whether {@link #publish(long)} stamps the slot with the publish time, to measure the queue wait
+     */
+    public OrderActionRingBuffer(int capacity, WaitStrategy waitStrategy, boolean timestamping) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of 2, got " + capacity);
+        }
+        if (waitStrategy == null) {
+            throw new IllegalArgumentException("WaitStrategy cannot be null");
+        }
+        this.slots = new OrderActionSlot[capacity];
+        this.publishedSequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new OrderActionSlot();
+            publishedSequences.set(i, -1);
+        }
+        this.mask = capacity - 1;
+        this.waitStrategy = waitStrategy;
+        this.timestamping = timestamping;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Claim the next sequence, waiting until the consumer has released the slot it wraps onto.
+     * @return the claimed sequence
+     * @throws IllegalStateException if the thread is interrupted while waiting, its interrupt status is then kept set
+     */
+    public long next() {
+        return next(1);
+    }
+
+    /**
+     * Claim the next n sequences at once, waiting until the consumer has released the slots they wrap onto.
+     * The sequences are only claimed once their slots are free, so a producer interrupted while waiting
+     * leaves no claimed sequence behind that the consumer would wait for forever.
+     * @return the highest claimed sequence, the claimed sequences are the n sequences ending with it
+     * @throws IllegalStateException if the thread is interrupted while waiting, its interrupt status is then kept set
+     */
+    public long next(int n) {
+        if (n <= 0 || n > slots.length) {
+            throw new IllegalArgumentException("Can claim between 1 and " + slots.length + " sequences, got " + n);
+        }
+        int attempt = 0;
+        while (true) {
+            long claimed = claimedSequence.get();
+            long sequence = claimed + n;
+            if (sequence - slots.length > releasedSequence.get()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IllegalStateException("Interrupted while waiting for a free slot");
+                }
+                waitStrategy.idle(attempt++);
+            } else if (claimedSequence.compareAndSet(claimed, sequence)) {
+                return sequence;
+            }
+        }
+    }
+
+    /**
+     * Claim the next sequence if its slot is free, without waiting.
+     * @return the claimed sequence, or -1 if the ring buffer is full
+     */
+    public long tryNext() {
+        long sequence;
+        do {
+            sequence = claimedSequence.get() + 1;
+            if (sequence - slots.length > releasedSequence.get()) {
+                return -1;
+            }
+        } while (!claimedSequence.compareAndSet(sequence - 1, sequence));
+        return sequence;
+    }
+
+    public OrderActionSlot get(long sequence) {
+        return slots[(int) (sequence & mask)];
+    }
+
+    /**
+     * Make a claimed and filled slot visible to the consumer.
+     */
+    public void publish(long sequence) {
+        if (timestamping) {
+            slots[(int) (sequence & mask)].setPublishNanos(System.nanoTime());
+        }
+        publishedSequences.lazySet((int) (sequence & mask), sequence);
+    }
+
+    /**
+     * Get the highest sequence, starting from the given one, such that every sequence in between is published.
+     * @return the highest available sequence, or sequence - 1 if the given sequence is not published yet
+     */
+    public long getAvailableSequence(long sequence) {
+        long claimed = claimedSequence.get();
+        for (long s = sequence; s <= claimed; s++) {
+            if (publishedSequences.get((int) (s & mask)) != s) {
+                return s - 1;
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Wait until the given sequence is published.
+     * @return the highest available sequence, at least the given sequence
+     */
+    public long waitFor(long sequence) throws InterruptedException {
+        int attempt = 0;
+        long available;
+        while ((available = getAvailableSequence(sequence)) < sequence) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            waitStrategy.idle(attempt++);
+        }
+        return available;
+    }
+
+    /**
+     * Wait until the given sequence is published or the timeout elapses.
+     * @return the highest available sequence, or sequence - 1 on timeout
+     */
+    public long waitFor(long sequence, long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        int attempt = 0;
+        long available;
+        while ((available = getAvailableSequence(sequence)) < sequence) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return sequence - 1;
+            }
+            waitStrategy.idle(attempt++);
+        }
+        return available;
+    }
+
+    /**
+     * Hand every slot up to and including the given sequence back to the producers.
+     */
+    public void release(long sequence) {
+        releasedSequence.lazySet(sequence);
+    }
+
+    /**
+     * Make the next claimed sequence start from the given one, e.g. to continue the sequence of a recovered journal.
+     * Must only be called while no producer or consumer is using the ring buffer and every slot is released.
+     */
+    public void resetSequence(long nextSequence) {
+        if (claimedSequence.get() != releasedSequence.get()) {
+            throw new IllegalStateException("Cannot reset the sequence while actions are pending");
+        }
+        claimedSequence.set(nextSequence - 1);
+        releasedSequence.set(nextSequence - 1);
+    }
+
+    public long getReleasedSequence() {
+        return releasedSequence.get();
+    }
+
+    public long getClaimedSequence() {
+        return claimedSequence.get();
+    }
+}
@@ -0,0 +1,131 @@
+package stevenchen.orderbook.sequencer;
+
+import stevenchen.orderbook.ActionCallback;
+import stevenchen.orderbook.action.AddAction;
+import stevenchen.orderbook.action.ExpireAction;
+import stevenchen.orderbook.action.MassCancelAction;
+import stevenchen.orderbook.action.ModifyAction;
+import stevenchen.orderbook.action.OrderAction;
+import stevenchen.orderbook.action.RemoveAction;
+import stevenchen.orderbook.event.RejectReason;
+import stevenchen.orderbook.model.OrderType;
+import stevenchen.orderbook.model.Side;
+
+/**
+ * A preallocated entry of the ring buffer. Each slot owns one mutable instance of every action type,
+ * producers overwrite the one they need and point the slot at it, so publishing an action allocates nothing.
+ */
+public class OrderActionSlot {
+    private final AddAction addAction = new AddAction();
+    private final RemoveAction removeAction = new RemoveAction();
+    private final ModifyAction modifyAction = new ModifyAction();
+    private final ExpireAction expireAction = new ExpireAction();
+    private final MassCancelAction massCancelAction = new MassCancelAction();
+    private OrderAction orderAction;
+    private RejectReason rejectReason;
+    private ActionCallback callback;
+    private long instrumentId;
+    private long publishNanos;
+
+    public void setAddAction(long orderId, long price, Side side, long size, long orderTime) {
+        setAddAction(orderId, price, side, size, orderTime, OrderType.LIMIT);
+    }
+
+    public void setAddAction(long orderId, long price, Side side, long size, long orderTime, OrderType orderType) {
+        setAddAction(orderId, price, side, size, orderTime, orderType, 0);
+    }
+
+    public void setAddAction(long orderId, long price, Side side, long size, long orderTime, OrderType orderType, long expireTime) {
+        setAddAction(orderId, price, side, size, orderTime, orderType, expireTime, 0);
+    }
+
+    public void setAddAction(long orderId, long price, Side side, long size, long orderTime, OrderType orderType, long expireTime,
+                             long ownerId) {
+        addAction.set(orderId, price, side, size, orderTime, orderType, expireTime, ownerId);
+        orderAction = addAction;
+        rejectReason = null;
+        callback = null;
+    }
+
+    public void setRemoveAction(long orderId) {
+        removeAction.set(orderId);
+        orderAction = removeAction;
+        rejectReason = null;
+        callback = null;
+    }
+
+    public void setModifyAction(long orderId, long newSize) {
+        modifyAction.set(orderId, newSize);
+        orderAction = modifyAction;
+        rejectReason = null;
+        callback = null;
+    }
+
+    public void setExpireAction(long time) {
+        expireAction.set(time);
+        orderAction = expireAction;
+        rejectReason = null;
+        callback = null;
+    }
+
+    public void setMassCancelAction(long ownerId, Side side, long minPrice, long maxPrice) {
+        massCancelAction.set(ownerId, side, minPrice, maxPrice);
+        orderAction = massCancelAction;
+        rejectReason = null;
+        callback = null;
+    }
+
+    public OrderAction getOrderAction() {
+        return orderAction;
+    }
+
+    /**
+     * Mark the action as rejected by the validation stage, the processing thread then reports it instead of applying it.
+     */
+    public void setRejectReason(RejectReason rejectReason) {
+        this.rejectReason = rejectReason;
+    }
+
+    /**
+     * @return the reason the validation stage rejected the action, null if it passed or was not validated
+     */
+    public RejectReason getRejectReason() {
+        return rejectReason;
+    }
+
+    /**
+     * Set the callback notified of the outcome of the action, after the action itself is set.
+     */
+    public void setCallback(ActionCallback callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * @return the callback of the action, null if the producer does not wait for the outcome
+     */
+    public ActionCallback getCallback() {
+        return callback;
+    }
+
+    /**
+     * Set the instrument the action is routed to, when the ring buffer is shared by the books of several instruments.
+     */
+    public void setInstrumentId(long instrumentId) {
+        this.instrumentId = instrumentId;
+    }
+
+    public long getInstrumentId() {
+        return instrumentId;
+    }
+
+    void setPublishNanos(long publishNanos) {
+        this.publishNanos = publishNanos;
+    }
+
+    /**
+     * @return the System.nanoTime() at which the slot was published, if the ring buffer is timestamping
+     */
+    public long getPublishNanos() {
+        return publishNanos;
+    }
+}
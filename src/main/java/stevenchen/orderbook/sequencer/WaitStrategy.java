@@ -0,0 +1,57 @@
+package stevenchen.orderbook.sequencer;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a thread waits on the ring buffer, either a producer waiting for a free slot
+ * or the consumer waiting for the next published action.
+ */
+public enum WaitStrategy {
+    /**
+     * Spin on the CPU. Lowest latency, but burns a core per waiting thread.
+     */
+    BUSY_SPIN {
+        @Override
+        public void idle(int attempt) {
+            Thread.onSpinWait();
+        }
+    },
+    /**
+     * Spin for a short while, then yield the CPU to other threads.
+     */
+    YIELD {
+        @Override
+        public void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    },
+    /**
+     * Spin, then yield, then park for a short period. Suitable when the ingest rate is bursty.
+     */
+    PARK {
+        @Override
+        public void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (attempt < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 50_000L;
+
+    /**
+     * Wait once.
+     * @param attempt number of times the caller has already waited for the same condition
+     */
+    public abstract void idle(int attempt);
+}
@@ -0,0 +1,176 @@
+package stevenchen.orderbook.util;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from primitive long keys to non-negative int values,
+ * with the same layout as {@link LongObjectHashMap}. A negative value marks an empty slot.
+ * <p>
+ * Keys are stored unboxed in a long array next to a parallel value array, collisions are resolved by linear
+ * probing and removals shift the following entries back instead of leaving tombstones,
+ * so once the map has grown to its working size, put and remove allocate nothing.
+ * Not thread safe.
+ */
+public class LongIntHashMap {
+    public static final int MISSING = -1;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize number of entries the map can hold without resizing
+     */
+    public LongIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long capacity = Math.max(16, (long) Math.ceil(expectedSize / LOAD_FACTOR));
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("Expected size too large: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) capacity - 1) << 1;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the estimated heap size of the map, which depends on its capacity rather than on its size
+     */
+    public long estimatedBytes() {
+        return MemoryEstimates.objectBytes(2 * MemoryEstimates.REFERENCE_BYTES + 3 * Integer.BYTES)
+                + MemoryEstimates.arrayBytes(keys.length, Long.BYTES)
+                + MemoryEstimates.arrayBytes(values.length, Integer.BYTES);
+    }
+
+    /**
+     * @return the value of the key, or MISSING if the key is not present
+     */
+    public int get(long key) {
+        for (int i = hash(key) & mask; values[i] != MISSING; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return MISSING;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != MISSING;
+    }
+
+    /**
+     * @return the previous value of the key, or MISSING if there was none
+     */
+    public int put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value cannot be negative, got " + value);
+        }
+        int i = hash(key) & mask;
+        for (; values[i] != MISSING; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                int previous = values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return MISSING;
+    }
+
+    /**
+     * @return the removed value, or MISSING if the key was not present
+     */
+    public int remove(long key) {
+        int i = hash(key) & mask;
+        for (; values[i] != MISSING; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                int previous = values[i];
+                shiftBack(i);
+                size--;
+                return previous;
+            }
+        }
+        return MISSING;
+    }
+
+    /**
+     * Fill the hole at the given index by moving back any following entry of the probe sequence
+     * whose home slot is at or before the hole.
+     */
+    private void shiftBack(int hole) {
+        int i = (hole + 1) & mask;
+        for (; values[i] != MISSING; i = (i + 1) & mask) {
+            int home = hash(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        values[hole] = MISSING;
+    }
+
+    /**
+     * Grow the map so that it can hold the expected number of entries without resizing.
+     */
+    public void ensureCapacity(int expectedSize) {
+        int capacity = capacityFor(expectedSize);
+        if (capacity > keys.length) {
+            rehash(capacity);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(values, MISSING);
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldValues[j] != MISSING) {
+                int i = hash(oldKeys[j]) & mask;
+                while (values[i] != MISSING) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package stevenchen.orderbook.util;
+
+/**
+ * Shallow size estimates of heap objects and arrays, for the memory footprint of the book structures.
+ * <p>
+ * The estimates assume the layout of a 64-bit HotSpot JVM with compressed class pointers and compressed oops,
+ * the default below 32 GB of heap: a 12 byte object header, a 16 byte array header, 4 byte references and
+ * 8 byte alignment. They are meant for sizing the heap, not for exact accounting.
+ */
+public final class MemoryEstimates {
+    public static final int OBJECT_HEADER_BYTES = 12;
+    public static final int ARRAY_HEADER_BYTES = 16;
+    public static final int REFERENCE_BYTES = 4;
+
+    private MemoryEstimates() {
+    }
+
+    /**
+     * @param fieldBytes total size of the fields of the object, including the inherited ones
+     * @return the size of an object with the given fields
+     */
+    public static long objectBytes(long fieldBytes) {
+        return align(OBJECT_HEADER_BYTES + fieldBytes);
+    }
+
+    /**
+     * @return the size of an array of the given length
+     */
+    public static long arrayBytes(long length, int elementBytes) {
+        return align(ARRAY_HEADER_BYTES + length * elementBytes);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
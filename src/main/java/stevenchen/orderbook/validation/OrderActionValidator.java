@@ -0,0 +1,40 @@
+package stevenchen.orderbook.validation;
+
+import stevenchen.orderbook.action.AddAction;
+import stevenchen.orderbook.action.ModifyAction;
+import stevenchen.orderbook.action.OrderAction;
+import stevenchen.orderbook.action.RemoveAction;
+import stevenchen.orderbook.event.RejectReason;
+
+/**
+ * The checks of an action that do not depend on the state of the book, run by the {@link ValidationStage} threads,
+ * or by the processing thread itself when the book has no validation stage.
+ */
+public final class OrderActionValidator {
+
+    private OrderActionValidator() {
+    }
+
+    /**
+     * @return the reason to reject the action, null if it is valid
+     */
+    public static RejectReason validate(OrderAction orderAction) {
+        return switch (orderAction) {
+            case AddAction addAction -> addAction.getSize() <= 0 ? RejectReason.INVALID_SIZE : null;
+            case ModifyAction modifyAction -> modifyAction.getNewSize() <= 0 ? RejectReason.INVALID_SIZE : null;
+            case null, default -> null;
+        };
+    }
+
+    /**
+     * @return the order id the action applies to, 0 for actions without one
+     */
+    public static long getOrderId(OrderAction orderAction) {
+        return switch (orderAction) {
+            case AddAction addAction -> addAction.getOrderId();
+            case ModifyAction modifyAction -> modifyAction.getOrderId();
+            case RemoveAction removeAction -> removeAction.getOrderId();
+            case null, default -> 0;
+        };
+    }
+}
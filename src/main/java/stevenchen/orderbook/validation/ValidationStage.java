@@ -0,0 +1,277 @@
+package stevenchen.orderbook.validation;
+
+import stevenchen.orderbook.action.ActionType;
+import stevenchen.orderbook.action.OrderAction;
+import stevenchen.orderbook.event.RejectReason;
+import stevenchen.orderbook.sequencer.OrderActionRingBuffer;
+import stevenchen.orderbook.sequencer.OrderActionSlot;
+import stevenchen.orderbook.sequencer.WaitStrategy;
+import stevenchen.orderbook.util.LongIntHashMap;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pipeline stage between the producers and the processing thread of an OrderBook, validating the published actions
+ * on several threads before the book applies them.
+ * <p>
+ * Every thread reads all published slots in sequence order, but only validates the actions whose order id falls
+ * in its partition, and marks the slot with a {@link RejectReason} if the action must not be applied. The processing
+ * thread only reads a slot once every partition has passed its sequence, see {@link #getValidatedSequence()}.
+ * <p>
+ * Besides the checks of {@link OrderActionValidator}, each partition counts, for each order id, the adds it accepted
+ * minus the orders the book reports as gone through {@link #orderReleased(long)}. A modify or remove of an id with no
+ * count cannot find a resting order, so it is rejected without reaching the book. The reports lag behind the
+ * validation, so a count may still be positive for an order that is gone by the time the action is applied: the book
+ * checks the order id again and rejects it then. Duplicate adds are left to the book for the same reason.
+ */
+public class ValidationStage implements AutoCloseable {
+    private final OrderActionRingBuffer orderActionRingBuffer;
+    private final WaitStrategy waitStrategy;
+    private final Partition[] partitions;
+    private final Thread[] threads;
+
+    public ValidationStage(OrderActionRingBuffer orderActionRingBuffer, int threadCount, WaitStrategy waitStrategy) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("Validation thread count must be positive, got " + threadCount);
+        }
+        this.orderActionRingBuffer = orderActionRingBuffer;
+        this.waitStrategy = waitStrategy;
+        this.partitions = new Partition[threadCount];
+        this.threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            partitions[i] = new Partition(i);
+            threads[i] = new Thread(partitions[i], "orderbook-validation-" + i);
+            threads[i].setDaemon(true);
+        }
+    }
+
+    /**
+     * Start the threads, validating from the given sequence on. The orders already resting must have been reported
+     * with {@link #orderAccepted(long)} and {@link #flush()} before.
+     */
+    public void start(long fromSequence) {
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i].validatedSequence.set(fromSequence - 1);
+            threads[i].start();
+        }
+    }
+
+    /**
+     * @return the highest sequence validated by every partition
+     */
+    public long getValidatedSequence() {
+        long validated = Long.MAX_VALUE;
+        for (Partition partition : partitions) {
+            validated = Math.min(validated, partition.validatedSequence.get());
+        }
+        return validated;
+    }
+
+    /**
+     * Wait until the given sequence is validated.
+     * @return the highest validated sequence, at least the given sequence
+     */
+    public long waitFor(long sequence) throws InterruptedException {
+        return waitFor(sequence, Long.MAX_VALUE);
+    }
+
+    /**
+     * Wait until the given sequence is validated or the timeout elapses.
+     * @return the highest validated sequence, or sequence - 1 on timeout
+     */
+    public long waitFor(long sequence, long timeoutNanos) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        int attempt = 0;
+        long validated;
+        while ((validated = getValidatedSequence()) < sequence) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (System.nanoTime() - startNanos >= timeoutNanos) {
+                return sequence - 1;
+            }
+            waitStrategy.idle(attempt++);
+        }
+        return validated;
+    }
+
+    /**
+     * Wait until the given published sequence is validated, the validation threads never block on anything else.
+     */
+    public void awaitValidated(long sequence) {
+        int attempt = 0;
+        while (getValidatedSequence() < sequence) {
+            waitStrategy.idle(attempt++);
+        }
+    }
+
+    /**
+     * Report an order that rests in the book without having been validated, such as a recovered or bulk loaded one.
+     * Called under the OrderBook lock, the report reaches the partition on the next {@link #flush()}.
+     */
+    public void orderAccepted(long orderId) {
+        partitions[partition(orderId, partitions.length)].accepted.add(orderId);
+    }
+
+    /**
+     * Report an order that left the book, or an add that did not rest in it.
+     * Called under the OrderBook lock, the report reaches the partition on the next {@link #flush()}.
+     */
+    public void orderReleased(long orderId) {
+        partitions[partition(orderId, partitions.length)].released.add(orderId);
+    }
+
+    /**
+     * Hand the reports collected since the last flush over to the partitions, called by the processing thread
+     * after every batch.
+     */
+    public void flush() {
+        for (Partition partition : partitions) {
+            partition.handOver();
+        }
+    }
+
+    /**
+     * Stop the threads.
+     */
+    @Override
+    public void close() {
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Spread order ids over the partitions with a mix independent of the hash of LongIntHashMap,
+     * so the ids of a partition do not cluster in its map.
+     */
+    static int partition(long orderId, int partitionCount) {
+        long h = orderId;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return (int) Long.remainderUnsigned(h ^ (h >>> 33), partitionCount);
+    }
+
+    private final class Partition implements Runnable {
+        private final int index;
+        private final AtomicLong validatedSequence = new AtomicLong(-1);
+        // collected by the processing thread
+        private final LongBuffer accepted = new LongBuffer();
+        private final LongBuffer released = new LongBuffer();
+        // handed over to the validation thread, guarded by this partition
+        private final LongBuffer handedOverAccepted = new LongBuffer();
+        private final LongBuffer handedOverReleased = new LongBuffer();
+        // only used by the validation thread: order id to adds accepted and not released yet
+        private final LongIntHashMap liveOrders = new LongIntHashMap();
+
+        private Partition(int index) {
+            this.index = index;
+        }
+
+        private void handOver() {
+            if (accepted.size == 0 && released.size == 0) {
+                return;
+            }
+            synchronized (this) {
+                handedOverAccepted.addAll(accepted);
+                handedOverReleased.addAll(released);
+            }
+            accepted.size = 0;
+            released.size = 0;
+        }
+
+        private void applyHandOver() {
+            synchronized (this) {
+                for (int i = 0; i < handedOverAccepted.size; i++) {
+                    increment(handedOverAccepted.values[i]);
+                }
+                for (int i = 0; i < handedOverReleased.size; i++) {
+                    long orderId = handedOverReleased.values[i];
+                    int count = liveOrders.get(orderId);
+                    if (count == 1) {
+                        liveOrders.remove(orderId);
+                    } else if (count > 1) {
+                        liveOrders.put(orderId, count - 1);
+                    }
+                }
+                handedOverAccepted.size = 0;
+                handedOverReleased.size = 0;
+            }
+        }
+
+        private void increment(long orderId) {
+            int count = liveOrders.get(orderId);
+            liveOrders.put(orderId, count == LongIntHashMap.MISSING ? 1 : count + 1);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    long next = validatedSequence.get() + 1;
+                    long available = orderActionRingBuffer.waitFor(next);
+                    applyHandOver();
+                    for (long sequence = next; sequence <= available; sequence++) {
+                        validate(orderActionRingBuffer.get(sequence));
+                    }
+                    validatedSequence.set(available);
+                }
+            } catch (InterruptedException e) {
+                // closed
+            }
+        }
+
+        private void validate(OrderActionSlot slot) {
+            OrderAction orderAction = slot.getOrderAction();
+            ActionType type = orderAction.getType();
+            if (type != ActionType.ADD && type != ActionType.MODIFY && type != ActionType.REMOVE) {
+                return;
+            }
+            long orderId = OrderActionValidator.getOrderId(orderAction);
+            if (partition(orderId, partitions.length) != index) {
+                return;
+            }
+            RejectReason rejectReason = OrderActionValidator.validate(orderAction);
+            if (rejectReason == null && type != ActionType.ADD && !liveOrders.containsKey(orderId)) {
+                rejectReason = RejectReason.UNKNOWN_ORDER_ID;
+            }
+            if (rejectReason != null) {
+                slot.setRejectReason(rejectReason);
+            } else if (type == ActionType.ADD) {
+                increment(orderId);
+            }
+        }
+    }
+
+    /**
+     * A growable list of primitive longs, reused once grown.
+     */
+    private static final class LongBuffer {
+        private long[] values = new long[64];
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private void addAll(LongBuffer other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+    }
+}
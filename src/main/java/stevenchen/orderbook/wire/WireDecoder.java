@@ -0,0 +1,105 @@
+package stevenchen.orderbook.wire;
+
+import stevenchen.orderbook.model.InstrumentDescriptor;
+import stevenchen.orderbook.model.OrderType;
+import stevenchen.orderbook.model.Side;
+import stevenchen.orderbook.sequencer.OrderActionRingBuffer;
+import stevenchen.orderbook.sequencer.OrderActionSlot;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+import static stevenchen.orderbook.wire.WireFormat.*;
+
+/**
+ * Decodes a batch of {@link WireFormat} messages straight into the slots of a ring buffer.
+ * <p>
+ * The fields are read from the segment into the preallocated actions of the slots, so no Order, action or
+ * timestamp object is created. The batch is validated before the first slot is claimed, so a malformed message
+ * rejects the whole batch and the book never sees part of it.
+ */
+public final class WireDecoder {
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+
+    private WireDecoder() {
+    }
+
+    /**
+     * Validate and publish every message of the segment, with the prices checked against the default instrument.
+     * @param matchingEnabled whether the book accepts order types other than LIMIT
+     * @return the number of messages published
+     */
+    public static int publish(MemorySegment messages, OrderActionRingBuffer orderActionRingBuffer, boolean matchingEnabled) {
+        return publish(messages, orderActionRingBuffer, matchingEnabled, InstrumentDescriptor.DEFAULT);
+    }
+
+    /**
+     * Validate and publish every message of the segment.
+     * @param matchingEnabled whether the book accepts order types other than LIMIT
+     * @param instrumentDescriptor the bounds the prices in ticks must be within
+     * @return the number of messages published
+     */
+    public static int publish(MemorySegment messages, OrderActionRingBuffer orderActionRingBuffer, boolean matchingEnabled,
+                              InstrumentDescriptor instrumentDescriptor) {
+        if (messages.byteSize() % MESSAGE_SIZE != 0) {
+            throw new IllegalArgumentException("Batch size must be a multiple of " + MESSAGE_SIZE + " bytes, got " + messages.byteSize());
+        }
+        int messageCount = (int) (messages.byteSize() / MESSAGE_SIZE);
+        for (int i = 0; i < messageCount; i++) {
+            validate(messages, (long) i * MESSAGE_SIZE, matchingEnabled, instrumentDescriptor);
+        }
+        int published = 0;
+        while (published < messageCount) {
+            int claimCount = Math.min(messageCount - published, orderActionRingBuffer.getCapacity());
+            long lastSequence = orderActionRingBuffer.next(claimCount);
+            for (long sequence = lastSequence - claimCount + 1; sequence <= lastSequence; sequence++) {
+                decode(messages, (long) published++ * MESSAGE_SIZE, orderActionRingBuffer.get(sequence));
+                orderActionRingBuffer.publish(sequence);
+            }
+        }
+        return messageCount;
+    }
+
+    private static void validate(MemorySegment messages, long offset, boolean matchingEnabled, InstrumentDescriptor instrumentDescriptor) {
+        byte type = messages.get(ValueLayout.JAVA_BYTE, offset + TYPE_OFFSET);
+        if (type == REMOVE || type == MODIFY) {
+            return;
+        }
+        if (type != ADD) {
+            throw new IllegalArgumentException("Invalid message type " + type + " at offset " + offset);
+        }
+        byte side = messages.get(ValueLayout.JAVA_BYTE, offset + SIDE_OFFSET);
+        if (side != BID && side != OFFER) {
+            throw new IllegalArgumentException("Invalid side " + side + " at offset " + offset);
+        }
+        byte orderType = messages.get(ValueLayout.JAVA_BYTE, offset + ORDER_TYPE_OFFSET);
+        if (orderType < 0 || orderType >= ORDER_TYPES.length) {
+            throw new IllegalArgumentException("Invalid order type " + orderType + " at offset " + offset);
+        }
+        if (ORDER_TYPES[orderType] != OrderType.LIMIT && !matchingEnabled) {
+            throw new IllegalArgumentException("Order type " + ORDER_TYPES[orderType] + " needs matching to be enabled, at offset " + offset);
+        }
+        int price = messages.get(INT, offset + PRICE_OFFSET);
+        // a MARKET order has no limit price, it is decoded as 0
+        if (ORDER_TYPES[orderType] != OrderType.MARKET && !instrumentDescriptor.isValidTicks(price)) {
+            throw new IllegalArgumentException("Price " + price + " ticks is outside the bounds of " + instrumentDescriptor + ", at offset " + offset);
+        }
+    }
+
+    private static void decode(MemorySegment messages, long offset, OrderActionSlot slot) {
+        long orderId = messages.get(LONG, offset + ORDER_ID_OFFSET);
+        switch (messages.get(ValueLayout.JAVA_BYTE, offset + TYPE_OFFSET)) {
+            case ADD -> {
+                OrderType orderType = ORDER_TYPES[messages.get(ValueLayout.JAVA_BYTE, offset + ORDER_TYPE_OFFSET)];
+                slot.setAddAction(orderId,
+                        orderType == OrderType.MARKET ? 0 : messages.get(INT, offset + PRICE_OFFSET),
+                        messages.get(ValueLayout.JAVA_BYTE, offset + SIDE_OFFSET) == BID ? Side.BID : Side.OFFER,
+                        messages.get(LONG, offset + SIZE_OFFSET),
+                        messages.get(LONG, offset + ORDER_TIME_OFFSET),
+                        orderType);
+            }
+            case REMOVE -> slot.setRemoveAction(orderId);
+            default -> slot.setModifyAction(orderId, messages.get(LONG, offset + SIZE_OFFSET));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package stevenchen.orderbook.wire;
+
+import stevenchen.orderbook.model.OrderType;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Layout of the binary order messages accepted by {@link WireDecoder}.
+ * <p>
+ * A batch is a sequence of fixed-width 32 byte little endian messages. A message holds the message type, the side
+ * ('B' or 'O') and the {@link OrderType} ordinal as bytes at offset 0, 1 and 2, the price in ticks as an int at
+ * offset 4, then the order id, size and order time in epoch milliseconds as longs. REMOVE messages only use the
+ * order id, MODIFY messages the order id and size. The price is widened to the long ticks of the book when decoded,
+ * so a message carries prices within +/- 2^31 ticks.
+ */
+public final class WireFormat {
+    static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    public static final int MESSAGE_SIZE = 32;
+    static final long TYPE_OFFSET = 0;
+    static final long SIDE_OFFSET = 1;
+    static final long ORDER_TYPE_OFFSET = 2;
+    static final long PRICE_OFFSET = 4;
+    static final long ORDER_ID_OFFSET = 8;
+    static final long SIZE_OFFSET = 16;
+    static final long ORDER_TIME_OFFSET = 24;
+
+    public static final byte ADD = 1;
+    public static final byte REMOVE = 2;
+    public static final byte MODIFY = 3;
+
+    public static final byte BID = 'B';
+    public static final byte OFFER = 'O';
+
+    private WireFormat() {
+    }
+
+    /**
+     * Encode an ADD message at the given byte offset.
+     */
+    public static void writeAdd(MemorySegment segment, long offset, long orderId, int price, byte side, long size,
+                                long orderTime, OrderType orderType) {
+        segment.set(ValueLayout.JAVA_BYTE, offset + TYPE_OFFSET, ADD);
+        segment.set(ValueLayout.JAVA_BYTE, offset + SIDE_OFFSET, side);
+        segment.set(ValueLayout.JAVA_BYTE, offset + ORDER_TYPE_OFFSET, (byte) orderType.ordinal());
+        segment.set(INT, offset + PRICE_OFFSET, price);
+        segment.set(LONG, offset + ORDER_ID_OFFSET, orderId);
+        segment.set(LONG, offset + SIZE_OFFSET, size);
+        segment.set(LONG, offset + ORDER_TIME_OFFSET, orderTime);
+    }
+
+    /**
+     * Encode a REMOVE message at the given byte offset.
+     */
+    public static void writeRemove(MemorySegment segment, long offset, long orderId) {
+        segment.set(ValueLayout.JAVA_BYTE, offset + TYPE_OFFSET, REMOVE);
+        segment.set(LONG, offset + ORDER_ID_OFFSET, orderId);
+    }
+
+    /**
+     * Encode a MODIFY message at the given byte offset.
+     */
+    public static void writeModify(MemorySegment segment, long offset, long orderId, long newSize) {
+        segment.set(ValueLayout.JAVA_BYTE, offset + TYPE_OFFSET, MODIFY);
+        segment.set(LONG, offset + ORDER_ID_OFFSET, orderId);
+        segment.set(LONG, offset + SIZE_OFFSET, newSize);
+    }
+}
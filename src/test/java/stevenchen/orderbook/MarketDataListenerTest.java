@@ -0,0 +1,89 @@
+package stevenchen.orderbook;
+
+import org.junit.jupiter.api.Test;
+import stevenchen.orderbook.event.LevelEventType;
+import stevenchen.orderbook.event.MarketDataListener;
+import stevenchen.orderbook.event.OrderEventType;
+import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.model.Side;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MarketDataListenerTest {
+
+    private static class RecordingListener implements MarketDataListener {
+        private final List<String> orderEvents = new ArrayList<>();
+        private final List<String> levelEvents = new ArrayList<>();
+        private final List<Long> batchEnds = new ArrayList<>();
+
+        @Override
+        public void onOrderEvent(OrderEventType type, long sequence, long orderId, Side side, double price, long size) {
+            orderEvents.add(type + " " + sequence + " " + orderId + " " + side + " " + price + " " + size);
+        }
+
+        @Override
+        public void onLevelEvent(LevelEventType type, long sequence, Side side, double price, long totalSize, int orderCount) {
+            levelEvents.add(type + " " + sequence + " " + side + " " + price + " " + totalSize + " " + orderCount);
+        }
+
+        @Override
+        public void onBatchEnd(long sequence) {
+            batchEnds.add(sequence);
+        }
+    }
+
+    @Test
+    void orderAndLevelEventsTest() {
+        OrderBook orderBook = new OrderBook();
+        RecordingListener listener = new RecordingListener();
+        orderBook.addMarketDataListener(listener);
+        orderBook.addOrder(new Order(100, 100.0, 'B', 100));
+        orderBook.addOrder(new Order(101, 100.0, 'B', 200));
+        orderBook.modifyOrder(100, 50);
+        orderBook.removeOrder(100);
+        orderBook.removeOrder(101);
+        orderBook.drainAndProcessOrderActions();
+
+        assertEquals(List.of(
+                "ADD 0 100 BID 100.0 100",
+                "ADD 1 101 BID 100.0 200",
+                "MODIFY 2 100 BID 100.0 50",
+                "REMOVE 3 100 BID 100.0 0",
+                "REMOVE 4 101 BID 100.0 0"), listener.orderEvents);
+        assertEquals(List.of(
+                "NEW 0 BID 100.0 100 1",
+                "UPDATE 1 BID 100.0 300 2",
+                "UPDATE 2 BID 100.0 250 2",
+                "UPDATE 3 BID 100.0 200 1",
+                "DELETE 4 BID 100.0 0 0"), listener.levelEvents);
+        assertEquals(List.of(4L), listener.batchEnds);
+    }
+
+    @Test
+    void conflatedLevelEventsTest() {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setConflateLevelEvents(true));
+        RecordingListener listener = new RecordingListener();
+        orderBook.addMarketDataListener(listener);
+        orderBook.addOrder(new Order(100, 100.0, 'B', 100));
+        orderBook.addOrder(new Order(101, 100.0, 'B', 200));
+        orderBook.addOrder(new Order(102, 101.0, 'O', 300));
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(List.of(
+                "NEW 2 BID 100.0 300 2",
+                "NEW 2 OFFER 101.0 300 1"), listener.levelEvents);
+
+        listener.levelEvents.clear();
+        orderBook.modifyOrder(100, 50);
+        orderBook.removeOrder(102);
+        // created and deleted in the same batch, not reported
+        orderBook.addOrder(new Order(103, 99.0, 'B', 400));
+        orderBook.removeOrder(103);
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(List.of(
+                "UPDATE 6 BID 100.0 250 2",
+                "DELETE 6 OFFER 101.0 0 0"), listener.levelEvents);
+    }
+}
@@ -0,0 +1,155 @@
+package stevenchen.orderbook;
+
+import org.junit.jupiter.api.Test;
+import stevenchen.orderbook.event.RejectReason;
+import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.model.OrderType;
+import stevenchen.orderbook.model.Side;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderBookAsyncTest {
+
+    @Test
+    void futureOutcomeTest() {
+        OrderBook orderBook = new OrderBook();
+        CompletableFuture<ActionResult> added = orderBook.addOrderAsync(new Order(1, 100.0, 'B', 100));
+        CompletableFuture<ActionResult> duplicate = orderBook.addOrderAsync(new Order(1, 101.0, 'B', 100));
+        CompletableFuture<ActionResult> invalid = orderBook.modifyOrderAsync(1, 0);
+        CompletableFuture<ActionResult> modified = orderBook.modifyOrderAsync(1, 50);
+        CompletableFuture<ActionResult> removed = orderBook.removeOrderAsync(1);
+        CompletableFuture<ActionResult> unknown = orderBook.removeOrderAsync(1);
+        assertFalse(added.isDone());
+
+        orderBook.drainAndProcessOrderActions();
+        assertTrue(added.join().isApplied());
+        assertEquals(0, added.join().getSequence());
+        assertNull(added.join().getRejectReason());
+        assertEquals(RejectReason.DUPLICATE_ORDER_ID, duplicate.join().getRejectReason());
+        assertEquals(1, duplicate.join().getSequence());
+        assertEquals(RejectReason.INVALID_SIZE, invalid.join().getRejectReason());
+        assertTrue(modified.join().isApplied());
+        assertEquals(4, removed.join().getSequence());
+        assertEquals(RejectReason.UNKNOWN_ORDER_ID, unknown.join().getRejectReason());
+        assertEquals(0, orderBook.getOrdersCount());
+    }
+
+    @Test
+    void callbackTest() {
+        OrderBook orderBook = new OrderBook();
+        List<String> outcomes = new ArrayList<>();
+        ActionCallback callback = new ActionCallback() {
+            @Override
+            public void onApplied(long sequence, long filledSize) {
+                outcomes.add("applied " + sequence);
+            }
+
+            @Override
+            public void onRejected(long sequence, RejectReason reason) {
+                outcomes.add("rejected " + sequence + " " + reason);
+            }
+        };
+        orderBook.addOrder(new Order(1, 100.0, 'B', 100), OrderType.LIMIT, callback);
+        // slots are reused, a later action without a callback must not report to the previous one
+        orderBook.addOrder(new Order(2, 100.0, 'B', 100));
+        orderBook.removeOrder(3, callback);
+        orderBook.modifyOrder(2, 10, callback);
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(List.of("applied 0", "rejected 2 UNKNOWN_ORDER_ID", "applied 3"), outcomes);
+    }
+
+    @Test
+    void filledSizeTest() {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setMatchingEnabled(true));
+        orderBook.addOrder(new Order(1, 101.0, 'O', 100));
+        CompletableFuture<ActionResult> resting = orderBook.addOrderAsync(new Order(2, 100.0, 'B', 100));
+        CompletableFuture<ActionResult> killed = orderBook.addOrderAsync(new Order(3, 101.0, 'B', 150), OrderType.FOK);
+        CompletableFuture<ActionResult> ioc = orderBook.addOrderAsync(new Order(4, 101.0, 'B', 60), OrderType.IOC);
+        CompletableFuture<ActionResult> market = orderBook.addOrderAsync(new Order(5, 0, 'B', 70), OrderType.MARKET);
+        CompletableFuture<ActionResult> modified = orderBook.modifyOrderAsync(2, 50);
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(0, resting.join().getFilledSize());
+        // the FOK order is killed and the remainders of the IOC and MARKET orders are cancelled, all are applied
+        assertTrue(killed.join().isApplied());
+        assertEquals(0, killed.join().getFilledSize());
+        assertEquals(60, ioc.join().getFilledSize());
+        assertTrue(market.join().isApplied());
+        assertEquals(40, market.join().getFilledSize());
+        assertEquals(0, modified.join().getFilledSize());
+        assertEquals(1, orderBook.getOrdersCount());
+    }
+
+    @Test
+    void completedAfterBatchTest() {
+        OrderBook orderBook = new OrderBook();
+        List<Long> bookVersions = new ArrayList<>();
+        ActionCallback callback = new ActionCallback() {
+            @Override
+            public void onApplied(long sequence, long filledSize) {
+                bookVersions.add(orderBook.getBookVersion());
+            }
+
+            @Override
+            public void onRejected(long sequence, RejectReason reason) {
+                bookVersions.add(-orderBook.getBookVersion());
+            }
+        };
+        List<CompletableFuture<ActionResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(orderBook.addOrderAsync(new Order(i, 100.0, 'B', 100)));
+        }
+        orderBook.addOrder(new Order(100, 100.0, 'B', 100), OrderType.LIMIT, callback);
+        orderBook.removeOrder(200, callback);
+        orderBook.drainAndProcessOrderActions();
+        // the outcomes are reported once the whole batch is applied and journaled
+        assertEquals(List.of(1L, -1L), bookVersions);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, futures.get(i).join().getSequence());
+        }
+    }
+
+    @Test
+    void virtualThreadGatewaysTest() throws Exception {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setMatchingEnabled(true));
+        Thread processingThread = new Thread(() -> {
+            try {
+                orderBook.continuousProcessOrderActions();
+            } catch (InterruptedException e) {
+                // stopped by the test
+            }
+        });
+        processingThread.start();
+        int connections = 10_000;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < connections; i++) {
+                long orderId = i;
+                // each connection adds an order and waits for it before removing it
+                results.add(executor.submit(() -> {
+                    ActionResult added = orderBook.addOrderAsync(new Order(orderId, 100.0 - orderId % 10, 'B', 10)).get(10, TimeUnit.SECONDS);
+                    ActionResult removed = orderBook.removeOrderAsync(orderId).get(10, TimeUnit.SECONDS);
+                    return added.isApplied() && removed.isApplied() && removed.getSequence() > added.getSequence();
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            processingThread.interrupt();
+            processingThread.join();
+        }
+        assertEquals(0, orderBook.getOrdersCount());
+        assertEquals(0, orderBook.getLevelCount(Side.BID));
+    }
+}
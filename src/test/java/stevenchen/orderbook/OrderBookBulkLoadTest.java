@@ -0,0 +1,139 @@
+package stevenchen.orderbook;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.model.OrderStorageType;
+import stevenchen.orderbook.model.Side;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderBookBulkLoadTest {
+
+    @Test
+    void bulkLoadTest() {
+        OrderBook orderBook = new OrderBook();
+        orderBook.bulkLoad(new Order[]{
+                new Order(1, 100.0, 'B', 100),
+                new Order(2, 101.0, 'O', 300),
+                new Order(3, 99.0, 'B', 200),
+                new Order(4, 100.0, 'B', 400),
+                new Order(5, 101.0, 'O', 500)});
+
+        assertEquals(5, orderBook.getOrdersCount());
+        assertEquals(2, orderBook.getLevelCount(Side.BID));
+        assertEquals(100.0, orderBook.getLevelPrice(Side.BID, 0));
+        assertEquals(500, orderBook.getLevelTotalSize(Side.BID, 0));
+        assertEquals(99.0, orderBook.getLevelPrice(Side.BID, 1));
+        assertEquals(800, orderBook.getLevelTotalSize(Side.OFFER, 0));
+        // the array order is the time priority within a level
+        assertArrayEquals(new long[]{1, 4, 3}, orderBook.getAllOrdersOnSide(Side.BID).stream().mapToLong(Order::getId).toArray());
+        assertArrayEquals(new long[]{2, 5}, orderBook.getAllOrdersOnSide(Side.OFFER).stream().mapToLong(Order::getId).toArray());
+        assertEquals(101.0, orderBook.snapshot(1).getLevelPrice(Side.OFFER, 0));
+
+        // loaded orders are modified and removed like any other
+        orderBook.removeOrder(1);
+        orderBook.modifyOrder(5, 100);
+        orderBook.addOrder(new Order(6, 100.0, 'B', 50));
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(450, orderBook.getLevelTotalSize(Side.BID, 0));
+        assertEquals(400, orderBook.getLevelTotalSize(Side.OFFER, 0));
+    }
+
+    @Test
+    void bulkLoadMatchesSequentialAddsTest() {
+        Random random = new Random(7);
+        Order[] orders = new Order[100_000];
+        for (int i = 0; i < orders.length; i++) {
+            boolean bid = random.nextBoolean();
+            double price = bid ? 100.0 - random.nextInt(500) / 100.0 : 100.01 + random.nextInt(500) / 100.0;
+            orders[i] = new Order(i * 3L, price, bid ? 'B' : 'O', 1 + random.nextInt(1000));
+        }
+        OrderBook loaded = new OrderBook(new OrderBookConfig().setOrderStorageType(OrderStorageType.OFF_HEAP).setInitialOrderCapacity(16));
+        loaded.bulkLoad(Stream.of(orders));
+        OrderBook added = new OrderBook();
+        for (Order order : orders) {
+            added.addOrder(order);
+            added.drainAndProcessOrderActions();
+        }
+
+        for (Side side : Side.values()) {
+            assertEquals(added.getLevelCount(side), loaded.getLevelCount(side));
+            for (int level = 0; level < added.getLevelCount(side); level++) {
+                assertEquals(added.getLevelPrice(side, level), loaded.getLevelPrice(side, level));
+                assertEquals(added.getLevelTotalSize(side, level), loaded.getLevelTotalSize(side, level));
+            }
+            assertArrayEquals(added.getAllOrdersOnSide(side).stream().mapToLong(Order::getId).toArray(),
+                    loaded.getAllOrdersOnSide(side).stream().mapToLong(Order::getId).toArray());
+        }
+        loaded.close();
+        added.close();
+    }
+
+    @Test
+    void invalidBulkLoadTest() {
+        OrderBook orderBook = new OrderBook();
+        assertThrows(IllegalArgumentException.class, () -> orderBook.bulkLoad(new Order[]{new Order(1, 100.0, 'B', 100), null}));
+        assertThrows(IllegalArgumentException.class, () -> orderBook.bulkLoad(new Order[]{new Order(1, 100.0, 'X', 100)}));
+        assertThrows(IllegalArgumentException.class, () -> orderBook.bulkLoad(new Order[]{new Order(1, 100.0, 'B', 100), new Order(1, 99.0, 'B', 100)}));
+        // a rejected load leaves the book untouched
+        assertEquals(0, orderBook.getOrdersCount());
+
+        orderBook.bulkLoad(new Order[]{new Order(1, 100.0, 'B', 100)});
+        assertThrows(IllegalStateException.class, () -> orderBook.bulkLoad(new Order[]{new Order(2, 100.0, 'B', 100)}));
+
+        OrderBook matchingBook = new OrderBook(new OrderBookConfig().setMatchingEnabled(true));
+        assertThrows(IllegalArgumentException.class, () -> matchingBook.bulkLoad(new Order[]{new Order(1, 100.0, 'B', 100), new Order(2, 100.0, 'O', 100)}));
+        matchingBook.bulkLoad(new Order[]{new Order(1, 100.0, 'B', 100), new Order(2, 100.01, 'O', 100)});
+        assertEquals(2, matchingBook.getOrdersCount());
+    }
+
+    @Test
+    void bulkLoadCheckpointTest(@TempDir Path journalDirectory) {
+        OrderBookConfig config = new OrderBookConfig().setJournalDirectory(journalDirectory);
+        try (OrderBook orderBook = new OrderBook(config)) {
+            orderBook.bulkLoad(new Order[]{new Order(1, 100.0, 'B', 100), new Order(2, 101.0, 'O', 300)});
+            orderBook.writeCheckpoint().join();
+            orderBook.addOrder(new Order(3, 99.0, 'B', 200));
+            orderBook.drainAndProcessOrderActions();
+        }
+        try (OrderBook recovered = new OrderBook(config)) {
+            assertEquals(3, recovered.getOrdersCount());
+            assertEquals(2, recovered.getLevelCount(Side.BID));
+            assertEquals(300, recovered.getLevelTotalSize(Side.OFFER, 0));
+        }
+    }
+
+    @Test
+    void statisticsTest() {
+        OrderBook orderBook = new OrderBook();
+        BookStatistics empty = orderBook.getStatistics(5);
+        assertEquals(0, empty.getTotalSize(Side.BID));
+        assertTrue(Double.isNaN(empty.getVwap(Side.OFFER)));
+
+        orderBook.bulkLoad(List.of(
+                new Order(1, 100.0, 'B', 100),
+                new Order(2, 100.0, 'B', 100),
+                new Order(3, 99.0, 'B', 200),
+                new Order(4, 90.0, 'B', 1000),
+                new Order(5, 101.0, 'O', 300)).stream());
+        BookStatistics statistics = orderBook.getStatistics(2);
+        assertEquals(1400, statistics.getTotalSize(Side.BID));
+        assertEquals(4, statistics.getOrderCount(Side.BID));
+        assertEquals(3, statistics.getLevelCount(Side.BID));
+        // the 90.0 level is beyond the two best levels
+        assertEquals(99.5, statistics.getVwap(Side.BID), 1e-9);
+        assertEquals(101.0, statistics.getVwap(Side.OFFER), 1e-9);
+        assertEquals(1, statistics.getLevelCount(Side.OFFER));
+        assertEquals(orderBook.getBookVersion(), statistics.getBookVersion());
+        assertThrows(IllegalArgumentException.class, () -> orderBook.getStatistics(0));
+    }
+}
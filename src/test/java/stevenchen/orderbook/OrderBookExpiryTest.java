@@ -0,0 +1,112 @@
+package stevenchen.orderbook;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import stevenchen.orderbook.event.MarketDataListener;
+import stevenchen.orderbook.event.OrderEventType;
+import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.model.Side;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OrderBookExpiryTest {
+
+    private static void sleepUntil(long time) throws InterruptedException {
+        while (System.currentTimeMillis() < time) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    void expiryIsSequencedTest() throws InterruptedException {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setExpiryTickMillis(1));
+        List<String> events = new ArrayList<>();
+        orderBook.addMarketDataListener(new MarketDataListener() {
+            @Override
+            public void onOrderEvent(OrderEventType type, long sequence, long orderId, Side side, double price, long size) {
+                events.add(type + " " + sequence + " " + orderId);
+            }
+        });
+        long expireTime = System.currentTimeMillis() + 30;
+        orderBook.addGoodTillTimeOrder(new Order(1, 100.0, 'B', 100), expireTime);
+        orderBook.addGoodTillTimeOrder(new Order(2, 100.0, 'B', 200), expireTime);
+        orderBook.addOrder(new Order(3, 100.0, 'B', 300));
+        orderBook.addGoodTillTimeOrder(new Order(4, 101.0, 'B', 400), expireTime);
+        orderBook.removeOrder(4);
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(3, orderBook.getOrdersCount());
+
+        sleepUntil(expireTime + 2);
+        orderBook.drainAndProcessOrderActions();
+        // both orders expire in one action, numbered after the last published one
+        assertEquals(List.of("REMOVE 5 1", "REMOVE 5 2"), events.subList(5, 7));
+        assertEquals(1, orderBook.getOrdersCount());
+        assertEquals(300, orderBook.getLevelTotalSize(Side.BID, 0));
+        assertEquals(5, orderBook.snapshot(1).getSequence());
+
+        // nothing left to expire, no more actions are published
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(5, orderBook.snapshot(1).getSequence());
+        assertThrows(IllegalArgumentException.class, () -> orderBook.addGoodTillTimeOrder(new Order(5, 100.0, 'B', 100), 0));
+    }
+
+    @Test
+    void idleProcessingThreadExpiresTest() throws InterruptedException {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setExpiryTickMillis(1));
+        Thread processingThread = new Thread(() -> {
+            try {
+                orderBook.continuousProcessOrderActions();
+            } catch (InterruptedException e) {
+                // stopped by the test
+            }
+        });
+        processingThread.start();
+        try {
+            orderBook.addGoodTillTimeOrder(new Order(1, 100.0, 'O', 100), System.currentTimeMillis() + 20);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (orderBook.getLevelCount(Side.OFFER) > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            // no other action is published, the processing thread expires the order on its own
+            assertEquals(0, orderBook.getLevelCount(Side.OFFER));
+        } finally {
+            processingThread.interrupt();
+            processingThread.join();
+        }
+    }
+
+    @Test
+    void expiryRecoveryTest(@TempDir Path journalDirectory) throws InterruptedException {
+        OrderBookConfig config = new OrderBookConfig().setJournalDirectory(journalDirectory).setExpiryTickMillis(1);
+        long expireTime = System.currentTimeMillis() + 200;
+        try (OrderBook orderBook = new OrderBook(config)) {
+            orderBook.addGoodTillTimeOrder(new Order(1, 100.0, 'B', 100), System.currentTimeMillis() - 1000);
+            orderBook.addGoodTillTimeOrder(new Order(2, 100.0, 'B', 200), expireTime);
+            orderBook.drainAndProcessOrderActions();
+            // the expiry of order 1 is journaled
+            orderBook.drainAndProcessOrderActions();
+            assertEquals(1, orderBook.getOrdersCount());
+            orderBook.writeCheckpoint().join();
+            orderBook.addGoodTillTimeOrder(new Order(3, 101.0, 'B', 300), expireTime);
+            orderBook.addOrder(new Order(4, 101.0, 'B', 400));
+            orderBook.drainAndProcessOrderActions();
+        }
+
+        try (OrderBook orderBook = new OrderBook(config)) {
+            // order 2 comes from the checkpoint, order 3 from the journal
+            assertEquals(3, orderBook.getOrdersCount());
+            sleepUntil(expireTime + 2);
+            orderBook.drainAndProcessOrderActions();
+            assertEquals(1, orderBook.getOrdersCount());
+            assertEquals(400, orderBook.getLevelTotalSize(Side.BID, 0));
+        }
+        try (OrderBook orderBook = new OrderBook(config)) {
+            assertEquals(1, orderBook.getOrdersCount());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package stevenchen.orderbook;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import stevenchen.orderbook.model.InstrumentDescriptor;
+import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.model.OrderLevelMapType;
+import stevenchen.orderbook.model.OrderStorageType;
+import stevenchen.orderbook.model.OrderType;
+import stevenchen.orderbook.model.Side;
+import stevenchen.orderbook.wire.WireFormat;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OrderBookInstrumentTest {
+    private static final InstrumentDescriptor FX = new InstrumentDescriptor(0.00001, 0.5, 2.0);
+    private static final InstrumentDescriptor CRYPTO = new InstrumentDescriptor(1e-8);
+
+    @Test
+    void subCentTicksTest() {
+        for (OrderLevelMapType orderLevelMapType : OrderLevelMapType.values()) {
+            OrderBook orderBook = new OrderBook(new OrderBookConfig().setInstrumentDescriptor(FX)
+                    .setOrderLevelMapType(orderLevelMapType).setPriceLadderBand(1.08, 1024).setCumulativeDepthEnabled(true));
+            orderBook.addOrder(new Order(1, 1.08551, 'B', 100));
+            orderBook.addOrder(new Order(2, 1.08552, 'B', 200));
+            orderBook.addOrder(new Order(3, 1.08551, 'B', 300));
+            orderBook.drainAndProcessOrderActions();
+            // with cent ticks both prices would be the same level
+            assertEquals(2, orderBook.getLevelCount(Side.BID));
+            assertEquals(1.08552, orderBook.getLevelPrice(Side.BID, 0));
+            assertEquals(1.08551, orderBook.getLevelPrice(Side.BID, 1));
+            assertEquals(400, orderBook.getLevelTotalSize(Side.BID, 1));
+            assertEquals(1.08551, orderBook.getAllOrdersOnSide(Side.BID).get(1).getPrice());
+            assertEquals(200, orderBook.cumulativeSize(Side.BID, 1.08552));
+            assertEquals(600, orderBook.cumulativeSize(Side.BID, 1.08551));
+            assertEquals(1.08551, orderBook.priceForQuantity(Side.BID, 300));
+            assertEquals(1.08552, orderBook.snapshot(1).getLevelPrice(Side.BID, 0));
+
+            assertThrows(IllegalArgumentException.class, () -> orderBook.addOrder(new Order(4, 2.5, 'O', 100)));
+            assertThrows(IllegalArgumentException.class, () -> orderBook.bulkLoad(new Order[]{new Order(4, 0.1, 'O', 100)}));
+        }
+    }
+
+    @Test
+    void fineTickVwapTest() {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setInstrumentDescriptor(CRYPTO)
+                .setPriceLadderBand(60000.0, 1024).setCumulativeDepthEnabled(true));
+        orderBook.addOrder(new Order(1, 60000.00000000, 'O', 1_000_000));
+        orderBook.addOrder(new Order(2, 60000.00000001, 'O', 1_000_000));
+        orderBook.addOrder(new Order(3, 60000.00000002, 'O', 1_000_000));
+        orderBook.drainAndProcessOrderActions();
+        // 6e12 ticks times the sizes would overflow a long notional
+        assertEquals(60000.00000001, orderBook.vwapForQuantity(Side.OFFER, 3_000_000), 1e-9);
+        assertEquals(60000.000000005, orderBook.vwapForQuantity(Side.OFFER, 2_000_000), 1e-9);
+        assertEquals(60000.00000002, orderBook.priceForQuantity(Side.OFFER, 3_000_000));
+        assertEquals(orderBook.getStatistics(3).getVwap(Side.OFFER), orderBook.vwapForQuantity(Side.OFFER, 3_000_000), 1e-9);
+    }
+
+    @Test
+    void highPricesTest(@TempDir Path journalDirectory) {
+        OrderBookConfig config = new OrderBookConfig().setInstrumentDescriptor(CRYPTO).setOrderStorageType(OrderStorageType.OFF_HEAP)
+                .setMatchingEnabled(true).setJournalDirectory(journalDirectory);
+        try (OrderBook orderBook = new OrderBook(config)) {
+            // beyond 2^31 ticks
+            orderBook.addOrder(new Order(1, 65000.12345678, 'O', 100, 7));
+            orderBook.addOrder(new Order(2, 65000.12345679, 'O', 200, 7));
+            orderBook.addOrder(new Order(3, 64999.99999999, 'B', 300));
+            orderBook.drainAndProcessOrderActions();
+            orderBook.writeCheckpoint().join();
+            orderBook.addOrder(new Order(4, 65000.12345679, 'B', 150));
+            orderBook.addOrder(new Order(5, 65100.5, 'O', 50, 7));
+            orderBook.massCancel(7, Side.OFFER, 65100.0, 65200.0);
+            orderBook.drainAndProcessOrderActions();
+            assertEquals(65000.12345679, orderBook.getLevelPrice(Side.OFFER, 0));
+            assertEquals(150, orderBook.getLevelTotalSize(Side.OFFER, 0));
+        }
+
+        try (OrderBook orderBook = new OrderBook(config)) {
+            // the checkpoint and the journal keep the prices in ticks, and replay fills the same orders
+            assertEquals(1, orderBook.getLevelCount(Side.OFFER));
+            assertEquals(65000.12345679, orderBook.getLevelPrice(Side.OFFER, 0));
+            assertEquals(150, orderBook.getLevelTotalSize(Side.OFFER, 0));
+            assertEquals(64999.99999999, orderBook.getLevelPrice(Side.BID, 0));
+        }
+    }
+
+    @Test
+    void bulkLoadHighPricesTest() {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setInstrumentDescriptor(CRYPTO));
+        orderBook.bulkLoad(new Order[]{
+                // more than 2^32 ticks apart
+                new Order(1, 65000.5, 'O', 100),
+                new Order(2, 64000.5, 'B', 100),
+                new Order(3, 65000.00000001, 'O', 100),
+                new Order(4, 64000.50000001, 'B', 100)});
+        assertEquals(64000.50000001, orderBook.getLevelPrice(Side.BID, 0));
+        assertEquals(65000.00000001, orderBook.getLevelPrice(Side.OFFER, 0));
+        assertEquals(65000.5, orderBook.getLevelPrice(Side.OFFER, 1));
+        assertEquals(2, orderBook.getLevelCount(Side.BID));
+    }
+
+    @Test
+    void ingestBoundsTest() {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setInstrumentDescriptor(FX));
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment messages = arena.allocate(2 * WireFormat.MESSAGE_SIZE);
+            WireFormat.writeAdd(messages, 0, 1, 108551, WireFormat.BID, 100, 0, OrderType.LIMIT);
+            WireFormat.writeAdd(messages, WireFormat.MESSAGE_SIZE, 2, 300000, WireFormat.BID, 100, 0, OrderType.LIMIT);
+            assertThrows(IllegalArgumentException.class, () -> orderBook.ingest(messages));
+            assertEquals(1, orderBook.ingest(messages.asSlice(0, WireFormat.MESSAGE_SIZE)));
+        }
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(1.08551, orderBook.getLevelPrice(Side.BID, 0));
+    }
+
+    @Test
+    void managerInstrumentsTest() throws InterruptedException {
+        try (OrderBookManager orderBookManager = new OrderBookManager()) {
+            OrderBook fx = orderBookManager.addInstrument(1, 0, FX);
+            OrderBook equity = orderBookManager.addInstrument(2, 0);
+            orderBookManager.addOrder(1, new Order(1, 1.08551, 'O', 100));
+            orderBookManager.addOrder(1, new Order(2, 1.08552, 'O', 100));
+            orderBookManager.addOrder(2, new Order(1, 1.08551, 'O', 100));
+            orderBookManager.addOrder(2, new Order(2, 1.08552, 'O', 100));
+            assertThrows(IllegalArgumentException.class, () -> orderBookManager.addOrder(1, new Order(3, 3.0, 'O', 100)));
+            while (orderBookManager.getBacklog(0) > 0) {
+                Thread.sleep(1);
+            }
+            assertEquals(2, fx.getLevelCount(Side.OFFER));
+            assertEquals(1, equity.getLevelCount(Side.OFFER));
+            assertEquals(1.09, equity.getLevelPrice(Side.OFFER, 0));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package stevenchen.orderbook;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import stevenchen.orderbook.action.RemoveAction;
+import stevenchen.orderbook.journal.FsyncPolicy;
+import stevenchen.orderbook.journal.JournalWriter;
+import stevenchen.orderbook.model.InstrumentDescriptor;
+import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.model.Side;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderBookJournalTest {
+    @TempDir
+    Path journalDirectory;
+
+    private OrderBookConfig config() {
+        // 3 records per segment, so the journal rolls over several segments
+        return new OrderBookConfig()
+                .setJournalDirectory(journalDirectory)
+                .setJournalSegmentSize(200)
+                .setFsyncPolicy(FsyncPolicy.PER_BATCH, 0);
+    }
+
+    @Test
+    void replayJournalTest() {
+        try (OrderBook orderBook = new OrderBook(config())) {
+            orderBook.addOrder(new Order(100, 100.0, 'B', 100));
+            orderBook.addOrder(new Order(101, 101.5, 'B', 200));
+            orderBook.addOrder(new Order(102, 100.0, 'B', 300));
+            orderBook.addOrder(new Order(103, 102.0, 'O', 400));
+            orderBook.modifyOrder(102, 350);
+            orderBook.removeOrder(101);
+            orderBook.drainAndProcessOrderActions();
+        }
+
+        try (OrderBook orderBook = new OrderBook(config())) {
+            assertEquals(3, orderBook.getOrdersCount());
+            assertEquals(100.0, orderBook.getLevelPrice(Side.BID, 0));
+            assertEquals(450, orderBook.getLevelTotalSize(Side.BID, 0));
+            assertArrayEquals(new long[]{100, 102}, orderBook.getAllOrdersOnSide(Side.BID).stream().mapToLong(Order::getId).toArray());
+            assertEquals(5, orderBook.snapshot(1).getSequence());
+
+            // the sequence continues after the replayed journal
+            orderBook.addOrder(new Order(104, 102.0, 'O', 500));
+            orderBook.drainAndProcessOrderActions();
+            assertEquals(6, orderBook.snapshot(1).getSequence());
+        }
+
+        try (OrderBook orderBook = new OrderBook(config())) {
+            assertEquals(4, orderBook.getOrdersCount());
+            assertEquals(900, orderBook.getLevelTotalSize(Side.OFFER, 0));
+        }
+    }
+
+    @Test
+    void intervalFsyncWhenIdleTest() throws InterruptedException {
+        RemoveAction removeAction = new RemoveAction();
+        removeAction.set(100);
+        try (JournalWriter journalWriter = new JournalWriter(journalDirectory, 1024, 100, FsyncPolicy.INTERVAL, 20)) {
+            journalWriter.append(0, removeAction);
+            journalWriter.endBatch();
+            // within the interval of the previous force, the record is left for a later one
+            assertTrue(journalWriter.isForcePending());
+            Thread.sleep(25);
+            journalWriter.forceIfDue();
+            assertFalse(journalWriter.isForcePending());
+        }
+        try (JournalWriter journalWriter = new JournalWriter(journalDirectory.resolve("per-batch"), 1024, 100, FsyncPolicy.PER_BATCH, 0)) {
+            journalWriter.append(0, removeAction);
+            journalWriter.endBatch();
+            assertFalse(journalWriter.isForcePending());
+        }
+    }
+
+    @Test
+    void journalSegmentSizeTest() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderBookConfig().setJournalSegmentSize(0));
+        assertThrows(IllegalArgumentException.class, () -> new OrderBookConfig().setJournalSegmentSize(-64));
+        assertThrows(IllegalArgumentException.class, () -> new OrderBookConfig().setJournalSegmentSize(63));
+        assertEquals(64, new OrderBookConfig().setJournalSegmentSize(64).getJournalSegmentSize());
+    }
+
+    @Test
+    void checkpointTest() throws Exception {
+        try (OrderBook orderBook = new OrderBook(config())) {
+            orderBook.addOrder(new Order(100, 100.0, 'B', 100));
+            orderBook.addOrder(new Order(101, 101.5, 'B', 200));
+            orderBook.addOrder(new Order(102, 100.0, 'B', 300));
+            orderBook.addOrder(new Order(103, 102.0, 'O', 400));
+            orderBook.addOrder(new Order(104, 102.0, 'O', 500));
+            orderBook.removeOrder(101);
+            orderBook.drainAndProcessOrderActions();
+            Path checkpoint = orderBook.writeCheckpoint().get();
+            assertEquals("00000000000000000005.checkpoint", checkpoint.getFileName().toString());
+
+            orderBook.modifyOrder(100, 150);
+            orderBook.addOrder(new Order(105, 103.0, 'O', 600));
+            orderBook.removeOrder(103);
+            orderBook.drainAndProcessOrderActions();
+        }
+
+        // the segments covered by the checkpoint are no longer needed for recovery
+        deleteSegment("00000000000000000000.journal");
+        deleteSegment("00000000000000000003.journal");
+
+        try (OrderBook orderBook = new OrderBook(config())) {
+            assertEquals(4, orderBook.getOrdersCount());
+            assertArrayEquals(new long[]{100, 102}, orderBook.getAllOrdersOnSide(Side.BID).stream().mapToLong(Order::getId).toArray());
+            assertEquals(450, orderBook.getLevelTotalSize(Side.BID, 0));
+            assertEquals(2, orderBook.getLevelOrderCount(Side.BID, 0));
+            assertEquals(500, orderBook.getLevelTotalSize(Side.OFFER, 0));
+            assertEquals(103.0, orderBook.getLevelPrice(Side.OFFER, 1));
+            assertEquals(8, orderBook.snapshot(1).getSequence());
+        }
+    }
+
+    private void deleteSegment(String name) throws IOException {
+        Files.delete(journalDirectory.resolve(name));
+    }
+
+    @Test
+    void rejectedSequenceNotReusedTest() {
+        try (OrderBook orderBook = new OrderBook(config())) {
+            orderBook.addOrder(new Order(100, 100.0, 'B', 100));
+            orderBook.modifyOrder(100, 0);
+            orderBook.modifyOrder(100, -1);
+            orderBook.drainAndProcessOrderActions();
+            assertEquals(2, orderBook.snapshot(1).getSequence());
+        }
+
+        try (OrderBook orderBook = new OrderBook(config())) {
+            assertEquals(100, orderBook.getLevelTotalSize(Side.BID, 0));
+            assertEquals(2, orderBook.snapshot(1).getSequence());
+            orderBook.addOrder(new Order(101, 101.0, 'B', 200));
+            orderBook.drainAndProcessOrderActions();
+            assertEquals(3, orderBook.snapshot(1).getSequence());
+        }
+    }
+
+    @Test
+    void priceScaleMismatchTest() throws Exception {
+        try (OrderBook orderBook = new OrderBook(config())) {
+            orderBook.addOrder(new Order(100, 100.0, 'B', 100));
+            orderBook.drainAndProcessOrderActions();
+        }
+        OrderBookConfig finerTicks = config().setInstrumentDescriptor(new InstrumentDescriptor(0.001));
+        assertThrows(IllegalStateException.class, () -> new OrderBook(finerTicks));
+
+        try (OrderBook orderBook = new OrderBook(config())) {
+            assertEquals(100.0, orderBook.getLevelPrice(Side.BID, 0));
+            orderBook.writeCheckpoint().get();
+        }
+        deleteSegment("00000000000000000000.journal");
+        assertThrows(IllegalStateException.class, () -> new OrderBook(finerTicks));
+        try (OrderBook orderBook = new OrderBook(config())) {
+            assertEquals(100.0, orderBook.getLevelPrice(Side.BID, 0));
+        }
+    }
+
+    @Test
+    void emptyJournalTest() {
+        try (OrderBook orderBook = new OrderBook(config())) {
+            assertEquals(0, orderBook.getOrdersCount());
+            assertEquals(-1, orderBook.snapshot(1).getSequence());
+        }
+    }
+}
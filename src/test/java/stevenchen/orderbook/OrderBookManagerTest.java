@@ -0,0 +1,182 @@
+package stevenchen.orderbook;
+
+import org.junit.jupiter.api.Test;
+import stevenchen.orderbook.event.MarketDataListener;
+import stevenchen.orderbook.event.OrderEventType;
+import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.model.Side;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OrderBookManagerTest {
+
+    private static void awaitShards(OrderBookManager orderBookManager) throws InterruptedException {
+        for (int shard = 0; shard < orderBookManager.getShardCount(); shard++) {
+            while (orderBookManager.getBacklog(shard) > 0) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    @Test
+    void routeActionsToInstrumentsTest() throws InterruptedException {
+        try (OrderBookManager orderBookManager = new OrderBookManager(new OrderBookConfig().setShardCount(2).setRingBufferSize(64))) {
+            OrderBook first = orderBookManager.addInstrument(1, 0);
+            OrderBook second = orderBookManager.addInstrument(2, 1);
+            assertEquals(0, orderBookManager.getShard(1));
+            assertEquals(1, orderBookManager.getShard(2));
+
+            // the same order id on two instruments belongs to two different books
+            orderBookManager.addOrder(1, new Order(100, 100.0, 'B', 100));
+            orderBookManager.addOrder(2, new Order(100, 200.0, 'O', 300));
+            orderBookManager.addOrder(1, new Order(101, 100.0, 'B', 200));
+            orderBookManager.modifyOrder(2, 100, 250);
+            orderBookManager.removeOrder(1, 100);
+            awaitShards(orderBookManager);
+
+            assertEquals(1, first.getOrdersCount());
+            assertEquals(200, first.getLevelTotalSize(Side.BID, 0));
+            assertEquals(250, second.getLevelTotalSize(Side.OFFER, 0));
+            assertEquals(200.0, orderBookManager.getOrderBook(2).snapshot(1).getLevelPrice(Side.OFFER, 0));
+            // each book numbers its own actions
+            assertEquals(2, first.snapshot(1).getSequence());
+            assertEquals(1, second.snapshot(1).getSequence());
+        }
+    }
+
+    @Test
+    void concurrentProducersTest() throws InterruptedException {
+        try (OrderBookManager orderBookManager = new OrderBookManager(new OrderBookConfig().setShardCount(4).setRingBufferSize(64))) {
+            for (int instrumentId = 0; instrumentId < 8; instrumentId++) {
+                orderBookManager.addInstrument(instrumentId);
+            }
+            Thread[] producers = new Thread[4];
+            for (int p = 0; p < producers.length; p++) {
+                int offset = p * 1000;
+                producers[p] = new Thread(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        orderBookManager.addOrder(i % 8, new Order(offset + i, 100.0 + i % 10, i % 2 == 0 ? 'B' : 'O', 10));
+                    }
+                });
+                producers[p].start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            awaitShards(orderBookManager);
+
+            for (int instrumentId = 0; instrumentId < 8; instrumentId++) {
+                assertEquals(500, orderBookManager.getOrderBook(instrumentId).getOrdersCount());
+            }
+        }
+    }
+
+    @Test
+    void interleavedInstrumentsTest() throws InterruptedException {
+        try (OrderBookManager orderBookManager = new OrderBookManager(new OrderBookConfig().setShardCount(1).setRingBufferSize(1024))) {
+            List<List<Long>> addedOrderIds = new ArrayList<>();
+            for (int instrumentId = 0; instrumentId < 3; instrumentId++) {
+                List<Long> orderIds = new ArrayList<>();
+                addedOrderIds.add(orderIds);
+                orderBookManager.addInstrument(instrumentId).addMarketDataListener(new MarketDataListener() {
+                    @Override
+                    public void onOrderEvent(OrderEventType type, long sequence, long orderId, Side side, double price, long size) {
+                        if (type == OrderEventType.ADD) {
+                            assertEquals(orderIds.size(), sequence);
+                            orderIds.add(orderId);
+                        }
+                    }
+                });
+            }
+            // the shard groups its batches by book, the actions of each book keep their order
+            for (int i = 0; i < 600; i++) {
+                orderBookManager.addOrder(i % 3, new Order(i, 100.0 - i % 7, 'B', 100));
+            }
+            for (int i = 0; i < 600; i += 2) {
+                orderBookManager.modifyOrder(i % 3, i, 10);
+                orderBookManager.removeOrder(i % 3, i + 3);
+            }
+            awaitShards(orderBookManager);
+            int ordersCount = 0;
+            for (int instrumentId = 0; instrumentId < 3; instrumentId++) {
+                assertEquals(200, addedOrderIds.get(instrumentId).size());
+                for (int i = 0; i < 200; i++) {
+                    assertEquals(instrumentId + 3L * i, (long) addedOrderIds.get(instrumentId).get(i));
+                }
+                ordersCount += orderBookManager.getOrderBook(instrumentId).getOrdersCount();
+            }
+            // the odd order ids from 3 were removed
+            assertEquals(301, ordersCount);
+        }
+    }
+
+    @Test
+    void hostedBookRejectsActionsTest() {
+        try (OrderBookManager orderBookManager = new OrderBookManager()) {
+            OrderBook orderBook = orderBookManager.addInstrument(1);
+            assertThrows(IllegalStateException.class, () -> orderBook.addOrder(new Order(100, 100.0, 'B', 100)));
+            assertThrows(IllegalStateException.class, () -> orderBook.addOrderAsync(new Order(100, 100.0, 'B', 100)));
+            assertThrows(IllegalStateException.class, () -> orderBook.addGoodTillTimeOrder(new Order(100, 100.0, 'B', 100), 1));
+            assertThrows(IllegalStateException.class, () -> orderBook.removeOrder(100));
+            assertThrows(IllegalStateException.class, () -> orderBook.modifyOrderAsync(100, 10));
+            assertThrows(IllegalStateException.class, () -> orderBook.massCancel(7));
+            assertThrows(IllegalStateException.class, () -> orderBook.ingest(ByteBuffer.allocate(0)));
+            assertThrows(IllegalStateException.class, orderBook::drainAndProcessOrderActions);
+            assertThrows(IllegalStateException.class, orderBook::continuousProcessOrderActions);
+        }
+    }
+
+    @Test
+    void failedShardDoesNotBlockProducersTest() throws InterruptedException {
+        try (OrderBookManager orderBookManager = new OrderBookManager(new OrderBookConfig().setShardCount(1).setRingBufferSize(4))) {
+            OrderBook failing = orderBookManager.addInstrument(1);
+            OrderBook other = orderBookManager.addInstrument(2);
+            failing.addMarketDataListener(new MarketDataListener() {
+                @Override
+                public void onOrderEvent(OrderEventType type, long sequence, long orderId, Side side, double price, long size) {
+                    throw new IllegalStateException("listener failure");
+                }
+            });
+            // more actions than slots: the slots of the failed batch are released and later ones are discarded,
+            // so the producer is refused rather than blocked
+            assertThrows(IllegalStateException.class, () -> {
+                for (int i = 0; i < 1000; i++) {
+                    orderBookManager.addOrder(1, new Order(100 + i, 100.0, 'B', 100));
+                    Thread.sleep(1);
+                }
+            });
+            awaitShards(orderBookManager);
+            assertThrows(IllegalStateException.class, () -> orderBookManager.addOrder(2, new Order(100, 100.0, 'B', 100)));
+            assertThrows(IllegalStateException.class, () -> orderBookManager.removeOrder(1, 100));
+            assertEquals(0, other.getOrdersCount());
+        }
+    }
+
+    @Test
+    void invalidActionDoesNotStopShardTest() throws InterruptedException {
+        try (OrderBookManager orderBookManager = new OrderBookManager()) {
+            OrderBook orderBook = orderBookManager.addInstrument(1);
+            orderBookManager.addOrder(1, new Order(100, 100.0, 'B', 100));
+            orderBookManager.addOrder(1, new Order(100, 101.0, 'B', 100));
+            orderBookManager.addOrder(1, new Order(101, 101.0, 'B', 100));
+            awaitShards(orderBookManager);
+            assertEquals(2, orderBook.getOrdersCount());
+        }
+    }
+
+    @Test
+    void unknownInstrumentTest() {
+        try (OrderBookManager orderBookManager = new OrderBookManager()) {
+            orderBookManager.addInstrument(1);
+            assertThrows(IllegalArgumentException.class, () -> orderBookManager.addInstrument(1));
+            assertThrows(IllegalArgumentException.class, () -> orderBookManager.addInstrument(2, 1));
+            assertThrows(IllegalArgumentException.class, () -> orderBookManager.addOrder(2, new Order(100, 100.0, 'B', 100)));
+            assertThrows(IllegalArgumentException.class, () -> orderBookManager.removeOrder(2, 100));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package stevenchen.orderbook;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import stevenchen.orderbook.event.LevelEventType;
+import stevenchen.orderbook.event.MarketDataListener;
+import stevenchen.orderbook.event.OrderEventType;
+import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.model.Side;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OrderBookMassCancelTest {
+
+    private static long[] orderIds(OrderBook orderBook, Side side) {
+        return orderBook.getAllOrdersOnSide(side).stream().mapToLong(Order::getId).toArray();
+    }
+
+    @Test
+    void massCancelTest() {
+        OrderBook orderBook = new OrderBook();
+        List<String> events = new ArrayList<>();
+        orderBook.addMarketDataListener(new MarketDataListener() {
+            @Override
+            public void onOrderEvent(OrderEventType type, long sequence, long orderId, Side side, double price, long size) {
+                if (type == OrderEventType.REMOVE) {
+                    events.add(type + " " + orderId);
+                }
+            }
+
+            @Override
+            public void onLevelEvent(LevelEventType type, long sequence, Side side, double price, long totalSize, int orderCount) {
+                if (type != LevelEventType.NEW) {
+                    events.add(type + " " + price + " " + totalSize);
+                }
+            }
+        });
+        orderBook.addOrder(new Order(1, 100.0, 'B', 100, 7));
+        orderBook.addOrder(new Order(2, 100.0, 'B', 200, 7));
+        orderBook.addOrder(new Order(3, 100.0, 'B', 300, 8));
+        orderBook.addOrder(new Order(4, 99.0, 'B', 400, 7));
+        orderBook.addOrder(new Order(5, 101.0, 'O', 500, 7));
+        orderBook.addOrder(new Order(6, 102.0, 'O', 600));
+        orderBook.drainAndProcessOrderActions();
+        events.clear();
+
+        orderBook.massCancel(7, Side.BID);
+        orderBook.drainAndProcessOrderActions();
+        // each level is updated or deleted once, after all its orders are removed
+        assertEquals(List.of("REMOVE 4", "REMOVE 2", "REMOVE 1", "DELETE 99.0 0", "UPDATE 100.0 300"), events);
+        assertArrayEquals(new long[]{3}, orderIds(orderBook, Side.BID));
+        assertArrayEquals(new long[]{5, 6}, orderIds(orderBook, Side.OFFER));
+        assertEquals(7, orderBook.getAllOrdersOnSide(Side.OFFER).get(0).getOwnerId());
+
+        orderBook.massCancel(7);
+        orderBook.massCancel(8, Side.OFFER);
+        orderBook.drainAndProcessOrderActions();
+        assertArrayEquals(new long[]{3}, orderIds(orderBook, Side.BID));
+        assertArrayEquals(new long[]{6}, orderIds(orderBook, Side.OFFER));
+        assertThrows(IllegalArgumentException.class, () -> orderBook.massCancel(0));
+        assertThrows(IllegalArgumentException.class, () -> orderBook.massCancel(7, null, 101.0, 100.0));
+    }
+
+    @Test
+    void priceRangeAndFillsTest() {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setMatchingEnabled(true));
+        for (int i = 0; i < 10; i++) {
+            orderBook.addOrder(new Order(i, 100.0 + i, 'O', 100, 7));
+        }
+        // fills order 0 and takes order 1 from the owner index
+        orderBook.addOrder(new Order(20, 101.0, 'B', 200));
+        orderBook.massCancel(7, Side.OFFER, 103.0, 105.0);
+        orderBook.drainAndProcessOrderActions();
+        assertArrayEquals(new long[]{2, 6, 7, 8, 9}, orderIds(orderBook, Side.OFFER));
+
+        orderBook.massCancel(7, null, 0.0, 107.0);
+        orderBook.drainAndProcessOrderActions();
+        assertArrayEquals(new long[]{8, 9}, orderIds(orderBook, Side.OFFER));
+        assertEquals(108.0, orderBook.getLevelPrice(Side.OFFER, 0));
+    }
+
+    @Test
+    void largeSessionTest() {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setInitialOrderCapacity(1 << 18));
+        Order[] orders = new Order[200_000];
+        for (int i = 0; i < orders.length; i++) {
+            // bids of session 1 and offers of session 2 interleaved, over 1000 levels per side
+            int level = i / 2 % 1000;
+            orders[i] = i % 2 == 0 ? new Order(i, 100.0 - level / 100.0, 'B', 10, 1) : new Order(i, 101.0 + level / 100.0, 'O', 10, 2);
+        }
+        orderBook.bulkLoad(orders);
+        orderBook.massCancel(1);
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(100_000, orderBook.getOrdersCount());
+        assertEquals(0, orderBook.getLevelCount(Side.BID));
+        assertEquals(1000, orderBook.getLevelCount(Side.OFFER));
+    }
+
+    @Test
+    void massCancelRecoveryTest(@TempDir Path journalDirectory) {
+        OrderBookConfig config = new OrderBookConfig().setJournalDirectory(journalDirectory);
+        try (OrderBook orderBook = new OrderBook(config)) {
+            orderBook.addOrder(new Order(1, 100.0, 'B', 100, 7));
+            orderBook.addOrder(new Order(2, 100.0, 'B', 200, 8));
+            orderBook.drainAndProcessOrderActions();
+            orderBook.writeCheckpoint().join();
+            orderBook.addOrder(new Order(3, 101.0, 'O', 300, 7));
+            orderBook.addOrder(new Order(4, 101.0, 'O', 400, 8));
+            orderBook.massCancel(8, Side.OFFER);
+            orderBook.drainAndProcessOrderActions();
+        }
+
+        try (OrderBook orderBook = new OrderBook(config)) {
+            // owners come back from the checkpoint and from the journal
+            assertArrayEquals(new long[]{1, 2}, orderIds(orderBook, Side.BID));
+            assertArrayEquals(new long[]{3}, orderIds(orderBook, Side.OFFER));
+            orderBook.massCancel(7);
+            orderBook.drainAndProcessOrderActions();
+            assertArrayEquals(new long[]{2}, orderIds(orderBook, Side.BID));
+            assertEquals(8, orderBook.getAllOrdersOnSide(Side.BID).get(0).getOwnerId());
+            assertEquals(0, orderBook.getLevelCount(Side.OFFER));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package stevenchen.orderbook;
+
+import org.junit.jupiter.api.Test;
+import stevenchen.orderbook.event.MarketDataListener;
+import stevenchen.orderbook.event.OrderEventType;
+import stevenchen.orderbook.model.InstrumentDescriptor;
+import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.model.OrderType;
+import stevenchen.orderbook.model.Side;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OrderBookMatchingTest {
+
+    private static class TradeListener implements MarketDataListener {
+        private final List<String> trades = new ArrayList<>();
+        private final List<String> orderEvents = new ArrayList<>();
+
+        @Override
+        public void onTrade(long sequence, long aggressorOrderId, long restingOrderId, Side aggressorSide, double price, long size) {
+            trades.add(sequence + " " + aggressorOrderId + " " + restingOrderId + " " + aggressorSide + " " + price + " " + size);
+        }
+
+        @Override
+        public void onOrderEvent(OrderEventType type, long sequence, long orderId, Side side, double price, long size) {
+            orderEvents.add(type + " " + orderId + " " + size);
+        }
+    }
+
+    /**
+     * Offers of 100 at 101.0 (ids 1 and 2, 50 each) and 100 at 102.0 (id 3).
+     */
+    private static OrderBook offerBook(TradeListener listener) {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setMatchingEnabled(true));
+        orderBook.addMarketDataListener(listener);
+        orderBook.addOrder(new Order(1, 101.0, 'O', 50));
+        orderBook.addOrder(new Order(2, 101.0, 'O', 50));
+        orderBook.addOrder(new Order(3, 102.0, 'O', 100));
+        orderBook.drainAndProcessOrderActions();
+        return orderBook;
+    }
+
+    @Test
+    void limitOrderRestsWhenNotCrossingTest() {
+        TradeListener listener = new TradeListener();
+        OrderBook orderBook = offerBook(listener);
+        orderBook.addOrder(new Order(10, 100.0, 'B', 70));
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(List.of(), listener.trades);
+        assertEquals(4, orderBook.getOrdersCount());
+        assertEquals(100.0, orderBook.getLevelPrice(Side.BID, 0));
+    }
+
+    @Test
+    void limitOrderMatchesInPriceTimePriorityTest() {
+        TradeListener listener = new TradeListener();
+        OrderBook orderBook = offerBook(listener);
+        orderBook.addOrder(new Order(10, 101.0, 'B', 70));
+        orderBook.drainAndProcessOrderActions();
+
+        assertEquals(List.of(
+                "3 10 1 BID 101.0 50",
+                "3 10 2 BID 101.0 20"), listener.trades);
+        assertEquals(List.of("REMOVE 1 0", "MODIFY 2 30"), listener.orderEvents.subList(3, 5));
+        assertEquals(101.0, orderBook.getLevelPrice(Side.OFFER, 0));
+        assertEquals(30, orderBook.getLevelTotalSize(Side.OFFER, 0));
+        assertEquals(0, orderBook.getLevelCount(Side.BID));
+        assertEquals(2, orderBook.getOrdersCount());
+    }
+
+    @Test
+    void limitOrderRestsRemainderTest() {
+        TradeListener listener = new TradeListener();
+        OrderBook orderBook = offerBook(listener);
+        orderBook.addOrder(new Order(10, 101.5, 'B', 150));
+        orderBook.drainAndProcessOrderActions();
+
+        // 101.0 is swept, 102.0 is beyond the limit
+        assertEquals(2, listener.trades.size());
+        assertEquals(102.0, orderBook.getLevelPrice(Side.OFFER, 0));
+        assertEquals(101.5, orderBook.getLevelPrice(Side.BID, 0));
+        assertEquals(50, orderBook.getLevelTotalSize(Side.BID, 0));
+        assertEquals("ADD 10 50", listener.orderEvents.get(listener.orderEvents.size() - 1));
+    }
+
+    @Test
+    void marketOrderPriceIsNotCheckedTest() {
+        OrderBookConfig config = new OrderBookConfig()
+                .setMatchingEnabled(true)
+                .setInstrumentDescriptor(new InstrumentDescriptor(0.5, 50.0, 150.0));
+        OrderBook orderBook = new OrderBook(config);
+        orderBook.addOrder(new Order(1, 101.0, 'O', 100));
+        // a MARKET order has no limit price, whatever it carries is outside the bounds or not a tick
+        orderBook.addOrder(new Order(10, 0, 'B', 30), OrderType.MARKET);
+        orderBook.addOrder(new Order(11, 1e9, 'B', 30), OrderType.MARKET);
+        orderBook.addOrder(new Order(12, 100.3, 'B', 30), OrderType.MARKET);
+        assertThrows(IllegalArgumentException.class, () -> orderBook.addOrder(new Order(13, 0, 'B', 30), OrderType.IOC));
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(10, orderBook.getLevelTotalSize(Side.OFFER, 0));
+
+        try (OrderBookManager orderBookManager = new OrderBookManager(config)) {
+            orderBookManager.addInstrument(1);
+            orderBookManager.addOrder(1, new Order(10, 0, 'B', 30), OrderType.MARKET);
+            assertThrows(IllegalArgumentException.class, () -> orderBookManager.addOrder(1, new Order(11, 0, 'B', 30), OrderType.LIMIT));
+        }
+    }
+
+    @Test
+    void marketOrderSweepsLevelsTest() {
+        TradeListener listener = new TradeListener();
+        OrderBook orderBook = offerBook(listener);
+        orderBook.addOrder(new Order(10, 0, 'B', 180), OrderType.MARKET);
+        orderBook.drainAndProcessOrderActions();
+
+        assertEquals(List.of(
+                "3 10 1 BID 101.0 50",
+                "3 10 2 BID 101.0 50",
+                "3 10 3 BID 102.0 80"), listener.trades);
+        assertEquals(1, orderBook.getLevelCount(Side.OFFER));
+        assertEquals(20, orderBook.getLevelTotalSize(Side.OFFER, 0));
+        assertEquals(0, orderBook.getLevelCount(Side.BID));
+    }
+
+    @Test
+    void iocOrderCancelsRemainderTest() {
+        TradeListener listener = new TradeListener();
+        OrderBook orderBook = offerBook(listener);
+        orderBook.addOrder(new Order(10, 101.0, 'B', 150), OrderType.IOC);
+        orderBook.drainAndProcessOrderActions();
+
+        assertEquals(2, listener.trades.size());
+        assertEquals(0, orderBook.getLevelCount(Side.BID));
+        assertEquals(1, orderBook.getOrdersCount());
+    }
+
+    @Test
+    void fokOrderTest() {
+        TradeListener listener = new TradeListener();
+        OrderBook orderBook = offerBook(listener);
+        // only 100 available up to 101.0
+        orderBook.addOrder(new Order(10, 101.0, 'B', 150), OrderType.FOK);
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(List.of(), listener.trades);
+        assertEquals(3, orderBook.getOrdersCount());
+
+        orderBook.addOrder(new Order(11, 102.0, 'B', 150), OrderType.FOK);
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(3, listener.trades.size());
+        assertArrayEquals(new long[]{3}, orderBook.getAllOrdersOnSide(Side.OFFER).stream().mapToLong(Order::getId).toArray());
+        assertEquals(50, orderBook.getLevelTotalSize(Side.OFFER, 0));
+    }
+
+    @Test
+    void sellOrderMatchesBidsTest() {
+        TradeListener listener = new TradeListener();
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setMatchingEnabled(true));
+        orderBook.addMarketDataListener(listener);
+        orderBook.addOrder(new Order(1, 100.0, 'B', 100));
+        orderBook.addOrder(new Order(2, 99.0, 'B', 100));
+        orderBook.addOrder(new Order(10, 99.0, 'O', 150));
+        orderBook.drainAndProcessOrderActions();
+
+        assertEquals(List.of(
+                "2 10 1 OFFER 100.0 100",
+                "2 10 2 OFFER 99.0 50"), listener.trades);
+        assertEquals(99.0, orderBook.getLevelPrice(Side.BID, 0));
+        assertEquals(50, orderBook.getLevelTotalSize(Side.BID, 0));
+        assertEquals(0, orderBook.getLevelCount(Side.OFFER));
+    }
+
+    @Test
+    void matchingDisabledTest() {
+        OrderBook orderBook = new OrderBook();
+        orderBook.addOrder(new Order(1, 101.0, 'O', 50));
+        orderBook.addOrder(new Order(10, 102.0, 'B', 50));
+        orderBook.drainAndProcessOrderActions();
+        // without matching the book is allowed to cross
+        assertEquals(2, orderBook.getOrdersCount());
+        assertThrows(IllegalArgumentException.class, () -> orderBook.addOrder(new Order(11, 102.0, 'B', 50), OrderType.IOC));
+    }
+
+    @Test
+    void cumulativeDepthFollowsFillsTest() {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setMatchingEnabled(true).setCumulativeDepthEnabled(true));
+        orderBook.addOrder(new Order(1, 101.0, 'O', 50));
+        orderBook.addOrder(new Order(2, 101.0, 'O', 50));
+        orderBook.addOrder(new Order(3, 102.0, 'O', 100));
+        orderBook.addOrder(new Order(4, 99.0, 'B', 100));
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(100, orderBook.cumulativeSize(Side.OFFER, 101.5));
+        assertEquals(102.0, orderBook.priceForQuantity(Side.OFFER, 150));
+        assertEquals(101.5, orderBook.vwapForQuantity(Side.OFFER, 200), 1e-9);
+        assertEquals(Double.NaN, orderBook.vwapForQuantity(Side.OFFER, 201));
+
+        orderBook.addOrder(new Order(10, 101.0, 'B', 70));
+        orderBook.modifyOrder(3, 60);
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(30, orderBook.cumulativeSize(Side.OFFER, 101.0));
+        assertEquals(90, orderBook.cumulativeSize(Side.OFFER, 102.0));
+        assertEquals(102.0, orderBook.priceForQuantity(Side.OFFER, 31));
+        assertEquals(100, orderBook.cumulativeSize(Side.BID, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> orderBook.priceForQuantity(Side.BID, 0));
+        assertThrows(IllegalStateException.class, () -> new OrderBook().cumulativeSize(Side.BID, 100.0));
+    }
+}
@@ -0,0 +1,127 @@
+package stevenchen.orderbook;
+
+import org.junit.jupiter.api.Test;
+import stevenchen.orderbook.load.WorkloadConfig;
+import stevenchen.orderbook.load.WorkloadGenerator;
+import stevenchen.orderbook.metrics.MetricsSnapshot;
+import stevenchen.orderbook.metrics.OrderBookMetrics;
+import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.model.OrderLevelBucket;
+import stevenchen.orderbook.model.OrderLevelMapType;
+import stevenchen.orderbook.model.OrderStorageType;
+import stevenchen.orderbook.model.Side;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderBookMemoryTest {
+
+    @Test
+    void memoryFootprintTest() {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setInitialOrderCapacity(16));
+        MemoryFootprint empty = orderBook.getMemoryFootprint();
+        assertEquals(0, empty.getOrderCount());
+        assertTrue(Double.isNaN(empty.getBytesPerOrder()));
+        assertEquals(0, empty.getLevelBucketBytes());
+        assertEquals(0, empty.getOrderStoreOffHeapBytes());
+
+        for (int i = 0; i < 100; i++) {
+            orderBook.addOrder(new Order(i, 100.0 - i % 10, 'B', 100));
+            orderBook.addOrder(new Order(1000 + i, 101.0 + i % 5, 'O', 100));
+        }
+        orderBook.drainAndProcessOrderActions();
+        MemoryFootprint footprint = orderBook.getMemoryFootprint();
+        assertEquals(200, footprint.getOrderCount());
+        assertEquals(10, footprint.getLevelCount(Side.BID));
+        assertEquals(5, footprint.getLevelCount(Side.OFFER));
+        assertEquals(15 * OrderLevelBucket.ESTIMATED_BYTES, footprint.getLevelBucketBytes());
+        // the store and the lookup grew with the orders, the skip lists with the levels
+        assertTrue(footprint.getOrderStoreHeapBytes() > 200 * 60, footprint.toString());
+        assertTrue(footprint.getOrderLookupBytes() > empty.getOrderLookupBytes(), footprint.toString());
+        assertTrue(footprint.getLevelMapBytes() > empty.getLevelMapBytes(), footprint.toString());
+        assertEquals(footprint.getHeapBytes(), footprint.getTotalBytes());
+        assertEquals((double) footprint.getTotalBytes() / 200, footprint.getBytesPerOrder());
+    }
+
+    @Test
+    void offHeapFootprintTest() {
+        OrderBookConfig config = new OrderBookConfig()
+                .setOrderStorageType(OrderStorageType.OFF_HEAP)
+                .setInitialOrderCapacity(1024)
+                .setOrderLevelMapType(OrderLevelMapType.PRICE_LADDER)
+                .setPriceLadderBand(100.0, 256);
+        try (OrderBook orderBook = new OrderBook(config)) {
+            MemoryFootprint empty = orderBook.getMemoryFootprint();
+            orderBook.addOrder(new Order(1, 100.0, 'B', 100));
+            orderBook.drainAndProcessOrderActions();
+            MemoryFootprint footprint = orderBook.getMemoryFootprint();
+            assertEquals(1024 * 80, footprint.getOrderStoreOffHeapBytes());
+            assertTrue(footprint.getOrderStoreHeapBytes() < 100, footprint.toString());
+            // the ladder is sized by its capacity, not by its levels
+            assertEquals(empty.getLevelMapBytes(), footprint.getLevelMapBytes());
+            assertTrue(footprint.getLevelMapBytes() > 2 * 256 * 4, footprint.toString());
+            assertEquals(footprint.getHeapBytes() + 1024 * 80, footprint.getTotalBytes());
+        }
+    }
+
+    @Test
+    void allocatedBytesTest() {
+        if (OrderBookMetrics.currentThreadAllocatedBytes() < 0) {
+            return;
+        }
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setMetricsEnabled(true));
+        for (int i = 0; i < 100; i++) {
+            orderBook.addOrder(new Order(i, 100.0 + i, 'B', 100));
+        }
+        orderBook.drainAndProcessOrderActions();
+        // every add created a level, a bucket and a skip list node
+        MetricsSnapshot snapshot = orderBook.getMetrics().snapshot();
+        assertTrue(snapshot.getAllocatedBytesPerAction() >= OrderLevelBucket.ESTIMATED_BYTES, "" + snapshot.getAllocatedBytesPerAction());
+        assertEquals((double) snapshot.getAllocatedBytes() / 100, snapshot.getAllocatedBytesPerAction());
+        assertEquals(0, orderBook.getMetrics().snapshot().getAllocatedBytes());
+    }
+
+    /**
+     * Guards the garbage-free processing path: after a warmup, a steady workload of adds, modifies and cancels
+     * must allocate no more than a threshold per action on the processing thread. The price ladder only allocates
+     * the buckets of new levels and the snapshot of every batch, about 2 bytes per action, the skip list also
+     * allocates a node and a boxed price per new level, about 28 bytes per action.
+     */
+    @Test
+    void steadyStateAllocationTest() {
+        if (OrderBookMetrics.currentThreadAllocatedBytes() < 0) {
+            return;
+        }
+        for (OrderLevelMapType orderLevelMapType : OrderLevelMapType.values()) {
+            OrderBookConfig config = new OrderBookConfig()
+                    .setMetricsEnabled(true)
+                    .setOrderLevelMapType(orderLevelMapType)
+                    .setPriceLadderBand(90.0, 2048)
+                    .setInitialOrderCapacity(1 << 14);
+            OrderBook orderBook = new OrderBook(config);
+            WorkloadGenerator workloadGenerator = new WorkloadGenerator(new WorkloadConfig());
+            WorkloadGenerator.ActionSink sink = WorkloadGenerator.sinkOf(orderBook);
+            run(orderBook, workloadGenerator, sink, 200_000);
+            orderBook.getMetrics().snapshot();
+            run(orderBook, workloadGenerator, sink, 200_000);
+            MetricsSnapshot snapshot = orderBook.getMetrics().snapshot();
+            double maxAllocatedBytesPerAction = switch (orderLevelMapType) {
+                case PRICE_LADDER -> 8;
+                case SKIP_LIST -> 48;
+            };
+            assertEquals(200_000, snapshot.getActionCount());
+            assertTrue(snapshot.getAllocatedBytesPerAction() <= maxAllocatedBytesPerAction,
+                    orderLevelMapType + " allocated " + snapshot.getAllocatedBytesPerAction() + " bytes per action");
+        }
+    }
+
+    private static void run(OrderBook orderBook, WorkloadGenerator workloadGenerator, WorkloadGenerator.ActionSink sink, int actionCount) {
+        for (int i = 0; i < actionCount; i++) {
+            workloadGenerator.next(sink);
+            if (i % 1000 == 999) {
+                orderBook.drainAndProcessOrderActions();
+            }
+        }
+        orderBook.drainAndProcessOrderActions();
+    }
+}
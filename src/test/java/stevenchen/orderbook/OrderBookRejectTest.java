@@ -0,0 +1,205 @@
+package stevenchen.orderbook;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import stevenchen.orderbook.action.ActionType;
+import stevenchen.orderbook.event.MarketDataListener;
+import stevenchen.orderbook.event.RejectReason;
+import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.model.OrderLevelMapType;
+import stevenchen.orderbook.model.Side;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OrderBookRejectTest {
+
+    private static List<String> listenRejects(OrderBook orderBook) {
+        List<String> rejects = new ArrayList<>();
+        orderBook.addMarketDataListener(new MarketDataListener() {
+            @Override
+            public void onReject(RejectReason reason, long sequence, ActionType actionType, long orderId) {
+                rejects.add(sequence + " " + actionType + " " + orderId + " " + reason);
+            }
+        });
+        return rejects;
+    }
+
+    private static void rejectInvalidActions(OrderBookConfig config) {
+        try (OrderBook orderBook = new OrderBook(config)) {
+            List<String> rejects = listenRejects(orderBook);
+            orderBook.addOrder(new Order(1, 100.0, 'B', 100));
+            orderBook.addOrder(new Order(1, 101.0, 'B', 200));
+            orderBook.addOrder(new Order(2, 100.0, 'B', 0));
+            orderBook.modifyOrder(1, 0);
+            orderBook.modifyOrder(3, 50);
+            orderBook.removeOrder(4);
+            orderBook.addOrder(new Order(5, 99.0, 'B', 500));
+            orderBook.drainAndProcessOrderActions();
+            assertEquals(List.of("1 ADD 1 DUPLICATE_ORDER_ID", "2 ADD 2 INVALID_SIZE", "3 MODIFY 1 INVALID_SIZE",
+                    "4 MODIFY 3 UNKNOWN_ORDER_ID", "5 REMOVE 4 UNKNOWN_ORDER_ID"), rejects);
+            // the rejected actions change nothing and the book goes on
+            assertEquals(2, orderBook.getOrdersCount());
+            assertEquals(100, orderBook.getLevelTotalSize(Side.BID, 0));
+            assertEquals(6, orderBook.snapshot(1).getSequence());
+
+            // an order id is known again once its order left the book
+            orderBook.removeOrder(1);
+            orderBook.removeOrder(1);
+            orderBook.addOrder(new Order(1, 98.0, 'B', 100));
+            orderBook.modifyOrder(1, 300);
+            orderBook.drainAndProcessOrderActions();
+            assertEquals(List.of("8 REMOVE 1 UNKNOWN_ORDER_ID"), rejects.subList(5, rejects.size()));
+            assertEquals(300, orderBook.getLevelTotalSize(Side.BID, 1));
+        }
+    }
+
+    @Test
+    void processingThreadRejectsTest() {
+        rejectInvalidActions(new OrderBookConfig());
+    }
+
+    @Test
+    void validationStageRejectsTest() {
+        rejectInvalidActions(new OrderBookConfig().setValidationThreads(3));
+    }
+
+    @Test
+    void priceLadderOutOfRangeTest(@TempDir Path journalDirectory) {
+        OrderBookConfig config = new OrderBookConfig()
+                .setOrderLevelMapType(OrderLevelMapType.PRICE_LADDER)
+                .setPriceLadderBand(100.0, 64)
+                .setPriceLadderMaxCapacity(1024)
+                .setJournalDirectory(journalDirectory);
+        try (OrderBook orderBook = new OrderBook(config)) {
+            List<String> rejects = listenRejects(orderBook);
+            orderBook.addOrder(new Order(1, 100.0, 'B', 100));
+            // 1024 prices from 100.0 fit, one more does not
+            orderBook.addOrder(new Order(2, 110.23, 'B', 200));
+            orderBook.addOrder(new Order(3, 110.24, 'B', 300));
+            orderBook.addOrder(new Order(4, 1e9, 'B', 400));
+            // the offer side is bounded on its own
+            orderBook.addOrder(new Order(5, 1e6, 'O', 500));
+            orderBook.drainAndProcessOrderActions();
+            assertEquals(List.of("2 ADD 3 PRICE_OUT_OF_RANGE", "3 ADD 4 PRICE_OUT_OF_RANGE"), rejects);
+            assertEquals(3, orderBook.getOrdersCount());
+            assertEquals(110.23, orderBook.getLevelPrice(Side.BID, 0));
+        }
+
+        // the rejected adds are replayed from the journal and rejected again
+        try (OrderBook orderBook = new OrderBook(config)) {
+            assertEquals(3, orderBook.getOrdersCount());
+            assertEquals(1e6, orderBook.getLevelPrice(Side.OFFER, 0));
+            orderBook.addOrder(new Order(6, 101.0, 'B', 100));
+            orderBook.drainAndProcessOrderActions();
+            assertEquals(4, orderBook.getOrdersCount());
+        }
+
+        OrderBook orderBook = new OrderBook(config.setJournalDirectory(null));
+        assertThrows(IllegalArgumentException.class, () -> orderBook.bulkLoad(new Order[]{
+                new Order(1, 100.0, 'O', 100), new Order(2, 110.24, 'O', 100)}));
+        assertEquals(0, orderBook.getOrdersCount());
+        orderBook.bulkLoad(new Order[]{new Order(1, 100.0, 'O', 100), new Order(2, 110.23, 'O', 100), new Order(3, 1e6, 'B', 100)});
+        assertEquals(3, orderBook.getOrdersCount());
+    }
+
+    @Test
+    void marketableLimitOutOfRangeTest() {
+        OrderBookConfig config = new OrderBookConfig()
+                .setMatchingEnabled(true)
+                .setOrderLevelMapType(OrderLevelMapType.PRICE_LADDER)
+                .setPriceLadderBand(100.0, 64)
+                .setPriceLadderMaxCapacity(1024);
+        OrderBook orderBook = new OrderBook(config);
+        List<String> rejects = listenRejects(orderBook);
+        orderBook.addOrder(new Order(1, 100.0, 'B', 100));
+        orderBook.addOrder(new Order(2, 100.5, 'O', 100));
+        // fills entirely against the offer, so its own price never needs a level
+        orderBook.addOrder(new Order(3, 120.0, 'B', 10));
+        // would rest a remainder of 10 at a price too far from the bid
+        orderBook.addOrder(new Order(4, 120.0, 'B', 100));
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(List.of("3 ADD 4 PRICE_OUT_OF_RANGE"), rejects);
+        assertEquals(90, orderBook.getLevelTotalSize(Side.OFFER, 0));
+        assertEquals(2, orderBook.getOrdersCount());
+    }
+
+    @Test
+    void cumulativeDepthOutOfRangeTest() {
+        OrderBookConfig config = new OrderBookConfig()
+                .setCumulativeDepthEnabled(true)
+                .setPriceLadderBand(100.0, 64)
+                .setPriceLadderMaxCapacity(1 << 16);
+        OrderBook orderBook = new OrderBook(config);
+        List<String> rejects = listenRejects(orderBook);
+        orderBook.addOrder(new Order(1, 100.0, 'B', 100));
+        // far outside the band, it used to throw in the middle of the add, after the order was linked to its level
+        orderBook.addOrder(new Order(2, 1e12, 'B', 200));
+        orderBook.addOrder(new Order(3, 99.0, 'B', 300));
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(List.of("1 ADD 2 PRICE_OUT_OF_RANGE"), rejects);
+        assertEquals(2, orderBook.getOrdersCount());
+        assertEquals(2, orderBook.getLevelCount(Side.BID));
+        assertEquals(400, orderBook.cumulativeSize(Side.BID, 99.0));
+        assertEquals(100.0, orderBook.getLevelPrice(Side.BID, 0));
+
+        // a price outside the band but within the maximum capacity still recenters the index
+        orderBook.addOrder(new Order(4, 200.0, 'B', 400));
+        orderBook.removeOrder(1);
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(1, rejects.size());
+        assertEquals(400, orderBook.cumulativeSize(Side.BID, 200.0));
+        assertEquals(700, orderBook.cumulativeSize(Side.BID, 99.0));
+    }
+
+    @Test
+    void filledOrdersAreReleasedTest() {
+        try (OrderBook orderBook = new OrderBook(new OrderBookConfig().setMatchingEnabled(true).setValidationThreads(2))) {
+            List<String> rejects = listenRejects(orderBook);
+            orderBook.bulkLoad(new Order[]{new Order(1, 101.0, 'O', 100), new Order(2, 102.0, 'O', 100)});
+            orderBook.modifyOrder(2, 50);
+            // fills order 1 and does not rest
+            orderBook.addOrder(new Order(3, 101.0, 'B', 100));
+            orderBook.drainAndProcessOrderActions();
+            orderBook.modifyOrder(1, 50);
+            orderBook.modifyOrder(3, 50);
+            orderBook.addOrder(new Order(3, 100.0, 'B', 100));
+            orderBook.drainAndProcessOrderActions();
+            assertEquals(List.of("2 MODIFY 1 UNKNOWN_ORDER_ID", "3 MODIFY 3 UNKNOWN_ORDER_ID"), rejects);
+            assertEquals(50, orderBook.getLevelTotalSize(Side.OFFER, 0));
+            assertEquals(100, orderBook.getLevelTotalSize(Side.BID, 0));
+        }
+    }
+
+    @Test
+    void continuousProcessingSurvivesRejectsTest() throws InterruptedException {
+        try (OrderBook orderBook = new OrderBook(new OrderBookConfig().setValidationThreads(2))) {
+            Thread processingThread = new Thread(() -> {
+                try {
+                    orderBook.continuousProcessOrderActions();
+                } catch (InterruptedException e) {
+                    // stopped by the test
+                }
+            });
+            processingThread.start();
+            try {
+                orderBook.addOrder(new Order(1, 100.0, 'B', 100));
+                orderBook.addOrder(new Order(1, 100.0, 'B', 100));
+                orderBook.modifyOrder(2, 100);
+                orderBook.addOrder(new Order(2, 100.0, 'B', 200));
+                long deadline = System.currentTimeMillis() + 5000;
+                while (orderBook.snapshot(1).getSequence() < 3 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(1);
+                }
+                assertEquals(300, orderBook.getLevelTotalSize(Side.BID, 0));
+            } finally {
+                processingThread.interrupt();
+                processingThread.join();
+            }
+        }
+    }
+}
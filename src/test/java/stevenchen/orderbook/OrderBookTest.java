@@ -2,12 +2,15 @@ package stevenchen.orderbook;
 
 import org.junit.jupiter.api.Test;
 import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.model.OrderLevelMapType;
+import stevenchen.orderbook.model.OrderStorageType;
 import stevenchen.orderbook.model.Side;
 
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class OrderBookTest {
 
@@ -131,4 +134,184 @@ public class OrderBookTest {
         assertArrayEquals(bidOrders.stream().mapToLong(Order::getId).toArray(), new long[]{102, 101, 100});
         assertArrayEquals(offerOrders.stream().mapToLong(Order::getId).toArray(), new long[]{103, 104, 106});
     }
+
+    @Test
+    void concurrentProducersTest() throws InterruptedException {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setRingBufferSize(64));
+        Thread processThread = new Thread(() -> {
+            try {
+                orderBook.continuousProcessOrderActions();
+            } catch (InterruptedException e) {
+                // stopped by the test
+            }
+        });
+        processThread.start();
+        Thread[] producers = new Thread[4];
+        for (int p = 0; p < producers.length; p++) {
+            int offset = p * 1000;
+            producers[p] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    orderBook.addOrder(new Order(offset + i, 100.0 + i % 10, i % 2 == 0 ? 'B' : 'O', 10));
+                }
+            });
+            producers[p].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        processThread.interrupt();
+        processThread.join();
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(4000, orderBook.getOrdersCount());
+    }
+
+    @Test
+    void batchProcessingTest() {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setMaxBatchSize(2));
+        for (int i = 0; i < 5; i++) {
+            orderBook.addOrder(new Order(i, 100.0, 'B', 100));
+        }
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(5, orderBook.getOrdersCount());
+        // 5 actions in batches of 2
+        assertEquals(3, orderBook.getBookVersion());
+    }
+
+    @Test
+    void modifyOrderUpdatesLevelAggregatesTest() {
+        OrderBook orderBook = new OrderBook();
+        orderBook.addOrder(new Order(100, 100.0, 'B', 100));
+        orderBook.addOrder(new Order(101, 100.0, 'B', 200));
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(300, orderBook.getLevelTotalSize(Side.BID, 0));
+        assertEquals(2, orderBook.getLevelOrderCount(Side.BID, 0));
+
+        orderBook.modifyOrder(100, 50);
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(250, orderBook.getLevelTotalSize(Side.BID, 0));
+
+        orderBook.removeOrder(101);
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(50, orderBook.getLevelTotalSize(Side.BID, 0));
+        assertEquals(1, orderBook.getLevelOrderCount('B', 0));
+    }
+
+    @Test
+    void levelsBeyondDepthIndexTest() {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setDepthIndexLevels(2));
+        for (int i = 0; i < 5; i++) {
+            orderBook.addOrder(new Order(i, 100.0 + i, 'O', 10 * (i + 1)));
+        }
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(5, orderBook.getLevelCount(Side.OFFER));
+        assertEquals(100.0, orderBook.getLevelPrice(Side.OFFER, 0));
+        assertEquals(104.0, orderBook.getLevelPrice(Side.OFFER, 4));
+        assertEquals(30, orderBook.getLevelTotalSize(Side.OFFER, 2));
+
+        // removing the best level shifts every level up
+        orderBook.removeOrder(0);
+        orderBook.addOrder(new Order(5, 100.5, 'O', 60));
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(100.5, orderBook.getLevelPrice(Side.OFFER, 0));
+        assertEquals(101.0, orderBook.getLevelPrice(Side.OFFER, 1));
+        assertEquals(102.0, orderBook.getLevelPrice(Side.OFFER, 2));
+        assertThrows(IllegalArgumentException.class, () -> orderBook.getLevelPrice(Side.OFFER, 5));
+    }
+
+    @Test
+    void priceLadderTest() {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig()
+                .setOrderLevelMapType(OrderLevelMapType.PRICE_LADDER)
+                .setPriceLadderBand(100.0, 64));
+        orderBook.addOrder(new Order(100, 100.1, 'B', 100));
+        orderBook.addOrder(new Order(101, 102.1, 'B', 200));
+        orderBook.addOrder(new Order(102, 99.5, 'B', 300));
+        orderBook.addOrder(new Order(103, 103.0, 'O', 400));
+        orderBook.addOrder(new Order(104, 103.0, 'O', 500));
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(102.1, orderBook.getLevelPrice(Side.BID, 0));
+        assertEquals(100.1, orderBook.getLevelPrice(Side.BID, 1));
+        assertEquals(99.5, orderBook.getLevelPrice(Side.BID, 2));
+        assertEquals(900, orderBook.getLevelTotalSize(Side.OFFER, 0));
+
+        orderBook.removeOrder(101);
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(100.1, orderBook.getLevelPrice(Side.BID, 0));
+        assertArrayEquals(new long[]{100, 102}, orderBook.getAllOrdersOnSide(Side.BID).stream().mapToLong(Order::getId).toArray());
+    }
+
+    @Test
+    void offHeapStorageTest() {
+        try (OrderBook orderBook = new OrderBook(new OrderBookConfig()
+                .setOrderStorageType(OrderStorageType.OFF_HEAP)
+                .setInitialOrderCapacity(2))) {
+            orderBook.addOrder(new Order(100, 100.0, 'B', 100));
+            orderBook.addOrder(new Order(101, 100.0, 'B', 200));
+            orderBook.addOrder(new Order(102, 99.0, 'B', 300));
+            orderBook.addOrder(new Order(103, 101.0, 'O', 400));
+            orderBook.modifyOrder(101, 250);
+            orderBook.removeOrder(100);
+            orderBook.drainAndProcessOrderActions();
+            assertEquals(3, orderBook.getOrdersCount());
+            assertEquals(250, orderBook.getLevelTotalSize(Side.BID, 0));
+
+            List<Order> bidOrders = orderBook.getAllOrdersOnSide(Side.BID);
+            assertArrayEquals(new long[]{101, 102}, bidOrders.stream().mapToLong(Order::getId).toArray());
+            assertEquals(250, bidOrders.get(0).getSize());
+            assertEquals(99.0, bidOrders.get(1).getPrice());
+        }
+    }
+
+    @Test
+    void snapshotTest() {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setSnapshotDepth(2));
+        OrderBookSnapshot snapshot = orderBook.snapshot(2);
+        assertEquals(-1, snapshot.getSequence());
+        assertEquals(0, snapshot.getLevelCount(Side.BID));
+
+        orderBook.addOrder(new Order(100, 100.0, 'B', 100));
+        orderBook.addOrder(new Order(101, 101.0, 'B', 200));
+        orderBook.addOrder(new Order(102, 102.0, 'B', 300));
+        orderBook.addOrder(new Order(103, 103.0, 'O', 400));
+        orderBook.addOrder(new Order(104, 103.0, 'O', 500));
+        orderBook.drainAndProcessOrderActions();
+
+        snapshot = orderBook.snapshot(2);
+        assertEquals(4, snapshot.getSequence());
+        assertEquals(2, snapshot.getLevelCount(Side.BID));
+        assertEquals(102.0, snapshot.getLevelPrice(Side.BID, 0));
+        assertEquals(101.0, snapshot.getLevelPrice(Side.BID, 1));
+        assertEquals(1, snapshot.getLevelCount(Side.OFFER));
+        assertEquals(900, snapshot.getLevelTotalSize(Side.OFFER, 0));
+        assertEquals(2, snapshot.getLevelOrderCount(Side.OFFER, 0));
+        assertEquals(1, orderBook.snapshot(1).getLevelCount(Side.BID));
+        assertThrows(IllegalArgumentException.class, () -> orderBook.snapshot(3));
+
+        // a published snapshot is not affected by later actions
+        orderBook.removeOrder(102);
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(102.0, snapshot.getLevelPrice(Side.BID, 0));
+        assertEquals(101.0, orderBook.snapshot(2).getLevelPrice(Side.BID, 0));
+        assertEquals(5, orderBook.snapshot(2).getSequence());
+    }
+
+    @Test
+    void snapshotBeyondDepthIndexTest() {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setDepthIndexLevels(2).setSnapshotDepth(4));
+        for (int i = 0; i < 5; i++) {
+            orderBook.addOrder(new Order(i, 100.0 - i, 'B', 10 * (i + 1)));
+            orderBook.addOrder(new Order(10 + i, 101.0 + i, 'O', 10 * (i + 1)));
+        }
+        orderBook.drainAndProcessOrderActions();
+
+        OrderBookSnapshot snapshot = orderBook.snapshot(4);
+        assertEquals(4, snapshot.getLevelCount(Side.BID));
+        assertEquals(4, snapshot.getLevelCount(Side.OFFER));
+        for (int level = 0; level < 4; level++) {
+            assertEquals(100.0 - level, snapshot.getLevelPrice(Side.BID, level));
+            assertEquals(101.0 + level, snapshot.getLevelPrice(Side.OFFER, level));
+            assertEquals(10 * (level + 1), snapshot.getLevelTotalSize(Side.OFFER, level));
+            assertEquals(1, snapshot.getLevelOrderCount(Side.BID, level));
+        }
+    }
 }
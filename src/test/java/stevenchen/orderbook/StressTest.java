@@ -11,6 +11,17 @@ public class StressTest {
 
     public static void main(String[] args) {
         OrderBook orderBook = new OrderBook();
+        Thread processThread = new Thread(() -> {
+            // This is a continuous process that will run until the program is terminated.
+            // This will cause the program to run indefinitely even after other threads have completed.
+            try {
+                orderBook.continuousProcessOrderActions();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        // The ring buffer is bounded, the process thread has to be running before the initial load.
+        processThread.start();
         for (int i = 0; i < 1000000; i++) {
             double price = Math.round(Math.random() * 10000) / 100.0;
             char side = Math.random() > 0.5 ? 'B' : 'O';
@@ -52,15 +63,6 @@ public class StressTest {
             }
 
         });
-        Thread processThread = new Thread(() -> {
-            // This is a continuous process that will run until the program is terminated.
-            // This will cause the program to run indefinitely even after other threads have completed.
-            try {
-                orderBook.continuousProcessOrderActions();
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        });
         Thread logThread = new Thread(() -> {
             for(int i = 0; i < 100; i++) {
                 LOGGER.info("Best bid price: " + orderBook.getLevelPrice('B', 0) + ", with size " + orderBook.getLevelTotalSize('B', 0));
@@ -72,7 +74,6 @@ public class StressTest {
                 }
             }
         });
-        processThread.start();
         addThread.start();
         removeModifyThread.start();
         logThread.start();
@@ -0,0 +1,107 @@
+package stevenchen.orderbook.load;
+
+import stevenchen.orderbook.OrderBook;
+import stevenchen.orderbook.OrderBookConfig;
+import stevenchen.orderbook.event.MarketDataListener;
+import stevenchen.orderbook.metrics.LatencyHistogram;
+import stevenchen.orderbook.metrics.LatencyRecorder;
+import stevenchen.orderbook.sequencer.WaitStrategy;
+
+import java.util.Arrays;
+
+/**
+ * Drives an OrderBook at fixed offered rates and reports the latency distribution at each rate.
+ * <p>
+ * The producer schedules every action at its intended time, start + sum of intervals, and the latency is measured from
+ * that intended time to the end of the batch that applied the action. When the book falls behind and the producer is
+ * held up, the actions keep their intended times, so the queueing delay is counted instead of being hidden
+ * (coordinated omission correction).
+ * <p>
+ * Usage: LatencyHarness [rates per second, comma separated] [seconds per rate] [warmup seconds] [wait strategy]
+ */
+public class LatencyHarness {
+    private static final int RING_BUFFER_SIZE = 1 << 16;
+
+    public static void main(String[] args) throws InterruptedException {
+        double[] rates = Arrays.stream((args.length > 0 ? args[0] : "100000,250000,500000,1000000").split(","))
+                .mapToDouble(Double::parseDouble).toArray();
+        long durationNanos = (long) ((args.length > 1 ? Double.parseDouble(args[1]) : 10) * 1e9);
+        long warmupNanos = (long) ((args.length > 2 ? Double.parseDouble(args[2]) : 2) * 1e9);
+        OrderBookConfig config = new OrderBookConfig()
+                .setRingBufferSize(RING_BUFFER_SIZE)
+                .setWaitStrategy(WaitStrategy.valueOf(args.length > 3 ? args[3] : "PARK"));
+
+        System.out.printf("%12s %12s %10s %10s %10s %10s %10s%n", "rate/s", "achieved/s", "p50 us", "p99 us", "p99.9 us", "max us", "orders");
+        for (double rate : rates) {
+            run(config, new WorkloadConfig(), rate, durationNanos, warmupNanos);
+        }
+    }
+
+    static void run(OrderBookConfig config, WorkloadConfig workloadConfig, double rate, long durationNanos, long warmupNanos) throws InterruptedException {
+        OrderBook orderBook = new OrderBook(config);
+        WorkloadGenerator workloadGenerator = new WorkloadGenerator(workloadConfig);
+        WorkloadGenerator.ActionSink sink = WorkloadGenerator.sinkOf(orderBook);
+        CompletionListener completionListener = new CompletionListener();
+        orderBook.addMarketDataListener(completionListener);
+        Thread processThread = new Thread(() -> {
+            try {
+                orderBook.continuousProcessOrderActions();
+            } catch (InterruptedException e) {
+                // stopped at the end of the run
+            }
+        }, "orderbook-process");
+        processThread.start();
+
+        long startNanos = System.nanoTime();
+        completionListener.measureFromNanos = startNanos + warmupNanos;
+        long intendedNanos = startNanos;
+        long actionCount = 0;
+        while (intendedNanos - startNanos < durationNanos) {
+            while (System.nanoTime() < intendedNanos) {
+                Thread.onSpinWait();
+            }
+            // the i-th action of a fresh book gets sequence i
+            completionListener.intendedNanos[(int) (actionCount & (completionListener.intendedNanos.length - 1))] = intendedNanos;
+            workloadGenerator.next(sink);
+            actionCount++;
+            intendedNanos += workloadGenerator.intervalNanos(intendedNanos - startNanos, rate);
+        }
+        long lastSequence = actionCount - 1;
+        while (completionListener.completedSequence < lastSequence) {
+            Thread.sleep(1);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        processThread.interrupt();
+        processThread.join();
+        orderBook.close();
+
+        LatencyHistogram histogram = completionListener.latencies.closeInterval();
+        System.out.printf("%12.0f %12.0f %10.1f %10.1f %10.1f %10.1f %10d%n", rate, actionCount * 1e9 / elapsedNanos,
+                histogram.getValueAtPercentile(50) / 1e3, histogram.getValueAtPercentile(99) / 1e3,
+                histogram.getValueAtPercentile(99.9) / 1e3, histogram.getMaxValue() / 1e3,
+                workloadGenerator.getLiveOrderCount());
+    }
+
+    /**
+     * Records, on the processing thread, the latency of every action of a batch when the batch ends.
+     */
+    private static class CompletionListener implements MarketDataListener {
+        // intended times of the actions in flight, the producer is never more than a ring buffer ahead
+        private final long[] intendedNanos = new long[2 * RING_BUFFER_SIZE];
+        private final LatencyRecorder latencies = new LatencyRecorder();
+        private volatile long measureFromNanos;
+        private volatile long completedSequence = -1;
+
+        @Override
+        public void onBatchEnd(long sequence) {
+            long now = System.nanoTime();
+            for (long s = completedSequence + 1; s <= sequence; s++) {
+                long intended = intendedNanos[(int) (s & (intendedNanos.length - 1))];
+                if (intended >= measureFromNanos) {
+                    latencies.record(now - intended);
+                }
+            }
+            completedSequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package stevenchen.orderbook.load;
+
+/**
+ * Options of a {@link WorkloadGenerator}. Setters return this config so options can be chained.
+ */
+public class WorkloadConfig {
+    private long seed = 42;
+    private int midPriceTicks = 10_000;
+    private double midVolatilityTicks = 0.05;
+    private double priceSpreadTicks = 20;
+    private int addWeight = 45;
+    private int modifyWeight = 20;
+    private int cancelWeight = 35;
+    private double meanOrderLifetime = 5_000;
+    private int maxSize = 1_000;
+    private double burstFactor = 1;
+    private long burstPeriodNanos = 1_000_000_000L;
+    private long burstDurationNanos = 0;
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Set the seed of the random generator, the same seed always produces the same actions.
+     */
+    public WorkloadConfig setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public int getMidPriceTicks() {
+        return midPriceTicks;
+    }
+
+    public double getMidVolatilityTicks() {
+        return midVolatilityTicks;
+    }
+
+    /**
+     * Set the starting mid price, and the standard deviation of the mid price move per action.
+     * The mid price follows a random walk, so the active levels move over the run.
+     */
+    public WorkloadConfig setMidPrice(int midPriceTicks, double midVolatilityTicks) {
+        this.midPriceTicks = midPriceTicks;
+        this.midVolatilityTicks = midVolatilityTicks;
+        return this;
+    }
+
+    public double getPriceSpreadTicks() {
+        return priceSpreadTicks;
+    }
+
+    /**
+     * Set the standard deviation of the distance between an order price and the mid price,
+     * bids are priced below the mid and offers above it.
+     */
+    public WorkloadConfig setPriceSpreadTicks(double priceSpreadTicks) {
+        this.priceSpreadTicks = priceSpreadTicks;
+        return this;
+    }
+
+    public int getAddWeight() {
+        return addWeight;
+    }
+
+    public int getModifyWeight() {
+        return modifyWeight;
+    }
+
+    public int getCancelWeight() {
+        return cancelWeight;
+    }
+
+    /**
+     * Set the relative frequency of adds, modifies and cancels of random live orders.
+     * Expired orders are cancelled on top of these.
+     */
+    public WorkloadConfig setActionWeights(int addWeight, int modifyWeight, int cancelWeight) {
+        if (addWeight <= 0 || modifyWeight < 0 || cancelWeight < 0) {
+            throw new IllegalArgumentException("Add weight must be positive and other weights non-negative");
+        }
+        this.addWeight = addWeight;
+        this.modifyWeight = modifyWeight;
+        this.cancelWeight = cancelWeight;
+        return this;
+    }
+
+    public double getMeanOrderLifetime() {
+        return meanOrderLifetime;
+    }
+
+    /**
+     * Set the mean lifetime of an order, in generated actions. Lifetimes are exponentially distributed,
+     * an order still live at the end of its lifetime is cancelled.
+     */
+    public WorkloadConfig setMeanOrderLifetime(double meanOrderLifetime) {
+        this.meanOrderLifetime = meanOrderLifetime;
+        return this;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public WorkloadConfig setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    public double getBurstFactor() {
+        return burstFactor;
+    }
+
+    public long getBurstPeriodNanos() {
+        return burstPeriodNanos;
+    }
+
+    public long getBurstDurationNanos() {
+        return burstDurationNanos;
+    }
+
+    /**
+     * Multiply the offered rate by burstFactor for the first burstDurationNanos of every burstPeriodNanos.
+     */
+    public WorkloadConfig setBurst(double burstFactor, long burstPeriodNanos, long burstDurationNanos) {
+        if (burstFactor <= 0 || burstPeriodNanos <= 0 || burstDurationNanos < 0 || burstDurationNanos > burstPeriodNanos) {
+            throw new IllegalArgumentException("Invalid burst profile");
+        }
+        this.burstFactor = burstFactor;
+        this.burstPeriodNanos = burstPeriodNanos;
+        this.burstDurationNanos = burstDurationNanos;
+        return this;
+    }
+}
@@ -0,0 +1,185 @@
+package stevenchen.orderbook.load;
+
+import stevenchen.orderbook.OrderBook;
+import stevenchen.orderbook.model.Order;
+import stevenchen.orderbook.util.LongIntHashMap;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a reproducible stream of add, modify and cancel actions from a {@link WorkloadConfig}.
+ * <p>
+ * Order prices are drawn around a mid price that follows a random walk. Every order gets an exponentially
+ * distributed lifetime and is cancelled when it expires, unless a random cancel removed it first.
+ * Each call to {@link #next(ActionSink)} emits exactly one action, so the n-th action of a run is always the same
+ * for a given seed.
+ */
+public class WorkloadGenerator {
+    /**
+     * Receives the generated actions.
+     */
+    public interface ActionSink {
+        void add(long orderId, double price, char side, long size);
+
+        void modify(long orderId, long newSize);
+
+        void cancel(long orderId);
+    }
+
+    /**
+     * Forward the actions to the producer API of an OrderBook.
+     */
+    public static ActionSink sinkOf(OrderBook orderBook) {
+        return new ActionSink() {
+            @Override
+            public void add(long orderId, double price, char side, long size) {
+                orderBook.addOrder(new Order(orderId, price, side, size));
+            }
+
+            @Override
+            public void modify(long orderId, long newSize) {
+                orderBook.modifyOrder(orderId, newSize);
+            }
+
+            @Override
+            public void cancel(long orderId) {
+                orderBook.removeOrder(orderId);
+            }
+        };
+    }
+
+    private final WorkloadConfig config;
+    private final SplittableRandom random;
+    private final int totalWeight;
+    private double midPrice;
+    private long actionCount;
+    private long nextOrderId;
+    // live orders in a dense array for random picks, with the index of every order id
+    private long[] liveOrderIds = new long[1024];
+    private int liveOrderCount;
+    private final LongIntHashMap liveOrderIndex = new LongIntHashMap(1024);
+    // binary min-heap of order expiries, cancelled orders are skipped when they reach the top
+    private long[] expiryActions = new long[1024];
+    private long[] expiryOrderIds = new long[1024];
+    private int expiryCount;
+
+    public WorkloadGenerator(WorkloadConfig config) {
+        this.config = config;
+        this.random = new SplittableRandom(config.getSeed());
+        this.totalWeight = config.getAddWeight() + config.getModifyWeight() + config.getCancelWeight();
+        this.midPrice = config.getMidPriceTicks();
+    }
+
+    /**
+     * Emit the next action.
+     */
+    public void next(ActionSink sink) {
+        actionCount++;
+        midPrice += random.nextGaussian() * config.getMidVolatilityTicks();
+        while (expiryCount > 0 && expiryActions[0] <= actionCount) {
+            long orderId = pollExpiry();
+            if (liveOrderIndex.containsKey(orderId)) {
+                removeLiveOrder(orderId);
+                sink.cancel(orderId);
+                return;
+            }
+        }
+        int draw = random.nextInt(totalWeight);
+        if (draw < config.getAddWeight() || liveOrderCount == 0) {
+            add(sink);
+        } else if (draw < config.getAddWeight() + config.getModifyWeight()) {
+            sink.modify(liveOrderIds[random.nextInt(liveOrderCount)], 1 + random.nextInt(config.getMaxSize()));
+        } else {
+            long orderId = liveOrderIds[random.nextInt(liveOrderCount)];
+            removeLiveOrder(orderId);
+            sink.cancel(orderId);
+        }
+    }
+
+    private void add(ActionSink sink) {
+        long orderId = nextOrderId++;
+        boolean bid = random.nextBoolean();
+        long distance = 1 + (long) Math.abs(random.nextGaussian() * config.getPriceSpreadTicks());
+        long priceTicks = Math.max(1, Math.round(midPrice) + (bid ? -distance : distance));
+        sink.add(orderId, priceTicks / 100.0, bid ? 'B' : 'O', 1 + random.nextInt(config.getMaxSize()));
+        addLiveOrder(orderId);
+        long lifetime = 1 + (long) (-config.getMeanOrderLifetime() * Math.log(1 - random.nextDouble()));
+        addExpiry(actionCount + lifetime, orderId);
+    }
+
+    /**
+     * Get the time until the next action for a given offered rate, following the burst profile.
+     * @param elapsedNanos time since the start of the run
+     */
+    public long intervalNanos(long elapsedNanos, double ratePerSecond) {
+        boolean inBurst = elapsedNanos % config.getBurstPeriodNanos() < config.getBurstDurationNanos();
+        double rate = inBurst ? ratePerSecond * config.getBurstFactor() : ratePerSecond;
+        return Math.max(1, (long) (1e9 / rate));
+    }
+
+    public int getLiveOrderCount() {
+        return liveOrderCount;
+    }
+
+    private void addLiveOrder(long orderId) {
+        if (liveOrderCount == liveOrderIds.length) {
+            liveOrderIds = Arrays.copyOf(liveOrderIds, liveOrderCount * 2);
+        }
+        liveOrderIndex.put(orderId, liveOrderCount);
+        liveOrderIds[liveOrderCount++] = orderId;
+    }
+
+    private void removeLiveOrder(long orderId) {
+        int index = liveOrderIndex.remove(orderId);
+        long lastOrderId = liveOrderIds[--liveOrderCount];
+        if (index != liveOrderCount) {
+            liveOrderIds[index] = lastOrderId;
+            liveOrderIndex.put(lastOrderId, index);
+        }
+    }
+
+    private void addExpiry(long expiryAction, long orderId) {
+        if (expiryCount == expiryActions.length) {
+            expiryActions = Arrays.copyOf(expiryActions, expiryCount * 2);
+            expiryOrderIds = Arrays.copyOf(expiryOrderIds, expiryCount * 2);
+        }
+        int i = expiryCount++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (expiryActions[parent] <= expiryAction) {
+                break;
+            }
+            expiryActions[i] = expiryActions[parent];
+            expiryOrderIds[i] = expiryOrderIds[parent];
+            i = parent;
+        }
+        expiryActions[i] = expiryAction;
+        expiryOrderIds[i] = orderId;
+    }
+
+    private long pollExpiry() {
+        long orderId = expiryOrderIds[0];
+        long lastAction = expiryActions[--expiryCount];
+        long lastOrderId = expiryOrderIds[expiryCount];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= expiryCount) {
+                break;
+            }
+            if (child + 1 < expiryCount && expiryActions[child + 1] < expiryActions[child]) {
+                child++;
+            }
+            if (expiryActions[child] >= lastAction) {
+                break;
+            }
+            expiryActions[i] = expiryActions[child];
+            expiryOrderIds[i] = expiryOrderIds[child];
+            i = child;
+        }
+        expiryActions[i] = lastAction;
+        expiryOrderIds[i] = lastOrderId;
+        return orderId;
+    }
+}
@@ -0,0 +1,86 @@
+package stevenchen.orderbook.load;
+
+import org.junit.jupiter.api.Test;
+import stevenchen.orderbook.OrderBook;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WorkloadGeneratorTest {
+
+    private static class RecordingSink implements WorkloadGenerator.ActionSink {
+        private final List<String> actions = new ArrayList<>();
+        private final Set<Long> liveOrderIds = new HashSet<>();
+
+        @Override
+        public void add(long orderId, double price, char side, long size) {
+            actions.add("ADD " + orderId + " " + price + " " + side + " " + size);
+            assertTrue(liveOrderIds.add(orderId));
+        }
+
+        @Override
+        public void modify(long orderId, long newSize) {
+            actions.add("MODIFY " + orderId + " " + newSize);
+            assertTrue(liveOrderIds.contains(orderId));
+        }
+
+        @Override
+        public void cancel(long orderId) {
+            actions.add("CANCEL " + orderId);
+            assertTrue(liveOrderIds.remove(orderId));
+        }
+    }
+
+    private static RecordingSink generate(WorkloadConfig workloadConfig, int actionCount) {
+        WorkloadGenerator workloadGenerator = new WorkloadGenerator(workloadConfig);
+        RecordingSink sink = new RecordingSink();
+        for (int i = 0; i < actionCount; i++) {
+            workloadGenerator.next(sink);
+        }
+        assertEquals(sink.liveOrderIds.size(), workloadGenerator.getLiveOrderCount());
+        return sink;
+    }
+
+    @Test
+    void sameSeedSameActionsTest() {
+        RecordingSink first = generate(new WorkloadConfig().setSeed(7), 10_000);
+        RecordingSink second = generate(new WorkloadConfig().setSeed(7), 10_000);
+        assertEquals(first.actions, second.actions);
+        assertEquals(10_000, first.actions.size());
+    }
+
+    @Test
+    void ordersExpireTest() {
+        // without random cancels, orders only leave the book when their lifetime ends
+        RecordingSink sink = generate(new WorkloadConfig().setActionWeights(1, 0, 0).setMeanOrderLifetime(100), 10_000);
+        assertTrue(sink.liveOrderIds.size() < 500, "live orders " + sink.liveOrderIds.size());
+        assertTrue(sink.actions.stream().anyMatch(action -> action.startsWith("CANCEL")));
+    }
+
+    @Test
+    void burstProfileTest() {
+        WorkloadGenerator workloadGenerator = new WorkloadGenerator(new WorkloadConfig().setBurst(4, 1_000_000_000L, 100_000_000L));
+        assertEquals(2_500, workloadGenerator.intervalNanos(50_000_000L, 100_000));
+        assertEquals(10_000, workloadGenerator.intervalNanos(500_000_000L, 100_000));
+    }
+
+    @Test
+    void driveOrderBookTest() {
+        OrderBook orderBook = new OrderBook();
+        WorkloadGenerator workloadGenerator = new WorkloadGenerator(new WorkloadConfig());
+        WorkloadGenerator.ActionSink sink = WorkloadGenerator.sinkOf(orderBook);
+        for (int i = 0; i < 20_000; i++) {
+            workloadGenerator.next(sink);
+            if (i % 1000 == 999) {
+                orderBook.drainAndProcessOrderActions();
+            }
+        }
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(workloadGenerator.getLiveOrderCount(), orderBook.getAllOrdersOnSide('B').size() + orderBook.getAllOrdersOnSide('O').size());
+    }
+}
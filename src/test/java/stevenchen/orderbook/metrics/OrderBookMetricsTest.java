@@ -0,0 +1,79 @@
+package stevenchen.orderbook.metrics;
+
+import org.junit.jupiter.api.Test;
+import stevenchen.orderbook.OrderBook;
+import stevenchen.orderbook.OrderBookConfig;
+import stevenchen.orderbook.action.ActionType;
+import stevenchen.orderbook.model.Order;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderBookMetricsTest {
+
+    @Test
+    void bucketPrecisionTest() {
+        for (long value : new long[]{0, 1, 63, 64, 65, 1000, 123_456, 10_000_000_000L, Long.MAX_VALUE}) {
+            long highest = LatencyHistogram.bucketHighestValue(LatencyHistogram.bucketIndex(value));
+            assertTrue(highest >= value, "bucket of " + value + " ends at " + highest);
+            assertTrue(highest - value <= value / 32, "bucket of " + value + " ends at " + highest);
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    void percentileTest() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (int i = 1; i <= 1000; i++) {
+            recorder.record(i);
+        }
+        LatencyHistogram histogram = recorder.closeInterval();
+        assertEquals(1000, histogram.getCount());
+        long p50 = histogram.getValueAtPercentile(50);
+        assertTrue(p50 >= 500 && p50 <= 500 + 500 / 32, "p50 " + p50);
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(p99 >= 990 && p99 <= 990 + 990 / 32, "p99 " + p99);
+        assertTrue(histogram.getMaxValue() >= 1000);
+
+        // the next interval only holds the values recorded after the previous one was closed
+        recorder.record(5);
+        histogram = recorder.closeInterval();
+        assertEquals(1, histogram.getCount());
+        assertEquals(5, histogram.getMaxValue());
+        assertEquals(0, recorder.closeInterval().getValueAtPercentile(99));
+    }
+
+    @Test
+    void orderBookMetricsTest() {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setMetricsEnabled(true));
+        orderBook.addOrder(new Order(100, 100.0, 'B', 100));
+        orderBook.addOrder(new Order(101, 100.0, 'B', 100));
+        orderBook.modifyOrder(100, 50);
+        orderBook.removeOrder(101);
+        assertEquals(4, orderBook.getMetrics().getQueueDepth());
+        orderBook.drainAndProcessOrderActions();
+
+        MetricsSnapshot snapshot = orderBook.getMetrics().snapshot();
+        assertEquals(2, snapshot.getActionCount(ActionType.ADD));
+        assertEquals(1, snapshot.getActionCount(ActionType.MODIFY));
+        assertEquals(1, snapshot.getActionCount(ActionType.REMOVE));
+        assertEquals(4, snapshot.getActionCount());
+        assertEquals(0, snapshot.getQueueDepth());
+        assertEquals(4, snapshot.getMaxQueueDepth());
+        assertTrue(snapshot.getQueueWait(ActionType.ADD).getMaxValue() > 0);
+        assertTrue(snapshot.getThroughput() > 0);
+
+        Map<String, Long> latencies = orderBook.getMetrics().getLatencyNanos();
+        assertTrue(latencies.get("ADD.queueWait.p99") > 0);
+        assertEquals(0, orderBook.getMetrics().snapshot().getActionCount());
+    }
+
+    @Test
+    void metricsDisabledTest() {
+        OrderBook orderBook = new OrderBook();
+        assertThrows(IllegalStateException.class, orderBook::getMetrics);
+    }
+}
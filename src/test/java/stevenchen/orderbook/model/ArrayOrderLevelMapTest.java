@@ -0,0 +1,83 @@
+package stevenchen.orderbook.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ArrayOrderLevelMapTest {
+    private static final OrderStore ORDER_STORE = new HeapOrderStore(1);
+
+    private static List<Long> prices(OrderLevelMap orderLevelMap) {
+        List<Long> prices = new ArrayList<>();
+        for (OrderLevelBucket orderLevelBucket : orderLevelMap) {
+            prices.add(orderLevelBucket.getPrice());
+        }
+        return prices;
+    }
+
+    @Test
+    void bidOrderAndBestTest() {
+        ArrayOrderLevelMap orderLevelMap = new ArrayOrderLevelMap(Side.BID, 100, 16);
+        orderLevelMap.put(new OrderLevelBucket(105, Side.BID, ORDER_STORE));
+        orderLevelMap.put(new OrderLevelBucket(101, Side.BID, ORDER_STORE));
+        orderLevelMap.put(new OrderLevelBucket(110, Side.BID, ORDER_STORE));
+        assertEquals(3, orderLevelMap.size());
+        assertEquals(110, orderLevelMap.getBest().getPrice());
+        assertEquals(List.of(110L, 105L, 101L), prices(orderLevelMap));
+
+        orderLevelMap.remove(110);
+        assertEquals(105, orderLevelMap.getBest().getPrice());
+        orderLevelMap.remove(105);
+        orderLevelMap.remove(101);
+        assertNull(orderLevelMap.getBest());
+        assertEquals(0, orderLevelMap.size());
+    }
+
+    @Test
+    void offerOrderTest() {
+        ArrayOrderLevelMap orderLevelMap = new ArrayOrderLevelMap(Side.OFFER, 100, 16);
+        orderLevelMap.put(new OrderLevelBucket(105, Side.OFFER, ORDER_STORE));
+        orderLevelMap.put(new OrderLevelBucket(101, Side.OFFER, ORDER_STORE));
+        orderLevelMap.put(new OrderLevelBucket(110, Side.OFFER, ORDER_STORE));
+        assertEquals(101, orderLevelMap.getBest().getPrice());
+        assertEquals(List.of(101L, 105L, 110L), prices(orderLevelMap));
+        assertNull(orderLevelMap.remove(102));
+    }
+
+    @Test
+    void recenterTest() {
+        ArrayOrderLevelMap orderLevelMap = new ArrayOrderLevelMap(Side.OFFER, 100, 4);
+        orderLevelMap.put(new OrderLevelBucket(101, Side.OFFER, ORDER_STORE));
+        orderLevelMap.put(new OrderLevelBucket(103, Side.OFFER, ORDER_STORE));
+        // outside of the band on both sides, and wider than the initial capacity
+        orderLevelMap.put(new OrderLevelBucket(90, Side.OFFER, ORDER_STORE));
+        orderLevelMap.put(new OrderLevelBucket(120, Side.OFFER, ORDER_STORE));
+        assertEquals(List.of(90L, 101L, 103L, 120L), prices(orderLevelMap));
+        assertEquals(90, orderLevelMap.getBest().getPrice());
+        assertEquals(103, orderLevelMap.get(103).getPrice());
+        assertEquals(32, orderLevelMap.getCapacity());
+    }
+
+    @Test
+    void maxCapacityTest() {
+        ArrayOrderLevelMap orderLevelMap = new ArrayOrderLevelMap(Side.OFFER, 100, 4, 12);
+        orderLevelMap.put(new OrderLevelBucket(101, Side.OFFER, ORDER_STORE));
+        assertTrue(orderLevelMap.canHold(103));
+        assertTrue(orderLevelMap.canHold(112));
+        assertFalse(orderLevelMap.canHold(113));
+        assertFalse(orderLevelMap.canHold(-1_000_000_000L));
+        // grows to the maximum capacity rather than to the next power of two
+        orderLevelMap.put(new OrderLevelBucket(112, Side.OFFER, ORDER_STORE));
+        assertEquals(12, orderLevelMap.getCapacity());
+        assertThrows(IllegalArgumentException.class, () -> orderLevelMap.put(new OrderLevelBucket(113, Side.OFFER, ORDER_STORE)));
+        assertEquals(List.of(101L, 112L), prices(orderLevelMap));
+        assertThrows(IllegalArgumentException.class, () -> new ArrayOrderLevelMap(Side.OFFER, 100, 16, 8));
+    }
+}
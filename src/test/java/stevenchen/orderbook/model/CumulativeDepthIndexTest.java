@@ -0,0 +1,154 @@
+package stevenchen.orderbook.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CumulativeDepthIndexTest {
+
+    /**
+     * Offers of 100 at 101, 200 at 103 and 300 at 104, in a band of 8 prices from 100.
+     */
+    private static CumulativeDepthIndex offerIndex(OrderStore orderStore) {
+        SkipListOrderLevelMap orderLevelMap = new SkipListOrderLevelMap(Side.OFFER);
+        CumulativeDepthIndex cumulativeDepthIndex = new CumulativeDepthIndex(orderLevelMap, 100, 8);
+        long orderId = 1;
+        for (int[] level : new int[][]{{101, 100}, {103, 200}, {104, 300}}) {
+            OrderLevelBucket orderLevelBucket = new OrderLevelBucket(level[0], Side.OFFER, orderStore, cumulativeDepthIndex);
+            orderLevelMap.put(orderLevelBucket);
+            orderLevelBucket.addOrder(orderStore.allocate(orderId++, level[0], Side.OFFER, level[1], 0));
+        }
+        return cumulativeDepthIndex;
+    }
+
+    @Test
+    void offerQueriesTest() {
+        CumulativeDepthIndex cumulativeDepthIndex = offerIndex(new HeapOrderStore(4));
+        assertEquals(0, cumulativeDepthIndex.cumulativeSize(100));
+        assertEquals(100, cumulativeDepthIndex.cumulativeSize(102));
+        assertEquals(300, cumulativeDepthIndex.cumulativeSize(103));
+        assertEquals(600, cumulativeDepthIndex.cumulativeSize(1000));
+        assertEquals(600, cumulativeDepthIndex.getTotalSize());
+
+        assertEquals(101, cumulativeDepthIndex.priceForQuantity(100));
+        assertEquals(103, cumulativeDepthIndex.priceForQuantity(101));
+        assertEquals(104, cumulativeDepthIndex.priceForQuantity(600));
+        // 100 at 101 and 100 at 103
+        assertEquals(102.0, cumulativeDepthIndex.vwapForQuantity(200), 1e-9);
+        assertEquals(101.0, cumulativeDepthIndex.vwapForQuantity(50), 1e-9);
+    }
+
+    @Test
+    void bidQueriesTest() {
+        OrderStore orderStore = new HeapOrderStore(4);
+        SkipListOrderLevelMap orderLevelMap = new SkipListOrderLevelMap(Side.BID);
+        CumulativeDepthIndex cumulativeDepthIndex = new CumulativeDepthIndex(orderLevelMap, 100, 8);
+        OrderLevelBucket high = new OrderLevelBucket(105, Side.BID, orderStore, cumulativeDepthIndex);
+        orderLevelMap.put(high);
+        high.addOrder(orderStore.allocate(1, 105, Side.BID, 100, 0));
+        OrderLevelBucket low = new OrderLevelBucket(102, Side.BID, orderStore, cumulativeDepthIndex);
+        orderLevelMap.put(low);
+        int handle = orderStore.allocate(2, 102, Side.BID, 300, 0);
+        low.addOrder(handle);
+
+        assertEquals(100, cumulativeDepthIndex.cumulativeSize(103));
+        assertEquals(400, cumulativeDepthIndex.cumulativeSize(102));
+        assertEquals(0, cumulativeDepthIndex.cumulativeSize(106));
+        assertEquals(102, cumulativeDepthIndex.priceForQuantity(101));
+
+        low.updateOrderSize(handle, 100);
+        assertEquals(200, cumulativeDepthIndex.getTotalSize());
+        assertEquals(103.5, cumulativeDepthIndex.vwapForQuantity(200), 1e-9);
+    }
+
+    @Test
+    void recenterTest() {
+        OrderStore orderStore = new HeapOrderStore(4);
+        SkipListOrderLevelMap orderLevelMap = new SkipListOrderLevelMap(Side.OFFER);
+        // 104 moves the band of 4 prices, 120 doubles it twice, 90 moves it again
+        CumulativeDepthIndex cumulativeDepthIndex = new CumulativeDepthIndex(orderLevelMap, 100, 4);
+        long orderId = 10;
+        for (int[] level : new int[][]{{101, 100}, {103, 200}, {104, 300}, {120, 400}, {90, 500}}) {
+            OrderLevelBucket orderLevelBucket = new OrderLevelBucket(level[0], Side.OFFER, orderStore, cumulativeDepthIndex);
+            orderLevelMap.put(orderLevelBucket);
+            orderLevelBucket.addOrder(orderStore.allocate(orderId++, level[0], Side.OFFER, level[1], 0));
+        }
+        assertEquals(32, cumulativeDepthIndex.getCapacity());
+        assertEquals(1500, cumulativeDepthIndex.getTotalSize());
+        assertEquals(600, cumulativeDepthIndex.cumulativeSize(102));
+        assertEquals(90, cumulativeDepthIndex.priceForQuantity(500));
+        assertEquals(120, cumulativeDepthIndex.priceForQuantity(1101));
+    }
+
+    @Test
+    void randomUpdatesTest() {
+        Random random = new Random(11);
+        OrderStore orderStore = new HeapOrderStore(16);
+        SkipListOrderLevelMap orderLevelMap = new SkipListOrderLevelMap(Side.BID);
+        CumulativeDepthIndex cumulativeDepthIndex = new CumulativeDepthIndex(orderLevelMap, 1000, 16);
+        List<Integer> handles = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int action = random.nextInt(3);
+            if (action == 0 || handles.isEmpty()) {
+                int price = 900 + random.nextInt(200);
+                OrderLevelBucket orderLevelBucket = orderLevelMap.get(price);
+                if (orderLevelBucket == null) {
+                    orderLevelBucket = new OrderLevelBucket(price, Side.BID, orderStore, cumulativeDepthIndex);
+                    orderLevelMap.put(orderLevelBucket);
+                }
+                int handle = orderStore.allocate(i, price, Side.BID, 1 + random.nextInt(100), 0);
+                orderLevelBucket.addOrder(handle);
+                handles.add(handle);
+            } else {
+                int handle = handles.get(random.nextInt(handles.size()));
+                OrderLevelBucket orderLevelBucket = orderLevelMap.get(orderStore.getPrice(handle));
+                if (action == 1) {
+                    orderLevelBucket.updateOrderSize(handle, 1 + random.nextInt(100));
+                } else {
+                    handles.remove(Integer.valueOf(handle));
+                    orderLevelBucket.removeOrder(handle);
+                    if (orderLevelBucket.isEmpty()) {
+                        orderLevelMap.remove((int) orderLevelBucket.getPrice());
+                    }
+                    orderStore.free(handle);
+                }
+            }
+            int price = 900 + random.nextInt(200);
+            long expected = 0;
+            for (OrderLevelBucket orderLevelBucket : orderLevelMap) {
+                if (orderLevelBucket.getPrice() >= price) {
+                    expected += orderLevelBucket.getTotalSize();
+                }
+            }
+            assertEquals(expected, cumulativeDepthIndex.cumulativeSize(price));
+        }
+    }
+
+    @Test
+    void maxCapacityTest() {
+        OrderStore orderStore = new HeapOrderStore(4);
+        SkipListOrderLevelMap orderLevelMap = new SkipListOrderLevelMap(Side.OFFER);
+        CumulativeDepthIndex cumulativeDepthIndex = new CumulativeDepthIndex(orderLevelMap, 100, 8, 24);
+        assertTrue(cumulativeDepthIndex.canHold(1_000_000));
+        OrderLevelBucket orderLevelBucket = new OrderLevelBucket(101, Side.OFFER, orderStore, cumulativeDepthIndex);
+        orderLevelMap.put(orderLevelBucket);
+        orderLevelBucket.addOrder(orderStore.allocate(1, 101, Side.OFFER, 100, 0));
+        assertTrue(cumulativeDepthIndex.canHold(107));
+        assertTrue(cumulativeDepthIndex.canHold(124));
+        assertFalse(cumulativeDepthIndex.canHold(125));
+        assertFalse(cumulativeDepthIndex.canHold(-1_000_000_000_000L));
+
+        OrderLevelBucket far = new OrderLevelBucket(124, Side.OFFER, orderStore, cumulativeDepthIndex);
+        orderLevelMap.put(far);
+        far.addOrder(orderStore.allocate(2, 124, Side.OFFER, 200, 0));
+        // grows to the maximum capacity rather than to the next power of two
+        assertEquals(24, cumulativeDepthIndex.getCapacity());
+        assertEquals(300, cumulativeDepthIndex.cumulativeSize(124));
+    }
+}
@@ -0,0 +1,108 @@
+package stevenchen.orderbook.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExpiryTimingWheelTest {
+
+    private static int schedule(OrderStore orderStore, ExpiryTimingWheel expiryTimingWheel, long orderId, long expireTime) {
+        int handle = orderStore.allocate(orderId, 100, Side.BID, 10, 0);
+        orderStore.setExpireTime(handle, expireTime);
+        expiryTimingWheel.schedule(handle);
+        return handle;
+    }
+
+    @Test
+    void expireInTimeOrderTest() {
+        OrderStore orderStore = new HeapOrderStore(4);
+        ExpiryTimingWheel expiryTimingWheel = new ExpiryTimingWheel(orderStore, 10);
+        List<Long> expired = new ArrayList<>();
+        ExpiryTimingWheel.ExpiryHandler expiryHandler = handle -> expired.add(orderStore.getOrderId(handle));
+        // pending until the first advance
+        schedule(orderStore, expiryTimingWheel, 1, 1_000_050);
+        assertEquals(Long.MIN_VALUE, expiryTimingWheel.getNextAdvanceTime());
+        expiryTimingWheel.advance(1_000_000, expiryHandler);
+        schedule(orderStore, expiryTimingWheel, 2, 1_000_021);
+        int cancelled = schedule(orderStore, expiryTimingWheel, 3, 1_000_030);
+        schedule(orderStore, expiryTimingWheel, 4, 1_000_000 + 10 * 5000);
+        assertEquals(4, expiryTimingWheel.size());
+        assertEquals(1_000_030, expiryTimingWheel.getNextAdvanceTime());
+
+        expiryTimingWheel.cancel(cancelled);
+        expiryTimingWheel.cancel(cancelled);
+        assertEquals(3, expiryTimingWheel.size());
+        // 1_000_021 fires at the first tick boundary after it, never before
+        expiryTimingWheel.advance(1_000_029, expiryHandler);
+        assertEquals(List.of(), expired);
+        expiryTimingWheel.advance(1_000_030, expiryHandler);
+        assertEquals(List.of(2L), expired);
+        expiryTimingWheel.advance(1_000_000 + 10 * 4999, expiryHandler);
+        assertEquals(List.of(2L, 1L), expired);
+        expiryTimingWheel.advance(1_000_000 + 10 * 5000, expiryHandler);
+        assertEquals(List.of(2L, 1L, 4L), expired);
+        assertEquals(0, expiryTimingWheel.size());
+        assertEquals(Long.MAX_VALUE, expiryTimingWheel.getNextAdvanceTime());
+    }
+
+    @Test
+    void overdueAndBeyondRangeTest() {
+        OrderStore orderStore = new HeapOrderStore(4);
+        ExpiryTimingWheel expiryTimingWheel = new ExpiryTimingWheel(orderStore, 1);
+        List<Long> expired = new ArrayList<>();
+        ExpiryTimingWheel.ExpiryHandler expiryHandler = handle -> expired.add(orderStore.getOrderId(handle));
+        expiryTimingWheel.advance(1000, expiryHandler);
+        schedule(orderStore, expiryTimingWheel, 1, 10);
+        // further out than the 64^4 ticks covered by the wheel
+        long farAway = 1000 + (1L << 24) + 5000;
+        schedule(orderStore, expiryTimingWheel, 2, farAway);
+
+        expiryTimingWheel.advance(1001, expiryHandler);
+        assertEquals(List.of(1L), expired);
+        expiryTimingWheel.advance(farAway - 1, expiryHandler);
+        assertEquals(List.of(1L), expired);
+        expiryTimingWheel.advance(farAway, expiryHandler);
+        assertEquals(List.of(1L, 2L), expired);
+    }
+
+    @Test
+    void randomScheduleTest() {
+        Random random = new Random(3);
+        OrderStore orderStore = new HeapOrderStore(16);
+        ExpiryTimingWheel expiryTimingWheel = new ExpiryTimingWheel(orderStore, 1);
+        long[] expireTimes = new long[20_000];
+        boolean[] cancelled = new boolean[expireTimes.length];
+        int[] handles = new int[expireTimes.length];
+        long[] firedAt = new long[expireTimes.length];
+        long[] now = new long[1];
+        ExpiryTimingWheel.ExpiryHandler expiryHandler = handle -> firedAt[(int) orderStore.getOrderId(handle)] = now[0];
+        expiryTimingWheel.advance(0, expiryHandler);
+        int scheduled = 0;
+        while (now[0] < 500_000) {
+            for (int i = 0; i < 20 && scheduled < expireTimes.length; i++, scheduled++) {
+                expireTimes[scheduled] = now[0] + 1 + random.nextInt(random.nextBoolean() ? 100 : 300_000);
+                handles[scheduled] = schedule(orderStore, expiryTimingWheel, scheduled, expireTimes[scheduled]);
+                if (random.nextInt(10) == 0) {
+                    cancelled[scheduled] = true;
+                    expiryTimingWheel.cancel(handles[scheduled]);
+                }
+            }
+            now[0] += 1 + random.nextInt(200);
+            expiryTimingWheel.advance(now[0], expiryHandler);
+        }
+        for (int i = 0; i < scheduled; i++) {
+            if (cancelled[i]) {
+                assertEquals(0, firedAt[i]);
+            } else {
+                // fired on the first advance at or after the expire time
+                assertTrue(firedAt[i] >= expireTimes[i] && firedAt[i] - expireTimes[i] <= 200, "order " + i);
+            }
+        }
+        assertEquals(0, expiryTimingWheel.size());
+    }
+}
@@ -0,0 +1,61 @@
+package stevenchen.orderbook.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InstrumentDescriptorTest {
+
+    @Test
+    void roundTripTest() {
+        InstrumentDescriptor cents = InstrumentDescriptor.DEFAULT;
+        assertEquals(100.0, cents.getPriceScale());
+        assertEquals(10050, cents.toTicks(100.5));
+        assertEquals(10050, cents.toTicks(100.499999));
+        assertEquals(100.5, cents.toPrice(10050));
+
+        InstrumentDescriptor fx = new InstrumentDescriptor(0.00001);
+        assertEquals(100000.0, fx.getPriceScale());
+        assertEquals(108551, fx.toTicks(1.08551));
+        assertEquals(108552, fx.toTicks(1.08552));
+        assertEquals(1.08551, fx.toPrice(108551));
+
+        InstrumentDescriptor crypto = new InstrumentDescriptor(1e-8);
+        long ticks = crypto.toTicks(65000.12345678);
+        assertEquals(6_500_012_345_678L, ticks);
+        assertTrue(ticks > Integer.MAX_VALUE);
+        assertEquals(65000.12345678, crypto.toPrice(ticks));
+
+        // every decimal price of the grid converts back to itself
+        InstrumentDescriptor quarters = new InstrumentDescriptor(0.25);
+        for (long i = -1000; i <= 1000; i++) {
+            assertEquals(i, quarters.toTicks(quarters.toPrice(i)));
+            assertEquals(i, fx.toTicks(fx.toPrice(i)));
+            assertEquals(i / 100.0, cents.toPrice(i));
+        }
+    }
+
+    @Test
+    void boundsTest() {
+        InstrumentDescriptor descriptor = new InstrumentDescriptor(0.5, 1.0, 1000.0);
+        assertEquals(2, descriptor.getMinTicks());
+        assertEquals(2000, descriptor.getMaxTicks());
+        assertEquals(2, descriptor.toValidTicks(1.0));
+        assertEquals(2000, descriptor.toValidTicks(1000.2));
+        assertTrue(descriptor.isValidTicks(2000));
+        assertFalse(descriptor.isValidTicks(2001));
+        assertThrows(IllegalArgumentException.class, () -> descriptor.toValidTicks(0.5));
+        assertThrows(IllegalArgumentException.class, () -> descriptor.toValidTicks(1001.0));
+        assertThrows(IllegalArgumentException.class, () -> descriptor.toValidTicks(Double.NaN));
+        // unchecked conversion for queries
+        assertEquals(1, descriptor.toTicks(0.5));
+
+        assertEquals(InstrumentDescriptor.MAX_TICKS, InstrumentDescriptor.DEFAULT.getMaxTicks());
+        assertThrows(IllegalArgumentException.class, () -> new InstrumentDescriptor(0));
+        assertThrows(IllegalArgumentException.class, () -> new InstrumentDescriptor(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> new InstrumentDescriptor(0.01, 10.0, 1.0));
+    }
+}
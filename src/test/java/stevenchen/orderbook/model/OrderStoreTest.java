@@ -0,0 +1,58 @@
+package stevenchen.orderbook.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OrderStoreTest {
+
+    private static void allocateGrowAndReuse(OrderStore orderStore) {
+        int first = orderStore.allocate(100, 10050, Side.BID, 300, 1234);
+        assertEquals(100, orderStore.getOrderId(first));
+        assertEquals(10050, orderStore.getPrice(first));
+        assertEquals(Side.BID, orderStore.getSide(first));
+        assertEquals(300, orderStore.getSize(first));
+        assertEquals(1234, orderStore.getOrderTime(first));
+        assertEquals(OrderStore.NULL_HANDLE, orderStore.getPrev(first));
+        assertEquals(OrderStore.NULL_HANDLE, orderStore.getNext(first));
+
+        // beyond the initial capacity of 2
+        int[] handles = new int[10];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = orderStore.allocate(i, 9000 + i, Side.OFFER, i * 10, 0);
+        }
+        assertEquals(11, orderStore.size());
+        assertEquals(100, orderStore.getOrderId(first));
+        for (int i = 0; i < handles.length; i++) {
+            assertEquals(i, orderStore.getOrderId(handles[i]));
+            assertEquals(9000 + i, orderStore.getPrice(handles[i]));
+            assertEquals(Side.OFFER, orderStore.getSide(handles[i]));
+        }
+
+        orderStore.setSize(first, 50);
+        assertEquals(50, orderStore.getSize(first));
+        assertEquals(0, orderStore.getOwnerId(first));
+        orderStore.setOwnerId(first, 77);
+        assertEquals(77, orderStore.getOwnerId(first));
+        assertEquals(OrderStore.NULL_HANDLE, orderStore.getOwnerNext(first));
+
+        // freed records are reused
+        orderStore.free(handles[3]);
+        assertEquals(10, orderStore.size());
+        assertEquals(handles[3], orderStore.allocate(200, 1, Side.BID, 1, 0));
+        assertEquals(200, orderStore.getOrderId(handles[3]));
+        assertEquals(0, orderStore.getOwnerId(handles[3]));
+    }
+
+    @Test
+    void heapOrderStoreTest() {
+        allocateGrowAndReuse(new HeapOrderStore(2));
+    }
+
+    @Test
+    void offHeapOrderStoreTest() {
+        try (OffHeapOrderStore orderStore = new OffHeapOrderStore(2)) {
+            allocateGrowAndReuse(orderStore);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package stevenchen.orderbook.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OwnerIndexTest {
+
+    private static int add(OrderStore orderStore, OwnerIndex ownerIndex, long orderId, long ownerId) {
+        int handle = orderStore.allocate(orderId, 100, Side.BID, 10, 0);
+        orderStore.setOwnerId(handle, ownerId);
+        ownerIndex.add(handle);
+        return handle;
+    }
+
+    private static List<Long> orderIds(OrderStore orderStore, OwnerIndex ownerIndex, long ownerId) {
+        List<Long> orderIds = new ArrayList<>();
+        for (int handle = ownerIndex.getFirstOrder(ownerId); handle != OrderStore.NULL_HANDLE; handle = orderStore.getOwnerNext(handle)) {
+            orderIds.add(orderStore.getOrderId(handle));
+        }
+        return orderIds;
+    }
+
+    @Test
+    void addAndRemoveTest() {
+        OrderStore orderStore = new HeapOrderStore(4);
+        OwnerIndex ownerIndex = new OwnerIndex(orderStore);
+        int first = add(orderStore, ownerIndex, 1, 7);
+        int middle = add(orderStore, ownerIndex, 2, 7);
+        int last = add(orderStore, ownerIndex, 3, 7);
+        add(orderStore, ownerIndex, 4, 8);
+        // orders without owner are not indexed
+        ownerIndex.add(orderStore.allocate(5, 100, Side.BID, 10, 0));
+        assertEquals(List.of(3L, 2L, 1L), orderIds(orderStore, ownerIndex, 7));
+        assertEquals(List.of(4L), orderIds(orderStore, ownerIndex, 8));
+        assertEquals(2, ownerIndex.getOwnerCount());
+
+        ownerIndex.remove(middle);
+        assertEquals(List.of(3L, 1L), orderIds(orderStore, ownerIndex, 7));
+        ownerIndex.remove(last);
+        assertEquals(List.of(1L), orderIds(orderStore, ownerIndex, 7));
+        ownerIndex.remove(first);
+        assertEquals(OrderStore.NULL_HANDLE, ownerIndex.getFirstOrder(7));
+        assertEquals(1, ownerIndex.getOwnerCount());
+    }
+}
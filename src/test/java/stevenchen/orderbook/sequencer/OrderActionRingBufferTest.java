@@ -0,0 +1,73 @@
+package stevenchen.orderbook.sequencer;
+
+import org.junit.jupiter.api.Test;
+import stevenchen.orderbook.OrderBookConfig;
+import stevenchen.orderbook.action.RemoveAction;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderActionRingBufferTest {
+
+    @Test
+    void publishAndWrapTest() {
+        OrderActionRingBuffer ringBuffer = new OrderActionRingBuffer(4, WaitStrategy.BUSY_SPIN);
+        for (int i = 0; i < 10; i++) {
+            long sequence = ringBuffer.next();
+            assertEquals(i, sequence);
+            ringBuffer.get(sequence).setRemoveAction(i);
+            assertEquals(sequence - 1, ringBuffer.getAvailableSequence(sequence));
+            ringBuffer.publish(sequence);
+            assertEquals(sequence, ringBuffer.getAvailableSequence(sequence));
+            RemoveAction removeAction = (RemoveAction) ringBuffer.get(sequence).getOrderAction();
+            assertEquals(i, removeAction.getOrderId());
+            ringBuffer.release(sequence);
+        }
+        // slots are reused once the buffer wraps
+        assertSame(ringBuffer.get(0), ringBuffer.get(4));
+    }
+
+    @Test
+    void availableSequenceStopsAtGapTest() {
+        OrderActionRingBuffer ringBuffer = new OrderActionRingBuffer(8, WaitStrategy.BUSY_SPIN);
+        long first = ringBuffer.next();
+        long second = ringBuffer.next();
+        long third = ringBuffer.next();
+        ringBuffer.publish(first);
+        ringBuffer.publish(third);
+        assertEquals(first, ringBuffer.getAvailableSequence(first));
+        ringBuffer.publish(second);
+        assertEquals(third, ringBuffer.getAvailableSequence(first));
+    }
+
+    @Test
+    void invalidCapacityTest() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderActionRingBuffer(3, WaitStrategy.BUSY_SPIN));
+        assertThrows(IllegalArgumentException.class, () -> new OrderBookConfig().setRingBufferSize(3));
+        assertThrows(IllegalArgumentException.class, () -> new OrderBookConfig().setRingBufferSize(0));
+        assertEquals(4, new OrderBookConfig().setRingBufferSize(4).getRingBufferSize());
+    }
+
+    @Test
+    void interruptedWhileFullTest() throws InterruptedException {
+        OrderActionRingBuffer ringBuffer = new OrderActionRingBuffer(2, WaitStrategy.PARK);
+        ringBuffer.publish(ringBuffer.next(2));
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            assertThrows(IllegalStateException.class, ringBuffer::next);
+            interrupted.set(Thread.currentThread().isInterrupted());
+        });
+        producer.start();
+        producer.interrupt();
+        producer.join();
+        assertTrue(interrupted.get());
+        // the interrupted producer claimed nothing, so the consumer does not wait for a sequence never published
+        assertEquals(1, ringBuffer.getClaimedSequence());
+        ringBuffer.release(1);
+        assertEquals(2, ringBuffer.next());
+    }
+}
@@ -0,0 +1,122 @@
+package stevenchen.orderbook.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LongIntHashMapTest {
+
+    /**
+     * @return the smallest key from the given one whose home slot in a map of 16 slots is the given slot
+     */
+    private static long keyWithHome(long from, int slot) {
+        long key = from;
+        while ((LongIntHashMap.hash(key) & 15) != slot) {
+            key++;
+        }
+        return key;
+    }
+
+    @Test
+    void putGetRemoveTest() {
+        LongIntHashMap map = new LongIntHashMap();
+        assertEquals(LongIntHashMap.MISSING, map.put(1, 10));
+        assertEquals(10, map.put(1, 11));
+        assertEquals(11, map.get(1));
+        assertTrue(map.containsKey(1));
+        assertEquals(1, map.size());
+        assertEquals(11, map.remove(1));
+        assertEquals(LongIntHashMap.MISSING, map.remove(1));
+        assertEquals(LongIntHashMap.MISSING, map.get(1));
+        assertTrue(map.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> map.put(2, -1));
+    }
+
+    @Test
+    void removeAcrossWrapAroundTest() {
+        // a probe chain that starts in the last slot and wraps around to the first ones
+        LongIntHashMap map = new LongIntHashMap();
+        long first = keyWithHome(0, 15);
+        long second = keyWithHome(first + 1, 15);
+        long third = keyWithHome(second + 1, 15);
+        long wrapped = keyWithHome(0, 0);
+        map.put(first, 1);
+        map.put(second, 2);
+        map.put(third, 3);
+        map.put(wrapped, 4);
+
+        // the entries after the hole are shifted back across the end of the array
+        assertEquals(1, map.remove(first));
+        assertEquals(LongIntHashMap.MISSING, map.get(first));
+        assertEquals(2, map.get(second));
+        assertEquals(3, map.get(third));
+        assertEquals(4, map.get(wrapped));
+
+        // an entry already in its home slot is not shifted back before it
+        assertEquals(3, map.remove(third));
+        assertEquals(2, map.get(second));
+        assertEquals(4, map.get(wrapped));
+        assertEquals(2, map.remove(second));
+        assertEquals(4, map.get(wrapped));
+        assertEquals(1, map.size());
+        assertEquals(4, map.remove(wrapped));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void resizeTest() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        long emptyBytes = map.estimatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(LongIntHashMap.MISSING, map.put(i * 1024L, i));
+        }
+        assertEquals(10_000, map.size());
+        assertTrue(map.estimatedBytes() > emptyBytes + 10_000 * (Long.BYTES + Integer.BYTES));
+        for (int i = 0; i < 10_000; i += 2) {
+            assertEquals(i, map.remove(i * 1024L));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i % 2 == 0 ? LongIntHashMap.MISSING : i, map.get(i * 1024L));
+        }
+        // ensureCapacity only grows the map and keeps its entries
+        long bytes = map.estimatedBytes();
+        map.ensureCapacity(100);
+        assertEquals(bytes, map.estimatedBytes());
+        map.ensureCapacity(100_000);
+        assertTrue(map.estimatedBytes() > bytes);
+        assertEquals(5_000, map.size());
+        assertEquals(9_999, map.get(9_999 * 1024L));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(9_999 * 1024L));
+    }
+
+    @Test
+    void randomOperationsMatchHashMapTest() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            // a small key space forces long probe chains and many removals from the middle of them
+            long key = random.nextInt(5000) * 1024L;
+            if (random.nextBoolean()) {
+                assertEquals((int) expected.getOrDefault(key, LongIntHashMap.MISSING), map.put(key, i));
+                expected.put(key, i);
+            } else {
+                Integer removed = expected.remove(key);
+                assertEquals(removed == null ? LongIntHashMap.MISSING : removed, map.remove(key));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package stevenchen.orderbook.validation;
+
+import org.junit.jupiter.api.Test;
+import stevenchen.orderbook.event.RejectReason;
+import stevenchen.orderbook.model.OrderType;
+import stevenchen.orderbook.model.Side;
+import stevenchen.orderbook.sequencer.OrderActionRingBuffer;
+import stevenchen.orderbook.sequencer.WaitStrategy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ValidationStageTest {
+
+    @Test
+    void partitionedValidationTest() throws InterruptedException {
+        OrderActionRingBuffer orderActionRingBuffer = new OrderActionRingBuffer(1024, WaitStrategy.YIELD);
+        try (ValidationStage validationStage = new ValidationStage(orderActionRingBuffer, 4, WaitStrategy.YIELD)) {
+            // order 1000 rests already
+            validationStage.orderAccepted(1000);
+            validationStage.flush();
+            validationStage.start(0);
+            for (int i = 0; i < 100; i++) {
+                long sequence = orderActionRingBuffer.next();
+                orderActionRingBuffer.get(sequence).setAddAction(i, 100, Side.BID, i % 10, 0, OrderType.LIMIT);
+                orderActionRingBuffer.publish(sequence);
+            }
+            long[] orderIds = {5, 1000, 200, 10};
+            for (long orderId : orderIds) {
+                long sequence = orderActionRingBuffer.next();
+                orderActionRingBuffer.get(sequence).setModifyAction(orderId, 10);
+                orderActionRingBuffer.publish(sequence);
+            }
+            assertEquals(103, validationStage.waitFor(103));
+            for (int i = 0; i < 100; i++) {
+                RejectReason rejectReason = orderActionRingBuffer.get(i).getRejectReason();
+                assertEquals(i % 10 == 0 ? RejectReason.INVALID_SIZE : null, rejectReason);
+            }
+            assertNull(orderActionRingBuffer.get(100).getRejectReason());
+            assertNull(orderActionRingBuffer.get(101).getRejectReason());
+            assertEquals(RejectReason.UNKNOWN_ORDER_ID, orderActionRingBuffer.get(102).getRejectReason());
+            // the add of order 10 was rejected, so no order 10 can rest
+            assertEquals(RejectReason.UNKNOWN_ORDER_ID, orderActionRingBuffer.get(103).getRejectReason());
+            orderActionRingBuffer.release(103);
+
+            // once released by the book, order 5 is unknown
+            validationStage.orderReleased(5);
+            validationStage.flush();
+            long sequence = orderActionRingBuffer.next();
+            orderActionRingBuffer.get(sequence).setRemoveAction(5);
+            orderActionRingBuffer.publish(sequence);
+            validationStage.waitFor(sequence);
+            assertEquals(RejectReason.UNKNOWN_ORDER_ID, orderActionRingBuffer.get(sequence).getRejectReason());
+        }
+    }
+
+    @Test
+    void partitionSpreadTest() {
+        int[] counts = new int[4];
+        for (long orderId = 0; orderId < 40_000; orderId++) {
+            counts[ValidationStage.partition(orderId, counts.length)]++;
+        }
+        for (int count : counts) {
+            assertTrue(count > 9000 && count < 11_000, "partition size " + count);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package stevenchen.orderbook.wire;
+
+import org.junit.jupiter.api.Test;
+import stevenchen.orderbook.OrderBook;
+import stevenchen.orderbook.OrderBookConfig;
+import stevenchen.orderbook.action.AddAction;
+import stevenchen.orderbook.model.InstrumentDescriptor;
+import stevenchen.orderbook.model.OrderType;
+import stevenchen.orderbook.model.Side;
+import stevenchen.orderbook.sequencer.OrderActionRingBuffer;
+import stevenchen.orderbook.sequencer.WaitStrategy;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class WireDecoderTest {
+
+    @Test
+    void decodeIntoSlotsTest() {
+        OrderActionRingBuffer orderActionRingBuffer = new OrderActionRingBuffer(8, WaitStrategy.BUSY_SPIN);
+        MemorySegment messages = MemorySegment.ofArray(new byte[WireFormat.MESSAGE_SIZE]);
+        WireFormat.writeAdd(messages, 0, 100, 10050, WireFormat.OFFER, 300, 1234, OrderType.LIMIT);
+
+        assertEquals(1, WireDecoder.publish(messages, orderActionRingBuffer, false));
+        assertEquals(0, orderActionRingBuffer.getAvailableSequence(0));
+        AddAction addAction = (AddAction) orderActionRingBuffer.get(0).getOrderAction();
+        assertEquals(100, addAction.getOrderId());
+        assertEquals(10050, addAction.getPrice());
+        assertEquals(Side.OFFER, addAction.getSide());
+        assertEquals(300, addAction.getSize());
+        assertEquals(1234, addAction.getOrderTime());
+        assertEquals(OrderType.LIMIT, addAction.getOrderType());
+    }
+
+    @Test
+    void ingestByteBufferTest() {
+        OrderBook orderBook = new OrderBook();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4 * WireFormat.MESSAGE_SIZE);
+        MemorySegment messages = MemorySegment.ofBuffer(buffer);
+        WireFormat.writeAdd(messages, 0, 100, 10000, WireFormat.BID, 100, 0, OrderType.LIMIT);
+        WireFormat.writeAdd(messages, 32, 101, 10000, WireFormat.BID, 200, 0, OrderType.LIMIT);
+        WireFormat.writeModify(messages, 64, 100, 50);
+        WireFormat.writeRemove(messages, 96, 101);
+
+        assertEquals(4, orderBook.ingest(buffer));
+        orderBook.drainAndProcessOrderActions();
+        assertEquals(1, orderBook.getLevelCount(Side.BID));
+        assertEquals(100.0, orderBook.getLevelPrice(Side.BID, 0));
+        assertEquals(50, orderBook.getLevelTotalSize(Side.BID, 0));
+    }
+
+    @Test
+    void batchLargerThanRingBufferTest() throws InterruptedException {
+        OrderBook orderBook = new OrderBook(new OrderBookConfig().setRingBufferSize(4));
+        Thread processThread = new Thread(() -> {
+            try {
+                orderBook.continuousProcessOrderActions();
+            } catch (InterruptedException e) {
+                // stopped by the test
+            }
+        });
+        processThread.start();
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment messages = arena.allocate(10 * WireFormat.MESSAGE_SIZE);
+            for (int i = 0; i < 10; i++) {
+                WireFormat.writeAdd(messages, (long) i * WireFormat.MESSAGE_SIZE, i, 10000 + i, WireFormat.OFFER, 10, 0, OrderType.LIMIT);
+            }
+            assertEquals(10, orderBook.ingest(messages));
+        }
+        while (orderBook.getLevelCount(Side.OFFER) < 10) {
+            Thread.sleep(1);
+        }
+        processThread.interrupt();
+        processThread.join();
+        assertEquals(100.0, orderBook.getLevelPrice(Side.OFFER, 0));
+    }
+
+    @Test
+    void malformedBatchIsRejectedTest() {
+        OrderActionRingBuffer orderActionRingBuffer = new OrderActionRingBuffer(8, WaitStrategy.BUSY_SPIN);
+        MemorySegment messages = MemorySegment.ofArray(new byte[2 * WireFormat.MESSAGE_SIZE]);
+        WireFormat.writeAdd(messages, 0, 100, 10000, WireFormat.BID, 100, 0, OrderType.LIMIT);
+        WireFormat.writeAdd(messages, 32, 101, 10000, (byte) 'X', 100, 0, OrderType.LIMIT);
+        assertThrows(IllegalArgumentException.class, () -> WireDecoder.publish(messages, orderActionRingBuffer, false));
+        // nothing is published when a message is invalid
+        assertEquals(-1, orderActionRingBuffer.getClaimedSequence());
+
+        WireFormat.writeAdd(messages, 32, 101, 10000, WireFormat.BID, 100, 0, OrderType.IOC);
+        assertThrows(IllegalArgumentException.class, () -> WireDecoder.publish(messages, orderActionRingBuffer, false));
+        assertThrows(IllegalArgumentException.class, () -> WireDecoder.publish(messages.asSlice(0, 40), orderActionRingBuffer, false));
+    }
+
+    @Test
+    void marketOrderPriceIsNotCheckedTest() {
+        OrderActionRingBuffer orderActionRingBuffer = new OrderActionRingBuffer(8, WaitStrategy.BUSY_SPIN);
+        InstrumentDescriptor instrumentDescriptor = new InstrumentDescriptor(0.01, 50.0, 150.0);
+        MemorySegment messages = MemorySegment.ofArray(new byte[WireFormat.MESSAGE_SIZE]);
+        WireFormat.writeAdd(messages, 0, 100, -1, WireFormat.BID, 100, 0, OrderType.MARKET);
+        assertEquals(1, WireDecoder.publish(messages, orderActionRingBuffer, true, instrumentDescriptor));
+        assertEquals(0, ((AddAction) orderActionRingBuffer.get(0).getOrderAction()).getPrice());
+
+        WireFormat.writeAdd(messages, 0, 101, -1, WireFormat.BID, 100, 0, OrderType.IOC);
+        assertThrows(IllegalArgumentException.class, () -> WireDecoder.publish(messages, orderActionRingBuffer, true, instrumentDescriptor));
+    }
+}